@@ -0,0 +1,77 @@
+package railway.benchmarks;
+
+import railway.entities.PNRRecord;
+import railway.entities.Train;
+import railway.main.DataSeeder;
+import railway.model.ACClassTicket;
+import railway.model.PNRGenerator;
+import railway.model.SleeperClassTicket;
+import railway.model.Ticket;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic datasets shared by the benchmark suites.
+ * The same seed always gives the same tickets, PNRs and fleet, so runs are comparable.
+ */
+final class BenchmarkData {
+    static final long SEED = 42;
+    private static final String[] CLASSES = {"AC1", "AC2", "AC3", "SLEEPER"};
+
+    private BenchmarkData() {
+    }
+
+    /** {@code count} confirmed tickets spread over 500 train numbers, with generated PNRs. */
+    static ArrayList<Ticket> tickets(int count) {
+        Random rand = new Random(SEED);
+        PNRGenerator pnrs = new PNRGenerator(0);
+        ArrayList<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String ticketClass = CLASSES[rand.nextInt(CLASSES.length)];
+            Ticket t = ticketClass.startsWith("AC") ? new ACClassTicket() : new SleeperClassTicket();
+            t.setPnrNumber(pnrs.next());
+            t.setUserId("USR" + String.format("%05d", rand.nextInt(50_000)));
+            t.setTrainNumber(String.valueOf(12000 + rand.nextInt(500)));
+            t.setPassengerName("Passenger " + i);
+            t.setAge(18 + rand.nextInt(60));
+            t.setTicketClass(ticketClass);
+            t.setBookingDate("2025-11-21");
+            t.setStatus("CONFIRMED");
+            t.setFare(500 + rand.nextInt(3000));
+            t.setSeatNum(1 + rand.nextInt(72));
+            t.setJourneyDate("2025-12-01");
+            tickets.add(t);
+        }
+        return tickets;
+    }
+
+    /** The PNR record a booking of each ticket would have produced. */
+    static ArrayList<PNRRecord> pnrRecords(ArrayList<Ticket> tickets) {
+        ArrayList<PNRRecord> records = new ArrayList<>(tickets.size());
+        for (Ticket t : tickets) {
+            records.add(new PNRRecord(t.getPnrNumber(), t.getTrainNumber(), t.getUserId(), t.getPassengerName(),
+                    t.getTicketClass(), String.valueOf(t.getSeatNum()), t.getJourneyDate(), t.getTicketClass(),
+                    "BOOKED", t.getStatus(), 0, 0, false));
+        }
+        return records;
+    }
+
+    /** A seeded-looking fleet of {@code trains} trains. */
+    static ArrayList<Train> fleet(int trains) {
+        return DataSeeder.generateFleet(trains, new Random(SEED));
+    }
+
+    static File tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) deleteRecursively(c);
+        f.delete();
+    }
+}
@@ -0,0 +1,27 @@
+package railway.benchmarks;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Entry point of benchmarks.jar: the standard JMH command line, except that results are
+ * written as JSON to results/jmh-&lt;timestamp&gt;.json unless the caller picks another
+ * format or file ({@code -rf} / {@code -rff}), so every run leaves a record to compare against.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        boolean informational = jmhArgs.contains("-h") || jmhArgs.contains("-l") || jmhArgs.contains("-lp");
+        if (!informational && !jmhArgs.contains("-rf") && !jmhArgs.contains("-rff")) {
+            File dir = new File("results");
+            if (!dir.exists() && !dir.mkdirs()) throw new IllegalStateException("Cannot create " + dir);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            jmhArgs.addAll(Arrays.asList("-rf", "json", "-rff", new File(dir, "jmh-" + stamp + ".json").getPath()));
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
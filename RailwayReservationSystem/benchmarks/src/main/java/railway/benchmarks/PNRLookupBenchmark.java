@@ -0,0 +1,84 @@
+package railway.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import railway.entities.PNRRecord;
+import railway.model.PNRGenerator;
+import railway.repository.PNRRepository;
+import railway.service.PNRService;
+import railway.storage.PNRIndexFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PNRService.checkPNRStatus against an on-disk PNR index of {@code size} records:
+ * existing PNRs, well-formed unknown PNRs, and typos rejected by the check digit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PNRLookupBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private File dir;
+    private PNRIndexFile index;
+    private PNRService service;
+    private String[] hits;
+    private String[] misses;
+    private String[] typos;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkData.tempDir("pnr-bench");
+        index = new PNRIndexFile(new File(dir, "pnr_records.dat").toPath(), new File(dir, "pnr_index.bin").toPath());
+        ArrayList<PNRRecord> records = BenchmarkData.pnrRecords(BenchmarkData.tickets(size));
+        index.rebuild(records);
+        service = new PNRService(new PNRRepository(), index);
+
+        PNRGenerator other = new PNRGenerator(1); // a node that issued none of the indexed PNRs
+        hits = new String[1024];
+        misses = new String[1024];
+        typos = new String[1024];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = records.get((int) ((i * 2654435761L) % records.size())).getPnrNumber();
+            misses[i] = other.next();
+            char[] chars = hits[i].toCharArray();
+            int last = chars.length - 1;
+            chars[last] = (char) ('0' + (chars[last] - '0' + 1) % 10); // wrong check digit
+            typos[i] = new String(chars);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        BenchmarkData.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public PNRRecord hit(Cursor c) throws IOException {
+        return service.checkPNRStatus(hits[c.next++ & 1023]);
+    }
+
+    @Benchmark
+    public PNRRecord miss(Cursor c) throws IOException {
+        return service.checkPNRStatus(misses[c.next++ & 1023]);
+    }
+
+    @Benchmark
+    public PNRRecord typo(Cursor c) throws IOException {
+        return service.checkPNRStatus(typos[c.next++ & 1023]);
+    }
+}
@@ -0,0 +1,69 @@
+package railway.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import railway.entities.Train;
+import railway.repository.TrainRepository;
+import railway.service.TrainManagementService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrainManagementService.searchTrains over a fleet of size / 100 trains (a hundred booked
+ * passengers per train), with full station names and with short partial names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private TrainManagementService service;
+    private String[][] exactQueries;
+    private String[][] partialQueries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ArrayList<Train> fleet = BenchmarkData.fleet(Math.max(10, size / 100));
+        TrainRepository trains = new TrainRepository();
+        for (Train t : fleet) trains.save(t);
+        service = new TrainManagementService(trains);
+
+        Random rand = new Random(BenchmarkData.SEED);
+        exactQueries = new String[1024][];
+        partialQueries = new String[1024][];
+        for (int i = 0; i < exactQueries.length; i++) {
+            Train t = fleet.get(rand.nextInt(fleet.size()));
+            exactQueries[i] = new String[]{t.getSource(), t.getDestination()};
+            partialQueries[i] = new String[]{prefix(t.getSource()), prefix(t.getDestination())};
+        }
+    }
+
+    private static String prefix(String station) {
+        return station.substring(0, Math.min(3, station.length())).toLowerCase();
+    }
+
+    @Benchmark
+    public ArrayList<Train> searchExact(Cursor c) throws IOException {
+        String[] q = exactQueries[c.next++ & 1023];
+        return service.searchTrains(q[0], q[1]);
+    }
+
+    @Benchmark
+    public ArrayList<Train> searchPartial(Cursor c) throws IOException {
+        String[] q = partialQueries[c.next++ & 1023];
+        return service.searchTrains(q[0], q[1]);
+    }
+}
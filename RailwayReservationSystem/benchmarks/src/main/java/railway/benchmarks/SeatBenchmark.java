@@ -0,0 +1,108 @@
+package railway.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import railway.entities.ClassSeatInfo;
+import railway.exception.InvalidInputException;
+import railway.model.ACClassTicket;
+import railway.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassSeatInfo booking primitives on one class of {@code size} seats.
+ * Every operation is paired with its inverse so the class stays in the same state for the
+ * whole run (a full class with size / 10 RAC and size / 10 waitlisted for the queue benchmarks).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SeatBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private ClassSeatInfo empty;      // no seats booked
+    private ClassSeatInfo nearlyFull; // only the last seat free
+    private ClassSeatInfo full;       // every seat confirmed, RAC and WL partly used
+    private ArrayList<Ticket> confirmed; // the confirmed tickets of full, by index
+    private ArrayList<Ticket> spare;
+    private Random rand;
+    private int cursor;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InvalidInputException {
+        rand = new Random(BenchmarkData.SEED);
+        empty = new ClassSeatInfo(size, 1000, size / 10, size);
+
+        nearlyFull = new ClassSeatInfo(size, 1000, size / 10, size);
+        for (int s = 1; s < size; s++) nearlyFull.bookSeat(s);
+
+        full = new ClassSeatInfo(size, 1000, size / 10, size);
+        confirmed = new ArrayList<>(size);
+        for (int s = 1; s <= size; s++) {
+            full.bookSeat(s);
+            Ticket t = ticket("CONFIRMED", s);
+            full.assignTicket(t);
+            confirmed.add(t);
+        }
+        for (int i = 0; i < size / 10; i++) full.assignTicket(ticket("RAC", -1));
+        for (int i = 0; i < size / 10; i++) full.assignTicket(ticket("WAITLIST", -1));
+
+        spare = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) spare.add(ticket("WAITLIST", -1));
+    }
+
+    private Ticket ticket(String status, int seat) {
+        long n = sequence++;
+        return new ACClassTicket("PNR" + n, "USR" + (n % 1000), "12001", "Passenger " + n, 30, "AC2",
+                "2025-11-21", status, 1000, seat, 0, 0, "2025-12-01");
+    }
+
+    @Benchmark
+    public void bookSeat() throws InvalidInputException {
+        int seat = 1 + (cursor++ % size);
+        empty.bookSeat(seat);
+        empty.cancelSeat(seat);
+    }
+
+    /** Worst case for "any seat": the only free seat is the last one. */
+    @Benchmark
+    public int bookAnySeatNearlyFull() throws InvalidInputException {
+        int seat = nearlyFull.bookAnySeat();
+        nearlyFull.cancelSeat(seat);
+        return seat;
+    }
+
+    @Benchmark
+    public String assignTicket() {
+        Ticket t = spare.get(cursor++ & 1023);
+        String status = full.assignTicket(t);
+        full.waitlistQueue.remove(t);
+        return status;
+    }
+
+    /**
+     * A confirmed passenger cancels and the queues move up: the head of RAC takes the seat and
+     * the head of the waitlist moves into RAC. The cancelled ticket rejoins the waitlist.
+     */
+    @Benchmark
+    public ArrayList<Ticket> cancelAndPromote() throws InvalidInputException {
+        int i = rand.nextInt(confirmed.size());
+        Ticket victim = confirmed.get(i);
+        full.cancelConfirmed(victim);
+        ArrayList<Ticket> promoted = full.promoteTickets();
+        for (Ticket p : promoted) {
+            if ("CONFIRMED".equals(p.getStatus())) confirmed.set(i, p);
+        }
+        victim.setStatus("WAITLIST");
+        victim.setSeatNum(-1);
+        full.assignTicket(victim);
+        return promoted;
+    }
+}
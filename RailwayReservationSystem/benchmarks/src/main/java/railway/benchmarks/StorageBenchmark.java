@@ -0,0 +1,94 @@
+package railway.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import railway.entities.PNRRecord;
+import railway.entities.Train;
+import railway.model.Ticket;
+import railway.storage.FileManager;
+import railway.storage.ReservationJournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileManager save/load of the workbooks and replay of the reservation journal.
+ * {@code size} is the number of tickets (and PNR records); the fleet has size / 100 trains.
+ * Each call is a whole-file operation, so these run as single shots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class StorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private File dir;
+    private FileManager fileManager;
+    private ArrayList<Ticket> tickets;
+    private ArrayList<PNRRecord> pnrRecords;
+    private ArrayList<Train> trains;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkData.tempDir("storage-bench");
+        fileManager = new FileManager(dir.getPath());
+        tickets = BenchmarkData.tickets(size);
+        pnrRecords = BenchmarkData.pnrRecords(tickets);
+        trains = BenchmarkData.fleet(Math.max(10, size / 100));
+
+        // Files for the load benchmarks to read
+        fileManager.saveReservations(tickets);
+        fileManager.savePNRRecords(pnrRecords);
+        fileManager.saveTrains(trains);
+        ReservationJournal journal = fileManager.getJournal();
+        for (Ticket t : tickets) journal.appendBooking(t);
+        journal.sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fileManager.close();
+        BenchmarkData.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void saveReservations() throws IOException {
+        fileManager.saveReservations(tickets);
+    }
+
+    @Benchmark
+    public ArrayList<Ticket> loadReservations() throws IOException {
+        return fileManager.loadReservations();
+    }
+
+    @Benchmark
+    public void savePNRRecords() throws IOException {
+        fileManager.savePNRRecords(pnrRecords);
+    }
+
+    @Benchmark
+    public ArrayList<PNRRecord> loadPNRRecords() throws IOException {
+        return fileManager.loadPNRRecords();
+    }
+
+    @Benchmark
+    public void saveTrains() throws IOException {
+        fileManager.saveTrains(trains);
+    }
+
+    @Benchmark
+    public ArrayList<Train> loadTrains() throws IOException {
+        return fileManager.loadTrains();
+    }
+
+    @Benchmark
+    public ArrayList<Ticket> replayJournal() throws IOException {
+        return fileManager.replayJournal(new ArrayList<>(), 0);
+    }
+}
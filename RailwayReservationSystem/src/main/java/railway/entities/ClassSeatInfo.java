@@ -1,109 +1,255 @@
 package railway.entities;
 
+import railway.exception.BookingConflictException;
 import railway.exception.InvalidInputException;
 import railway.model.Ticket;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.List;
 
+/**
+ * Seats, confirmed count and RAC/WL queues of one class. The ClassSeatInfo objects held by a
+ * {@link Train} are templates (capacity, fare, RAC/WL limits); each journey date books against
+ * its own copy (see railway.repository.JourneyInventory), which knows the train's stops and
+ * tracks seats per segment so one seat can carry several passengers over different legs.
+ */
 public class ClassSeatInfo {
     public int totalSeats;
-    public int availableSeats;
     public double baseFare;
-    public boolean[] seats;
+    public final SeatBitmap seats;       // taken on any segment; lock-free, source of the free-seat count
+    public final SegmentSeatMap segments; // taken per segment of the run
+    private final List<String> stops;    // the train's stops in order; empty for a template
 
-    // Reservation Queues for this class
-    public ArrayList<Ticket> confirmedTickets;
-    public LinkedList<Ticket> racQueue;
-    public LinkedList<Ticket> waitlistQueue;
+    // Reservation Queues for this class (queued tickets read their RAC/WL number from the queue).
+    // Confirmed tickets are only counted: the seat maps hold their seats and the ticket
+    // repository holds the tickets themselves.
+    private int confirmedCount;
+    public TicketQueue racQueue;
+    public TicketQueue waitlistQueue;
     public int maxRacSeats;
     public int maxWaitlist;
 
     public ClassSeatInfo(int totalSeats, double baseFare, int maxRacSeats, int maxWaitlist) {
+        this(totalSeats, baseFare, maxRacSeats, maxWaitlist, List.of());
+    }
+
+    public ClassSeatInfo(int totalSeats, double baseFare, int maxRacSeats, int maxWaitlist, List<String> stops) {
         this.totalSeats = totalSeats;
-        this.availableSeats = totalSeats;
         this.baseFare = baseFare;
-        this.seats = new boolean[totalSeats];
+        this.seats = new SeatBitmap(totalSeats);
+        this.stops = List.copyOf(stops);
+        this.segments = new SegmentSeatMap(seats, this.stops.size() - 1);
 
-        this.confirmedTickets = new ArrayList<>();
-        this.racQueue = new LinkedList<>();
-        this.waitlistQueue = new LinkedList<>();
+        this.racQueue = new TicketQueue();
+        this.waitlistQueue = new TicketQueue();
         this.maxRacSeats = maxRacSeats;
         this.maxWaitlist = maxWaitlist;
     }
 
+    /** An empty class with the same capacity, fare and RAC/WL limits (a fresh journey from this template). */
+    public ClassSeatInfo emptyCopy() {
+        return emptyCopy(stops);
+    }
+
+    /** An empty copy tracking seats over the segments between the given stops. */
+    public ClassSeatInfo emptyCopy(List<String> stops) {
+        return new ClassSeatInfo(totalSeats, baseFare, maxRacSeats, maxWaitlist, stops);
+    }
+
+    /** The stops this class tracks seats over; empty for a template. */
+    public List<String> getStops() { return stops; }
+
+    // ======= Segments =======
+    /**
+     * Segments [from, to) a ticket travels over. Blank stations mean the train's first or last
+     * stop; a station that is not a stop of this run (or a template without stops) gives the
+     * whole run.
+     */
+    public int[] segmentsOf(Ticket t) {
+        int last = segments.segments();
+        int from = stopIndex(t.getBoardingStation(), 0);
+        int to = stopIndex(t.getAlightingStation(), last);
+        return from < to ? new int[]{from, to} : new int[]{0, last};
+    }
+
+    private int stopIndex(String station, int fallback) {
+        if (station == null || station.isBlank()) return fallback;
+        for (int i = 0; i < stops.size(); i++) {
+            if (stops.get(i).equalsIgnoreCase(station.trim())) return i;
+        }
+        return fallback;
+    }
+
+    // ======= Train Updates =======
+    /**
+     * Hands this journey's bookings to a fresh class built from an updated template: seats
+     * (the target must track the same stops and still have every booked seat), the confirmed
+     * count and both queues in order. Call under the booking lock; this class is discarded after.
+     */
+    public void moveBookingsTo(ClassSeatInfo target) {
+        segments.copyTo(target.segments);
+        target.confirmedCount = confirmedCount;
+        confirmedCount = 0;
+        Ticket t;
+        while ((t = racQueue.poll()) != null) target.racQueue.add(t);
+        while ((t = waitlistQueue.poll()) != null) target.waitlistQueue.add(t);
+    }
+
     // ======= Seat Booking/Cancel =======
-    public boolean seatsAvailable() { return availableSeats > 0; }
+    /** Free seats, always in step with the seat bitmap. */
+    public int getAvailableSeats() { return seats.available(); }
+
+    /** Confirmed tickets of this class; changes only under the class's booking lock. */
+    public int getConfirmedCount() { return confirmedCount; }
+
+    public boolean seatsAvailable() { return seats.available() > 0; }
+    /** Whether any seat is taken or any ticket is queued. */
+    public boolean hasBookings() {
+        return seats.available() < totalSeats || !racQueue.isEmpty() || !waitlistQueue.isEmpty();
+    }
+    /** Whether some seat is free over segments [from, to). */
+    public boolean seatsAvailable(int from, int to) { return segments.countFree(from, to) > 0; }
     public boolean racAvailable() { return racQueue.size() < maxRacSeats; }
     public boolean waitlistAvailable() { return waitlistQueue.size() < maxWaitlist; }
 
+    /**
+     * Counts a newly booked ticket as confirmed or puts it on the queue matching the status the
+     * booking gave it (its seat is already claimed if it is CONFIRMED); a queued ticket takes the
+     * last RAC/WL place.
+     */
     public String assignTicket(Ticket t) {
-        if (seatsAvailable()) {
-            confirmedTickets.add(t);
-            return "CONFIRMED";
-        } else if (racAvailable()) {
+        if ("CONFIRMED".equalsIgnoreCase(t.getStatus())) {
+            confirmedCount++;
+        } else if ("RAC".equalsIgnoreCase(t.getStatus())) {
             racQueue.add(t);
-            t.setRacNumber(racQueue.size());
-            return "RAC";
-        } else if (waitlistAvailable()) {
+        } else if ("WAITLIST".equalsIgnoreCase(t.getStatus())) {
             waitlistQueue.add(t);
-            t.setWlNumber(waitlistQueue.size());
-            return "WAITLIST";
         } else {
             return "NOT_AVAILABLE";
         }
+        return t.getStatus();
     }
 
     public void bookSeat(int seatNum) throws InvalidInputException {
-        if (seatNum < 1 || seatNum > seats.length)
+        bookSeat(seatNum, 0, segments.segments());
+    }
+
+    /** Books the given seat over segments [from, to); throws if it is taken on any of them. */
+    public void bookSeat(int seatNum, int from, int to) throws InvalidInputException {
+        if (seatNum < 1 || seatNum > totalSeats)
             throw new InvalidInputException("Invalid seat number");
-        if (seats[seatNum - 1])
-            throw new InvalidInputException("That seat is already booked!");
-        seats[seatNum - 1] = true;
-        availableSeats--;
+        if (!segments.claimSpecific(seatNum, from, to))
+            throw new BookingConflictException("That seat is already booked!");
+    }
+
+    /** Books the lowest free seat and returns its number, or -1 if the class is full. */
+    public int bookAnySeat() {
+        return segments.claimAny(0, segments.segments());
+    }
+
+    /** Books the best-fitting seat free over [from, to) (see {@link SegmentSeatMap}), or returns -1. */
+    public int bookAnySeat(int from, int to) {
+        return segments.claimAny(from, to);
+    }
+
+    /** Books {@code count} adjacent seats and returns the first one, or -1 if no such run is free. */
+    public int bookContiguousSeats(int count) {
+        return segments.claimContiguous(count, 0, segments.segments());
+    }
+
+    public int bookContiguousSeats(int count, int from, int to) {
+        return segments.claimContiguous(count, from, to);
     }
 
     public void cancelSeat(int seatNum) throws InvalidInputException {
-        if (seatNum < 1 || seatNum > seats.length)
+        cancelSeat(seatNum, 0, segments.segments());
+    }
+
+    public void cancelSeat(int seatNum, int from, int to) throws InvalidInputException {
+        if (seatNum < 1 || seatNum > totalSeats)
             throw new InvalidInputException("Invalid seat number");
-        if (!seats[seatNum - 1])
+        if (!segments.release(seatNum, from, to))
             throw new InvalidInputException("That seat is not currently booked!");
-        seats[seatNum - 1] = false;
-        availableSeats++;
-    }
-
-    /** Promote ticket from RAC/waitlist to confirmed, called on seat cancellation or chart preparation. */
-    public void promoteTickets() {
-        if (!racQueue.isEmpty()) {
-            Ticket racTicket = racQueue.poll();
-            confirmedTickets.add(racTicket);
-            racTicket.setStatus("CONFIRMED");
-            if (!waitlistQueue.isEmpty() && racAvailable()) {
-                Ticket wlTicket = waitlistQueue.poll();
-                racQueue.add(wlTicket);
-                wlTicket.setStatus("RAC");
-                wlTicket.setRacNumber(racQueue.size());
+    }
+
+    /** Cancels a confirmed ticket of this class: frees its seat over its leg and uncounts it. */
+    public void cancelConfirmed(Ticket t) throws InvalidInputException {
+        int[] leg = segmentsOf(t);
+        cancelSeat(t.getSeatNum(), leg[0], leg[1]);
+        confirmedCount--;
+    }
+
+    /**
+     * Promote ticket from RAC/waitlist, called on cancellation or chart preparation: the first
+     * RAC ticket whose journey has a free seat takes it, and the head of the waitlist moves into
+     * any RAC place that opens, or straight to a free seat when RAC is empty. With a single
+     * segment "the first that fits" is simply the head of the queue.
+     * Returns the tickets whose status changed so the caller can journal them.
+     */
+    public ArrayList<Ticket> promoteTickets() {
+        ArrayList<Ticket> promoted = new ArrayList<>();
+        Ticket racTicket = confirmFirstFitting(racQueue);
+        if (racTicket != null) promoted.add(racTicket);
+        if (!waitlistQueue.isEmpty() && racAvailable() && !racQueue.isEmpty()) {
+            promoted.add(moveToRac(waitlistQueue.poll()));
+        } else if (!waitlistQueue.isEmpty() && racQueue.isEmpty()) {
+            Ticket wlTicket = confirmFirstFitting(waitlistQueue);
+            if (wlTicket != null) {
+                promoted.add(wlTicket);
+            } else if (racAvailable()) {
+                promoted.add(moveToRac(waitlistQueue.poll()));
             }
-        } else if (!waitlistQueue.isEmpty() && seatsAvailable()) {
-            Ticket wlTicket = waitlistQueue.poll();
-            confirmedTickets.add(wlTicket);
-            wlTicket.setStatus("CONFIRMED");
         }
+        return promoted;
     }
 
-    /** Chart Preparation: promote all RAC to confirmed, all WL to RAC if space */
-    public void chartPreparation() {
-        while (seatsAvailable() && !racQueue.isEmpty()) {
-            Ticket racTicket = racQueue.poll();
-            confirmedTickets.add(racTicket);
-            racTicket.setStatus("CONFIRMED");
+    /** Chart Preparation: promote RAC to confirmed wherever a seat is free for the journey, then WL to RAC if space */
+    public ArrayList<Ticket> chartPreparation() {
+        ArrayList<Ticket> promoted = new ArrayList<>();
+        for (Ticket racTicket : new ArrayList<>(racQueue)) {
+            int seat = claimFor(racTicket);
+            if (seat < 0) continue;
+            racQueue.remove(racTicket);
+            confirm(racTicket, seat);
+            promoted.add(racTicket);
         }
         while (racAvailable() && !waitlistQueue.isEmpty()) {
-            Ticket wlTicket = waitlistQueue.poll();
-            racQueue.add(wlTicket);
-            wlTicket.setStatus("RAC");
-            wlTicket.setRacNumber(racQueue.size());
+            promoted.add(moveToRac(waitlistQueue.poll()));
         }
         // All others on waitlist stay as-is
+        return promoted;
+    }
+
+    /** Confirms the first ticket of the queue that a free seat fits, or returns null. */
+    private Ticket confirmFirstFitting(TicketQueue queue) {
+        for (Ticket t : queue) {
+            int seat = claimFor(t);
+            if (seat < 0) continue;
+            queue.remove(t);
+            confirm(t, seat);
+            return t;
+        }
+        return null;
+    }
+
+    private int claimFor(Ticket t) {
+        int[] range = segmentsOf(t);
+        return segments.claimAny(range[0], range[1]);
+    }
+
+    /** Gives a promoted ticket the seat claimed for it. */
+    private void confirm(Ticket t, int seatNum) {
+        t.setSeatNum(seatNum);
+        t.setStatus("CONFIRMED");
+        t.setRacNumber(0);
+        t.setWlNumber(0);
+        confirmedCount++;
+    }
+
+    private Ticket moveToRac(Ticket t) {
+        t.setStatus("RAC");
+        t.setWlNumber(0);
+        racQueue.add(t);
+        return t;
     }
 }
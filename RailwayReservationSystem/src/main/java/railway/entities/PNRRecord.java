@@ -1,5 +1,7 @@
 package railway.entities;
 
+import railway.model.Ticket;
+
 /**
  * PNRRecord stores all necessary info about a reservation for PNR status checks,
  * including current status (Confirmed/RAC/WL), coach/class, position in queue, and arrival history reference.
@@ -40,6 +42,25 @@ public class PNRRecord {
         this.chartPrepared = chartPrepared;
     }
 
+    /** The record of a freshly booked ticket: booked, its current status and seat, chart not prepared. */
+    public static PNRRecord forTicket(Ticket ticket) {
+        return new PNRRecord(
+                ticket.getPnrNumber(),
+                ticket.getTrainNumber(),
+                ticket.getUserId(),
+                ticket.getPassengerName(),
+                ticket.getTicketClass(), // Using Class as "Coach" (e.g. AC1) for now
+                String.valueOf(ticket.getSeatNum()),
+                ticket.getJourneyDate(),
+                ticket.getTicketClass(),
+                "BOOKED",
+                ticket.getStatus(),
+                ticket.getRacNumber(),
+                ticket.getWlNumber(),
+                false // Chart not prepared yet
+        );
+    }
+
     // ======= Getters and Setters =======
     public String getPnrNumber() { return pnrNumber; }
     public String getTrainNumber() { return trainNumber; }
@@ -0,0 +1,194 @@
+package railway.entities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free seat allocator: one bit per seat (set = booked) in an AtomicLongArray.
+ * Claims and releases are compare-and-set on the 64-seat word, and the free-seat counter
+ * only moves after a successful CAS, so it always matches the bitmap once calls return.
+ * Seat numbers are 1-based, as everywhere else in the booking code.
+ */
+public class SeatBitmap {
+    private final int totalSeats;
+    private final AtomicLongArray words;
+    private final AtomicInteger available;
+
+    public SeatBitmap(int totalSeats) {
+        this.totalSeats = totalSeats;
+        this.words = new AtomicLongArray((totalSeats + 63) / 64);
+        this.available = new AtomicInteger(totalSeats);
+    }
+
+    public int size() { return totalSeats; }
+    public int available() { return available.get(); }
+
+    /** Highest booked seat number, or 0 if every seat is free. */
+    public int highestBooked() {
+        for (int w = words.length() - 1; w >= 0; w--) {
+            long word = words.get(w);
+            if (word != 0) return w * 64 + 64 - Long.numberOfLeadingZeros(word);
+        }
+        return 0;
+    }
+
+    public boolean isBooked(int seatNum) {
+        checkSeat(seatNum);
+        int i = seatNum - 1;
+        return (words.get(i >>> 6) & (1L << (i & 63))) != 0;
+    }
+
+    // ======= Claim / Release =======
+    /** Claims the given seat; false if it was already booked. */
+    public boolean claimSpecific(int seatNum) {
+        checkSeat(seatNum);
+        int i = seatNum - 1;
+        long bit = 1L << (i & 63);
+        while (true) {
+            long word = words.get(i >>> 6);
+            if ((word & bit) != 0) return false;
+            if (words.compareAndSet(i >>> 6, word, word | bit)) {
+                available.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /** Claims the lowest free seat and returns its number, or -1 if the class is full. */
+    public int claimAny() {
+        for (int w = 0; w < words.length(); w++) {
+            while (true) {
+                long word = words.get(w);
+                long free = ~word & validMask(w);
+                if (free == 0) break; // word full, try the next one
+                long bit = Long.lowestOneBit(free);
+                if (words.compareAndSet(w, word, word | bit)) {
+                    available.decrementAndGet();
+                    return w * 64 + Long.numberOfTrailingZeros(bit) + 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claims {@code count} adjacent seats and returns the first seat number, or -1 if no such
+     * run is free. A run inside one word is claimed with a single CAS; a run that crosses words
+     * is claimed word by word and rolled back if another thread wins any part of it.
+     */
+    public int claimContiguous(int count) {
+        if (count <= 0 || count > totalSeats) return -1;
+        int start = 0;
+        while (start + count <= totalSeats) {
+            int run = freeRunAt(start, count);
+            if (run < count) {
+                start += run + 1; // skip past the booked seat that ended the run
+                continue;
+            }
+            if (claimRange(start, count)) {
+                available.addAndGet(-count);
+                return start + 1;
+            }
+            // Lost a race on part of the range; rescan from the same place
+        }
+        return -1;
+    }
+
+    /** Frees a seat; false if it was not booked. */
+    public boolean release(int seatNum) {
+        checkSeat(seatNum);
+        int i = seatNum - 1;
+        long bit = 1L << (i & 63);
+        while (true) {
+            long word = words.get(i >>> 6);
+            if ((word & bit) == 0) return false;
+            if (words.compareAndSet(i >>> 6, word, word & ~bit)) {
+                available.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // ======= Bulk state (loading and persistence) =======
+    /** Copy of the raw words, bit {@code i % 64} of word {@code i / 64} being seat {@code i + 1}. */
+    public long[] toWords() {
+        long[] copy = new long[words.length()];
+        for (int w = 0; w < copy.length; w++) copy[w] = words.get(w);
+        return copy;
+    }
+
+    /** Replaces the whole bitmap (bits past the last seat are ignored) and recounts free seats. */
+    public void loadWords(long[] source) {
+        int booked = 0;
+        for (int w = 0; w < words.length(); w++) {
+            long word = w < source.length ? source[w] & validMask(w) : 0;
+            words.set(w, word);
+            booked += Long.bitCount(word);
+        }
+        available.set(totalSeats - booked);
+    }
+
+    /** Raw word {@code w} (seats {@code 64w + 1} to {@code 64w + 64}), for word-at-a-time scans. */
+    long word(int w) {
+        return words.get(w);
+    }
+
+    // ======= Internals =======
+    /** Number of free seats in a row starting at 0-based {@code start}, looking at most {@code limit} seats. */
+    private int freeRunAt(int start, int limit) {
+        int n = 0;
+        while (n < limit && start + n < totalSeats) {
+            int i = start + n;
+            if ((words.get(i >>> 6) & (1L << (i & 63))) != 0) return n;
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Sets bits [start, start + count) if all are clear; undoes its own partial work on failure.
+     * Does not touch the free-seat counter. Package-private so tests can drive the rollback.
+     */
+    boolean claimRange(int start, int count) {
+        int end = start + count; // exclusive, 0-based
+        int firstWord = start >>> 6;
+        int lastWord = (end - 1) >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = rangeMask(w, start, end);
+            while (true) {
+                long word = words.get(w);
+                if ((word & mask) != 0) {
+                    for (int u = firstWord; u < w; u++) clearBits(u, rangeMask(u, start, end));
+                    return false;
+                }
+                if (words.compareAndSet(w, word, word | mask)) break;
+            }
+        }
+        return true;
+    }
+
+    private void clearBits(int w, long mask) {
+        while (true) {
+            long word = words.get(w);
+            if (words.compareAndSet(w, word, word & ~mask)) return;
+        }
+    }
+
+    /** Bits of word {@code w} that fall inside the 0-based seat range [start, end). */
+    private static long rangeMask(int w, int start, int end) {
+        int lo = Math.max(start, w * 64) - w * 64;
+        int hi = Math.min(end, w * 64 + 64) - w * 64; // exclusive
+        long upTo = hi == 64 ? -1L : (1L << hi) - 1;
+        return upTo & (-1L << lo);
+    }
+
+    /** Bits of word {@code w} that correspond to real seats (the last word may be partial). */
+    private long validMask(int w) {
+        int seatsInWord = Math.min(64, totalSeats - w * 64);
+        return seatsInWord == 64 ? -1L : (1L << seatsInWord) - 1;
+    }
+
+    private void checkSeat(int seatNum) {
+        if (seatNum < 1 || seatNum > totalSeats) throw new IndexOutOfBoundsException("seat " + seatNum);
+    }
+}
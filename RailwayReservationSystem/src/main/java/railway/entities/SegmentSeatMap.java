@@ -0,0 +1,181 @@
+package railway.entities;
+
+/**
+ * Seat occupancy per segment of a train's run, segment {@code s} being the stretch from stop
+ * {@code s} to stop {@code s + 1}, so a seat sold for the first two stops can be sold again
+ * for the rest of the run.
+ *
+ * Each segment has a bitmap over the seats (set = taken on that segment). The seats free on
+ * [from, to) are the complement of the OR of those segments' words, 64 seats at a time, so a
+ * query costs (to - from) x seats/64 word operations instead of a walk over every seat and
+ * segment. The class's {@link SeatBitmap} is kept as the union (taken on any segment): it
+ * still drives seat maps and the free-seat count, which therefore counts seats free for the
+ * whole run, and whole-run bookings go straight to it.
+ *
+ * Allocation is best fit: among the seats free on [from, to) it takes one whose neighbouring
+ * segments are already taken (the journey fills a gap exactly), else one already sold for some
+ * other part of the run, and only then an untouched seat, so whole-run seats are kept for
+ * whole-run passengers.
+ *
+ * With a single segment every call goes to the lock-free union. With more, a change touches
+ * several words that are not updated atomically together, so changes must be made under the
+ * class's booking lock (as BookingEngine does).
+ */
+public class SegmentSeatMap {
+    private final SeatBitmap union;
+    private final int totalSeats;
+    private final int segments;
+    private final long[][] taken; // [segment][word]; null with a single segment
+
+    public SegmentSeatMap(SeatBitmap union, int segments) {
+        this.union = union;
+        this.totalSeats = union.size();
+        this.segments = Math.max(1, segments);
+        this.taken = this.segments == 1 ? null : new long[this.segments][(totalSeats + 63) / 64];
+    }
+
+    public int segments() { return segments; }
+
+    // ======= Queries =======
+    public boolean isFree(int seatNum, int from, int to) {
+        checkRange(from, to);
+        if (taken == null || wholeRun(from, to)) return !union.isBooked(seatNum);
+        int i = seatNum - 1;
+        long bit = 1L << (i & 63);
+        for (int s = from; s < to; s++) {
+            if ((taken[s][i >>> 6] & bit) != 0) return false;
+        }
+        return true;
+    }
+
+    /** Seats free on every segment of [from, to). */
+    public int countFree(int from, int to) {
+        checkRange(from, to);
+        if (taken == null || wholeRun(from, to)) return union.available();
+        int free = 0;
+        for (int w = 0; w < taken[0].length; w++) free += Long.bitCount(freeWord(w, from, to));
+        return free;
+    }
+
+    // ======= Claim / Release =======
+    /** Claims the seat on [from, to); false if it is taken on any of those segments. */
+    public boolean claimSpecific(int seatNum, int from, int to) {
+        checkRange(from, to);
+        if (taken == null) return union.claimSpecific(seatNum);
+        if (!isFree(seatNum, from, to)) return false;
+        mark(seatNum, from, to);
+        return true;
+    }
+
+    /** Claims the best-fitting seat free on [from, to) and returns its number, or -1 if there is none. */
+    public int claimAny(int from, int to) {
+        checkRange(from, to);
+        if (taken == null) return union.claimAny();
+        if (wholeRun(from, to)) {
+            int seat = union.claimAny();
+            if (seat > 0) mark(seat, from, to);
+            return seat;
+        }
+        int snugSeat = -1, usedSeat = -1, anySeat = -1;
+        for (int w = 0; w < taken[0].length; w++) {
+            long free = freeWord(w, from, to);
+            if (free == 0) continue;
+            long snug = free & (from == 0 ? -1L : taken[from - 1][w]) & (to == segments ? -1L : taken[to][w]);
+            if (snug != 0) {
+                snugSeat = seatOf(w, snug);
+                break;
+            }
+            long used = free & union.word(w);
+            if (usedSeat < 0 && used != 0) usedSeat = seatOf(w, used);
+            if (anySeat < 0) anySeat = seatOf(w, free);
+        }
+        int seat = snugSeat > 0 ? snugSeat : usedSeat > 0 ? usedSeat : anySeat;
+        if (seat > 0) mark(seat, from, to);
+        return seat;
+    }
+
+    /** Claims {@code count} adjacent seats free on [from, to) and returns the first, or -1 if no such run exists. */
+    public int claimContiguous(int count, int from, int to) {
+        checkRange(from, to);
+        if (taken == null) return union.claimContiguous(count);
+        if (wholeRun(from, to)) {
+            int first = union.claimContiguous(count);
+            for (int i = 0; first > 0 && i < count; i++) mark(first + i, from, to);
+            return first;
+        }
+        if (count <= 0 || count > totalSeats) return -1;
+        int run = 0;
+        for (int seat = 1; seat <= totalSeats; seat++) {
+            run = isFree(seat, from, to) ? run + 1 : 0;
+            if (run == count) {
+                int first = seat - count + 1;
+                for (int i = 0; i < count; i++) mark(first + i, from, to);
+                return first;
+            }
+        }
+        return -1;
+    }
+
+    /** Frees the seat on [from, to); false if it was not taken on all of those segments. */
+    public boolean release(int seatNum, int from, int to) {
+        checkRange(from, to);
+        if (taken == null) return union.release(seatNum);
+        if (!union.isBooked(seatNum)) return false;
+        int i = seatNum - 1;
+        int w = i >>> 6;
+        long bit = 1L << (i & 63);
+        for (int s = from; s < to; s++) {
+            if ((taken[s][w] & bit) == 0) return false;
+        }
+        boolean stillTaken = false;
+        for (int s = 0; s < segments; s++) {
+            if (s >= from && s < to) taken[s][w] &= ~bit;
+            else if ((taken[s][w] & bit) != 0) stillTaken = true;
+        }
+        if (!stillTaken) union.release(seatNum);
+        return true;
+    }
+
+    /**
+     * Copies this map's occupancy into an empty map over the same segments, which may have more
+     * seats (or fewer, as long as none of the missing seats is taken). Under the booking lock.
+     */
+    void copyTo(SegmentSeatMap target) {
+        if (target.segments != segments) throw new IllegalArgumentException("segment counts differ");
+        target.union.loadWords(union.toWords());
+        if (taken == null) return;
+        for (int s = 0; s < segments; s++) {
+            System.arraycopy(taken[s], 0, target.taken[s], 0, Math.min(taken[s].length, target.taken[s].length));
+        }
+    }
+
+    // ======= Internals =======
+    private boolean wholeRun(int from, int to) {
+        return from == 0 && to == segments;
+    }
+
+    private void mark(int seatNum, int from, int to) {
+        int i = seatNum - 1;
+        for (int s = from; s < to; s++) taken[s][i >>> 6] |= 1L << (i & 63);
+        union.claimSpecific(seatNum); // no-op if already taken on another segment
+    }
+
+    /** Seats of word {@code w} that are free on every segment of [from, to). */
+    private long freeWord(int w, int from, int to) {
+        long used = 0;
+        for (int s = from; s < to; s++) used |= taken[s][w];
+        int seatsInWord = Math.min(64, totalSeats - w * 64);
+        long valid = seatsInWord == 64 ? -1L : (1L << seatsInWord) - 1;
+        return ~used & valid;
+    }
+
+    private static int seatOf(int w, long bits) {
+        return w * 64 + Long.numberOfTrailingZeros(bits) + 1;
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > segments || from >= to) {
+            throw new IndexOutOfBoundsException("segments [" + from + ", " + to + ") of " + segments);
+        }
+    }
+}
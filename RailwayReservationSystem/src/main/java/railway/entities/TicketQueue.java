@@ -0,0 +1,183 @@
+package railway.entities;
+
+import railway.model.Ticket;
+
+import java.util.AbstractQueue;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * FIFO queue of RAC or waitlisted tickets with cheap removal from the middle and live positions.
+ *
+ * Tickets sit in an array in arrival order; a removed ticket leaves an empty slot behind and the
+ * head skips over empty slots. A Fenwick tree over the slots (1 = occupied) turns "how many
+ * tickets are ahead of me" into an O(log n) prefix sum, and a map from PNR to slot makes removal
+ * by ticket or PNR O(log n). When the array fills up it is compacted (or grown) in one O(n) pass,
+ * so every operation is amortised O(log n).
+ *
+ * A queued ticket asks the queue for its RAC/WL number, so cancellations ahead of it show up in
+ * its display status without rewriting the tickets behind. On leaving the queue the ticket keeps
+ * the last position it had. Methods are synchronized so status reads from other threads are
+ * safe; iteration is not and belongs under the class's booking lock, like every mutation.
+ */
+public class TicketQueue extends AbstractQueue<Ticket> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Ticket[] slots = new Ticket[INITIAL_CAPACITY];
+    private int[] tree = new int[INITIAL_CAPACITY + 1]; // Fenwick tree, 1-based
+    private final HashMap<String, Integer> slotOf = new HashMap<>();
+    private int head;   // no occupied slot before this one
+    private int tail;   // next slot to fill
+    private int size;
+
+    // ======= Queue =======
+    @Override
+    public synchronized boolean offer(Ticket t) {
+        Integer old = slotOf.get(t.getPnrNumber());
+        if (old != null) removeAt(old);
+        if (tail == slots.length) rebuild(size * 2 > slots.length ? slots.length * 2 : slots.length);
+        slots[tail] = t;
+        slotOf.put(t.getPnrNumber(), tail);
+        addToTree(tail, 1);
+        tail++;
+        size++;
+        t.joinQueue(this::positionOf);
+        return true;
+    }
+
+    @Override
+    public synchronized Ticket poll() {
+        skipEmptyHead();
+        if (head == tail) return null;
+        Ticket t = slots[head];
+        removeAt(head);
+        return t;
+    }
+
+    @Override
+    public synchronized Ticket peek() {
+        skipEmptyHead();
+        return head == tail ? null : slots[head];
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Removes this ticket object if it is queued here. */
+    @Override
+    public synchronized boolean remove(Object o) {
+        if (!(o instanceof Ticket t)) return false;
+        Integer slot = slotOf.get(t.getPnrNumber());
+        if (slot == null || slots[slot] != t) return false;
+        removeAt(slot);
+        return true;
+    }
+
+    /** Removes the ticket with this PNR; returns it, or null if it is not queued here. */
+    public synchronized Ticket removeByPnr(String pnrNumber) {
+        Integer slot = slotOf.get(pnrNumber);
+        if (slot == null) return null;
+        Ticket t = slots[slot];
+        removeAt(slot);
+        return t;
+    }
+
+    @Override
+    public synchronized boolean contains(Object o) {
+        if (!(o instanceof Ticket t)) return false;
+        Integer slot = slotOf.get(t.getPnrNumber());
+        return slot != null && slots[slot] == t;
+    }
+
+    /** 1-based place of the ticket in the queue, or 0 if it is not queued here. */
+    public synchronized int positionOf(Ticket t) {
+        Integer slot = slotOf.get(t.getPnrNumber());
+        if (slot == null || slots[slot] != t) return 0;
+        return prefixSum(slot);
+    }
+
+    @Override
+    public synchronized void clear() {
+        while (poll() != null) {
+            // each ticket keeps its last position
+        }
+        head = tail = 0;
+    }
+
+    /** Tickets from the head of the queue to the tail; not safe against concurrent changes. */
+    @Override
+    public Iterator<Ticket> iterator() {
+        return new Iterator<>() {
+            private int next = advance(head);
+
+            private int advance(int i) {
+                while (i < tail && slots[i] == null) i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < tail;
+            }
+
+            @Override
+            public Ticket next() {
+                if (next >= tail) throw new NoSuchElementException();
+                Ticket t = slots[next];
+                next = advance(next + 1);
+                return t;
+            }
+        };
+    }
+
+    // ======= Slots =======
+    private void removeAt(int slot) {
+        Ticket t = slots[slot];
+        t.leaveQueue(); // freezes its number while the tree still counts it
+        addToTree(slot, -1);
+        slots[slot] = null;
+        slotOf.remove(t.getPnrNumber());
+        size--;
+        skipEmptyHead();
+    }
+
+    private void skipEmptyHead() {
+        while (head < tail && slots[head] == null) head++;
+    }
+
+    /** Packs the queued tickets to the front of an array of the given capacity and rebuilds the tree. */
+    private void rebuild(int capacity) {
+        Ticket[] packed = new Ticket[capacity];
+        int n = 0;
+        for (int i = head; i < tail; i++) {
+            if (slots[i] != null) packed[n++] = slots[i];
+        }
+        slots = packed;
+        tree = new int[capacity + 1];
+        slotOf.clear();
+        for (int i = 0; i < n; i++) slotOf.put(packed[i].getPnrNumber(), i);
+        // Linear-time Fenwick build: each node passes its finished sum on to its parent
+        for (int node = 1; node <= capacity; node++) {
+            if (node <= n) tree[node] += 1;
+            int parent = node + (node & -node);
+            if (parent <= capacity) tree[parent] += tree[node];
+        }
+        head = 0;
+        tail = n;
+    }
+
+    // ======= Fenwick Tree =======
+    private void addToTree(int slot, int delta) {
+        for (int node = slot + 1; node < tree.length; node += node & -node) tree[node] += delta;
+    }
+
+    /** Occupied slots from 0 through {@code slot}, inclusive. */
+    private int prefixSum(int slot) {
+        int sum = 0;
+        for (int node = slot + 1; node > 0; node -= node & -node) sum += tree[node];
+        return sum;
+    }
+}
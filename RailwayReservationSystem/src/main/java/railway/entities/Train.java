@@ -3,8 +3,10 @@ package railway.entities;
 import railway.exception.InvalidInputException;
 import railway.model.Ticket;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import railway.entities.ClassSeatInfo;
 
 
@@ -16,17 +18,26 @@ public class Train {
     private String trainName;
     private String source;
     private String destination;
+    // Stops in running order, source first and destination last; segment i runs from stop i to stop i + 1
+    private ArrayList<String> stops;
 
     // Each class type (e.g., "AC1", "AC2", "AC3", "Sleeper", "General")
     private HashMap<String, ClassSeatInfo> seatClasses;
 
 
     public Train(String trainNumber, String trainName, String source, String destination, HashMap<String, ClassSeatInfo> seatClasses) {
+        this(trainNumber, trainName, source, destination, seatClasses, null);
+    }
+
+    /** {@code stops} lists the whole run including source and destination; null or too short means no intermediate stops. */
+    public Train(String trainNumber, String trainName, String source, String destination,
+                 HashMap<String, ClassSeatInfo> seatClasses, List<String> stops) {
         this.trainNumber = trainNumber;
         this.trainName = trainName;
         this.source = source;
         this.destination = destination;
         this.seatClasses = seatClasses;
+        setStops(stops);
     }
 
     // ============ Basic Info Getters/Setters ============
@@ -35,32 +46,87 @@ public class Train {
     public String getTrainName() { return trainName; }
     public void setTrainName(String trainName) { this.trainName = trainName; }
     public String getSource() { return source; }
-    public void setSource(String source) { this.source = source; }
+    public void setSource(String source) {
+        this.source = source;
+        stops.set(0, source);
+    }
     public String getDestination() { return destination; }
-    public void setDestination(String destination) { this.destination = destination; }
+    public void setDestination(String destination) {
+        this.destination = destination;
+        stops.set(stops.size() - 1, destination);
+    }
     public HashMap<String, ClassSeatInfo> getSeatClasses() { return seatClasses; }
     public void setSeatClasses(HashMap<String, ClassSeatInfo> seatClasses) { this.seatClasses = seatClasses; }
 
+    // ============ Stops and Segments ============
+    public List<String> getStops() { return Collections.unmodifiableList(stops); }
+
+    /** Replaces the stop list; its first and last entries become the source and destination. */
+    public void setStops(List<String> stops) {
+        this.stops = new ArrayList<>();
+        if (stops == null || stops.size() < 2) {
+            this.stops.add(source);
+            this.stops.add(destination);
+        } else {
+            for (String stop : stops) this.stops.add(stop.trim());
+            this.source = this.stops.get(0);
+            this.destination = this.stops.get(this.stops.size() - 1);
+        }
+    }
+
+    public int getSegmentCount() { return stops.size() - 1; }
+
+    /** Position of a station in the stop list (case-insensitive), or -1 if the train does not stop there. */
+    public int stopIndex(String station) {
+        if (station == null) return -1;
+        for (int i = 0; i < stops.size(); i++) {
+            if (stops.get(i).equalsIgnoreCase(station.trim())) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Segments [from, to) of a journey between two stops; a blank boarding station means the
+     * source and a blank alighting station the destination.
+     */
+    public int[] segmentRange(String boarding, String alighting) throws InvalidInputException {
+        int from = boarding == null || boarding.isBlank() ? 0 : stopIndex(boarding);
+        int to = alighting == null || alighting.isBlank() ? getSegmentCount() : stopIndex(alighting);
+        if (from < 0) throw new InvalidInputException("Train " + trainNumber + " does not stop at " + boarding + ".");
+        if (to < 0) throw new InvalidInputException("Train " + trainNumber + " does not stop at " + alighting + ".");
+        if (from >= to) throw new InvalidInputException("The boarding station must come before the destination.");
+        return new int[]{from, to};
+    }
+
     /** Get all valid class names for selection by user */
     public ArrayList<String> getAvailableClasses() {
         return new ArrayList<>(seatClasses.keySet());
     }
 
     // ============ Multi-Class Seat Map ============
-    public void printSeatMap(String classType) {
-        if (!seatClasses.containsKey(classType)) {
+    /** Prints the seats of one journey; {@code info} is that date's class from the journey inventory. */
+    public void printSeatMap(String classType, String journeyDate, ClassSeatInfo info) {
+        if (info == null) {
             System.out.println("Class " + classType + " not available for this train.");
             return;
         }
-        ClassSeatInfo info = seatClasses.get(classType);
-        System.out.println("**** Seat Map for Train " + trainNumber + " (" + classType + ") ****");
-        boolean[] seats = info.seats;
-        for (int i = 0; i < seats.length; i++) {
-            System.out.print(seats[i] ? "[" + classType.charAt(0) + "X]" : "[" + classType.charAt(0) + "O]");
+        System.out.println("**** Seat Map for Train " + trainNumber + " (" + classType + ") on " + journeyDate + " ****");
+        int segments = info.segments.segments();
+        for (int i = 0; i < info.totalSeats; i++) {
+            char mark = 'O';
+            if (info.seats.isBooked(i + 1)) {
+                mark = 'X';
+                // '-' = sold for part of the run only, still free on some segment
+                for (int s = 0; s < segments && mark == 'X'; s++) {
+                    if (segments > 1 && info.segments.isFree(i + 1, s, s + 1)) mark = '-';
+                }
+            }
+            System.out.print("[" + classType.charAt(0) + mark + "]");
             // Newline after every 10 seats for readability
             if ((i + 1) % 10 == 0) System.out.println();
         }
         System.out.println();
+        if (segments > 1) System.out.println("(O = free, - = sold for part of the run, X = sold on every stretch)");
     }
 
     // ============ Example: Find base fare for a class ============
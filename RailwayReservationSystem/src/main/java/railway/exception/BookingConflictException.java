@@ -0,0 +1,15 @@
+package railway.exception;
+
+/**
+ * A well-formed booking that the current inventory cannot satisfy: the requested seat
+ * is already taken, or the class has no seat, RAC or waitlist place left for it.
+ *
+ * Callers that only care about "refused" can keep catching {@link InvalidInputException};
+ * the server uses this type to answer 409 Conflict instead of 400 Bad Request.
+ */
+public class BookingConflictException extends InvalidInputException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package railway.main;
+
+import railway.repository.DataStore;
+import railway.service.ChartPreparationService;
+import railway.service.PNRService;
+import railway.service.ReservationSystem;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * CHART RUNNER:
+ * Headless chart preparation for the whole fleet, for the nightly job. Loads the data directory,
+ * runs {@link ChartPreparationService#prepareAllCharts(LocalDate, int)} for one journey date and
+ * shuts the store down cleanly. Do not run it against a data directory a live server is using.
+ *
+ * Usage: ChartRunner [dataDir] [journeyDate] [parallelism]   (defaults: data, today, available processors)
+ */
+public class ChartRunner {
+
+    public static void main(String[] args) {
+        FileManager fileManager = new FileManager(args.length > 0 ? args[0] : "data");
+        LocalDate journeyDate = args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.now();
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        DataStore store;
+        try {
+            store = DataStore.load(fileManager);
+        } catch (IOException e) {
+            System.out.println("Fatal: could not load data files: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        int status = 0;
+        try {
+            PNRService pnrService = new PNRService(store.pnrs(), store.pnrIndex(), store.tickets());
+            ReservationSystem reservations = new ReservationSystem(store, pnrService);
+            ChartPreparationService charts = new ChartPreparationService(store, reservations.getEngine(), pnrService);
+            System.out.println(charts.prepareAllCharts(journeyDate, parallelism));
+        } catch (IOException e) {
+            System.out.println("Chart preparation failed: " + e.getMessage());
+            status = 1;
+        } finally {
+            try {
+                store.shutdown();
+            } catch (IOException e) {
+                System.out.println("Warning: could not save all changes: " + e.getMessage());
+                status = 1;
+            }
+        }
+        System.exit(status);
+    }
+}
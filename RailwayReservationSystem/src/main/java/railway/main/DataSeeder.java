@@ -6,14 +6,18 @@ import railway.entities.ClassSeatInfo;
 import railway.entities.PNRRecord;
 import railway.entities.Train;
 import railway.model.ACClassTicket;
+import railway.model.PNRGenerator;
 import railway.model.SleeperClassTicket;
 import railway.model.Ticket;
+import railway.repository.JourneyInventory;
 import railway.storage.FileManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Random;
 
 /**
@@ -45,6 +49,12 @@ public class DataSeeder {
             new File("data/users.xlsx").delete();
             new File("data/reservations.xlsx").delete();
             new File("data/pnr_records.xlsx").delete();
+            new File("data/checkpoint.bin").delete();
+            new File("data/seat_inventory.bin").delete();
+            new File("data/pnr_records.dat").delete();
+            new File("data/pnr_index.bin").delete();
+            File[] journals = directory.listFiles((dir, name) -> name.endsWith(".journal"));
+            if (journals != null) for (File f : journals) f.delete();
 
             // 2. Seed Base Data
             seedAdmins(fileManager);
@@ -53,6 +63,7 @@ public class DataSeeder {
 
             // 3. Seed Reservations (The new part)
             seedReservations(fileManager, trains, users);
+            fileManager.close();
 
             System.out.println("\nSUCCESS! Database populated with:");
             System.out.println("- 2 Admins & " + users.size() + " Customers");
@@ -88,20 +99,34 @@ public class DataSeeder {
     }
 
     private static ArrayList<Train> seedTrains(FileManager fm) throws IOException {
+        ArrayList<Train> trains = generateFleet(200, new Random());
+        // Note: We DON'T save trains yet, we wait until seats are booked in seedReservations
+        System.out.println(".");
+        return trains;
+    }
+
+    /**
+     * Builds a fleet of {@code size} trains with empty seat maps: non-stop Rajdhani pairs to and
+     * from New Delhi first, then random Express/Shatabdi/Garib Rath/Passenger trains between
+     * cities, each with a few intermediate stops.
+     * Shared with the load generator so its fleets look like seeded data.
+     */
+    public static ArrayList<Train> generateFleet(int size, Random rand) {
         ArrayList<Train> trains = new ArrayList<>();
-        Random rand = new Random();
+        HashSet<String> numbers = new HashSet<>();
         int trainCount = 0;
 
         // A. Special Trains
-        for (int i = 1; i < CITIES.length && trainCount < 50; i++) {
+        for (int i = 1; i < CITIES.length && trainCount < Math.min(50, size); i++) {
             trains.add(createTrain("12" + String.format("%03d", trainCount), CITIES[i] + " Rajdhani", CITIES[i], "New Delhi", "RAJDHANI"));
             trainCount++;
             trains.add(createTrain("22" + String.format("%03d", trainCount), CITIES[i] + " Rajdhani", "New Delhi", CITIES[i], "RAJDHANI"));
             trainCount++;
         }
+        for (Train t : trains) numbers.add(t.getTrainNumber());
 
         // B. Express Trains
-        while (trainCount < 200) {
+        while (trainCount < size) {
             String source = CITIES[rand.nextInt(CITIES.length)];
             String dest = CITIES[rand.nextInt(CITIES.length)];
             if (source.equals(dest)) continue;
@@ -114,22 +139,40 @@ public class DataSeeder {
             else type = "GENERAL";
 
             String tNum = (1 + rand.nextInt(9)) + "" + String.format("%04d", rand.nextInt(9999));
+            if (!numbers.add(tNum)) continue; // train numbers are keys
             String tName = source + " - " + dest + " " + (type.equals("GENERAL") ? "Passenger" : type);
             tName = tName.replace("SHATABDI", "Shatabdi Exp").replace("GARIB_RATH", "Garib Rath").replace("EXPRESS", "Superfast Exp");
 
-            trains.add(createTrain(tNum, tName, source, dest, type));
+            Train train = createTrain(tNum, tName, source, dest, type);
+            train.setStops(randomStops(source, dest, type.equals("GENERAL") ? 6 : 3, rand));
+            trains.add(train);
             trainCount++;
         }
-        // Note: We DON'T save trains yet, we wait until seats are booked in seedReservations
-        System.out.println(".");
         return trains;
     }
 
+    /** Source, 1 to {@code maxIntermediate} other cities, destination. */
+    private static ArrayList<String> randomStops(String source, String dest, int maxIntermediate, Random rand) {
+        ArrayList<String> stops = new ArrayList<>();
+        stops.add(source);
+        int intermediate = 1 + rand.nextInt(maxIntermediate);
+        while (stops.size() <= intermediate) {
+            String city = CITIES[rand.nextInt(CITIES.length)];
+            if (!city.equals(dest) && !stops.contains(city)) stops.add(city);
+        }
+        stops.add(dest);
+        return stops;
+    }
+
     // ====== NEW: GENERATE RESERVATIONS ======
     private static void seedReservations(FileManager fm, ArrayList<Train> trains, ArrayList<Customer> users) throws IOException {
         ArrayList<Ticket> tickets = new ArrayList<>();
         ArrayList<PNRRecord> pnrRecords = new ArrayList<>();
         Random rand = new Random();
+        PNRGenerator pnrGenerator = new PNRGenerator(fm.getNodeLease().getNodeId());
+        // Seats per (train, journey date, class); the trains themselves stay empty templates
+        JourneyInventory journeys = new JourneyInventory();
+        LocalDate today = LocalDate.now();
 
         System.out.print("Booking Tickets");
 
@@ -143,24 +186,17 @@ public class DataSeeder {
             if (classes.isEmpty()) continue;
             String ticketClass = classes.get(rand.nextInt(classes.size()));
 
-            ClassSeatInfo seatInfo = train.getSeatClasses().get(ticketClass);
+            LocalDate journeyDate = today.plusDays(1 + rand.nextInt(30));
+            ClassSeatInfo seatInfo = journeys.classFor(train, journeyDate, ticketClass);
 
             // Only book if seats are available (simplifying to avoid complex RAC logic here)
-            if (seatInfo.availableSeats > 0) {
-                // Find first empty seat
-                int seatNum = -1;
-                for(int s=0; s < seatInfo.seats.length; s++) {
-                    if(!seatInfo.seats[s]) {
-                        seatInfo.seats[s] = true; // Mark occupied
-                        seatNum = s + 1;
-                        seatInfo.availableSeats--;
-                        break;
-                    }
-                }
+            if (seatInfo != null && seatInfo.seatsAvailable()) {
+                // Take the first empty seat
+                int seatNum = seatInfo.bookAnySeat();
 
                 if (seatNum != -1) {
                     // Create Ticket
-                    String pnr = "PNR" + System.currentTimeMillis() + i;
+                    String pnr = pnrGenerator.next();
                     Ticket t;
                     if(ticketClass.startsWith("AC")) t = new ACClassTicket();
                     else t = new SleeperClassTicket();
@@ -171,11 +207,11 @@ public class DataSeeder {
                     t.setPassengerName("Passenger " + i);
                     t.setAge(20 + rand.nextInt(40));
                     t.setTicketClass(ticketClass);
-                    t.setBookingDate("2025-11-21");
+                    t.setBookingDate(today.toString());
                     t.setStatus("CONFIRMED");
                     t.setFare(seatInfo.baseFare * (ticketClass.equals("AC1")?3.5 : 1.5)); // Approx calc
                     t.setSeatNum(seatNum);
-                    t.setJourneyDate("2025-11-25");
+                    t.setJourneyDate(journeyDate.toString());
 
                     tickets.add(t);
 
@@ -192,7 +228,7 @@ public class DataSeeder {
         // Save everything
         fm.saveReservations(tickets);
         fm.savePNRRecords(pnrRecords);
-        fm.saveTrains(trains); // Save trains with updated seat maps
+        fm.saveTrains(trains);
     }
 
     private static Train createTrain(String num, String name, String src, String dest, String type) {
@@ -0,0 +1,71 @@
+package railway.main;
+
+import railway.model.ACClassTicket;
+import railway.model.SleeperClassTicket;
+import railway.model.Ticket;
+import railway.storage.FileManager;
+import railway.storage.SheetWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * EXPORT BENCHMARK:
+ * Writes the same synthetic reservation list with the old in-memory XSSF export
+ * and the SXSSF streaming export, and prints rows/sec for each.
+ *
+ * Usage: ExportBenchmark [rows ...]   (default: 10000 50000)
+ */
+public class ExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length == 0 ? new int[]{10_000, 50_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+        File dir = Files.createTempDirectory("export-bench").toFile();
+        FileManager fileManager = new FileManager(dir.getPath());
+
+        System.out.println("=== Reservations export benchmark ===");
+        for (int rows : sizes) {
+            ArrayList<Ticket> tickets = generateTickets(rows);
+            for (SheetWriter.Mode mode : SheetWriter.Mode.values()) {
+                fileManager.setExportMode(mode);
+                fileManager.saveReservations(tickets); // warm-up
+                long start = System.nanoTime();
+                fileManager.saveReservations(tickets);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-10s %9d rows  %8.2f s  %10.0f rows/sec%n",
+                        mode, rows, seconds, rows / seconds);
+            }
+        }
+        fileManager.close();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private static ArrayList<Ticket> generateTickets(int count) {
+        ArrayList<Ticket> tickets = new ArrayList<>(count);
+        Random rand = new Random(42);
+        String[] classes = {"AC1", "AC2", "AC3", "SLEEPER", "GENERAL"};
+        for (int i = 0; i < count; i++) {
+            String ticketClass = classes[rand.nextInt(classes.length)];
+            Ticket t = ticketClass.startsWith("AC") ? new ACClassTicket() : new SleeperClassTicket();
+            t.setPnrNumber("PNR" + (1_700_000_000_000L + i));
+            t.setUserId("USR" + String.format("%03d", rand.nextInt(1000)));
+            t.setTrainNumber(String.valueOf(12000 + rand.nextInt(200)));
+            t.setPassengerName("Passenger " + i);
+            t.setAge(18 + rand.nextInt(60));
+            t.setTicketClass(ticketClass);
+            t.setBookingDate("2025-11-21");
+            t.setStatus("CONFIRMED");
+            t.setFare(500 + rand.nextInt(3000));
+            t.setSeatNum(1 + rand.nextInt(400));
+            t.setJourneyDate("2025-11-25");
+            tickets.add(t);
+        }
+        return tickets;
+    }
+}
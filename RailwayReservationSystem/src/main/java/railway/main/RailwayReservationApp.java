@@ -3,24 +3,44 @@ package railway.main;
 import railway.entities.*;
 import railway.auth.*;
 import railway.model.*;
+import railway.repository.DataStore;
+import railway.repository.JourneyInventory;
 import railway.service.*;
 import railway.storage.*;
 import railway.exception.InvalidInputException;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Scanner;
 
 public class RailwayReservationApp {
     private static FileManager fileManager = new FileManager();
-    private static AuthenticationService authService = new AuthenticationService(fileManager);
-    private static TrainManagementService trainManagement = new TrainManagementService(fileManager);
-    private static ReservationSystem reservationSystem = new ReservationSystem(fileManager);
-    private static PNRService pnrService = new PNRService(fileManager);
+    private static DataStore dataStore;
+    private static AuthenticationService authService;
+    private static TrainManagementService trainManagement;
+    private static ReservationSystem reservationSystem;
+    private static PNRService pnrService;
+    private static FareRulesWatcher fareRulesWatcher;
+    private static final int BOOKINGS_PAGE_SIZE = 10;
 
     public static void main(String[] args) {
 
+        // LOAD ALL DATA INTO MEMORY ONCE (saved back in the background)
+        try {
+            long flushInterval = Long.getLong("railway.flushIntervalMs", DataStore.DEFAULT_FLUSH_INTERVAL_MILLIS);
+            dataStore = DataStore.load(fileManager, flushInterval);
+        } catch (IOException e) {
+            System.out.println("Fatal: could not load data files: " + e.getMessage());
+            return;
+        }
+        authService = new AuthenticationService(dataStore);
+        trainManagement = new TrainManagementService(dataStore.trains(), dataStore.inventory());
+        pnrService = new PNRService(dataStore.pnrs(), dataStore.pnrIndex(), dataStore.tickets());
+        reservationSystem = new ReservationSystem(dataStore, pnrService);
+        Runtime.getRuntime().addShutdownHook(new Thread(RailwayReservationApp::shutdownQuietly));
+
         // LOAD FARE RULES ON STARTUP
         try {
             java.util.Map<String, Double> loadedRules = fileManager.loadFareRules();
@@ -28,6 +48,11 @@ public class RailwayReservationApp {
         } catch (IOException e) {
             System.out.println("Warning: Could not load custom fare rules. Using defaults.");
         }
+        try {
+            fareRulesWatcher = FareRulesWatcher.start(fileManager);
+        } catch (IOException e) {
+            System.out.println("Warning: fare rules will not reload on change: " + e.getMessage());
+        }
 
         Scanner sc = new Scanner(System.in);
 
@@ -55,7 +80,7 @@ public class RailwayReservationApp {
                         break;
                     case 4:
                         System.out.println("Exiting... Thank you!");
-                        System.exit(0);
+                        System.exit(0); // shutdown hook drains pending saves
                         break;
                     default:
                         System.out.println("Invalid option.");
@@ -66,6 +91,15 @@ public class RailwayReservationApp {
         }
     }
 
+    private static void shutdownQuietly() {
+        try {
+            if (fareRulesWatcher != null) fareRulesWatcher.close();
+            dataStore.shutdown();
+        } catch (IOException e) {
+            System.out.println("Warning: could not save all changes: " + e.getMessage());
+        }
+    }
+
     // ===== Customer Login & Dashboard =====
     private static void customerLogin(Scanner sc) throws InvalidInputException, IOException {
         System.out.print("Username: ");
@@ -88,12 +122,13 @@ public class RailwayReservationApp {
             System.out.println("==== Customer Dashboard ====");
             System.out.println("1. Search Trains");
             System.out.println("2. Book Ticket");
-            System.out.println("3. My Bookings");
-            System.out.println("4. Check PNR Status");
-            System.out.println("5. Cancel My Ticket");
-            System.out.println("6. Update Profile");
-            System.out.println("7. View Train Seat Map");
-            System.out.println("8. Logout");
+            System.out.println("3. Group Booking (up to " + GroupBookingRequest.MAX_PASSENGERS + " passengers, one PNR)");
+            System.out.println("4. My Bookings");
+            System.out.println("5. Check PNR Status");
+            System.out.println("6. Cancel My Ticket");
+            System.out.println("7. Update Profile");
+            System.out.println("8. View Train Seat Map");
+            System.out.println("9. Logout");
             System.out.print("Enter choice: ");
             int choice = Integer.parseInt(sc.nextLine());
 
@@ -105,21 +140,24 @@ public class RailwayReservationApp {
                     bookTicket(customer, sc);
                     break;
                 case 3:
-                    viewBookings(customer, sc);
+                    bookGroup(customer, sc);
                     break;
                 case 4:
-                    checkPNR(sc);
+                    viewBookings(customer, sc);
                     break;
                 case 5:
-                    cancelMyTicket(customer, sc);
+                    checkPNR(sc);
                     break;
                 case 6:
-                    updateProfile(customer, sc);
+                    cancelMyTicket(customer, sc);
                     break;
                 case 7:
-                    viewTrainSeatMap(sc);
+                    updateProfile(customer, sc);
                     break;
                 case 8:
+                    viewTrainSeatMap(sc);
+                    break;
+                case 9:
                     return;
                 default:
                     System.out.println("Invalid option.");
@@ -155,7 +193,9 @@ public class RailwayReservationApp {
             System.out.println("5. Generate Reports");
             System.out.println("6. Manage Fare Rules");
             System.out.println("7. View Registered Users");
-            System.out.println("8. Logout");
+            System.out.println("8. Export Data to Excel");
+            System.out.println("9. Prepare Charts (all trains, one date)");
+            System.out.println("10. Logout");
             System.out.print("Enter choice: ");
             int choice = Integer.parseInt(sc.nextLine());
             switch (choice) {
@@ -181,6 +221,12 @@ public class RailwayReservationApp {
                     viewRegisteredUsers(sc);
                     break;
                 case 8:
+                    exportData(sc);
+                    break;
+                case 9:
+                    prepareCharts(sc);
+                    break;
+                case 10:
                     return;
                 default:
                     System.out.println("Invalid option.");
@@ -217,12 +263,16 @@ public class RailwayReservationApp {
         if (trains.isEmpty()) {
             System.out.println("No trains found.");
         } else {
+            LocalDate today = LocalDate.now();
             for (Train t : trains) {
                 System.out.println("Train: " + t.getTrainName() + " [" + t.getTrainNumber() + "]");
+                if (t.getSegmentCount() > 1) System.out.println("  Stops: " + String.join(" > ", t.getStops()));
                 for (String classType : t.getAvailableClasses()) {
+                    ClassSeatInfo info = reservationSystem.viewClass(t, classType, today);
                     System.out.println("  - Class: " + classType +
-                            " | Seats Left: " + t.getSeatClasses().get(classType).availableSeats +
-                            " | Fare: " + t.getSeatClasses().get(classType).baseFare);
+                            " | Seats Left Today: " + info.getAvailableSeats() +
+                            " | Fare: " + reservationSystem.quoteFare(t, classType, Quota.GENERAL) +
+                            " | Tatkal: " + reservationSystem.quoteFare(t, classType, Quota.TATKAL));
                 }
                 System.out.println("--------------------");
             }
@@ -232,14 +282,7 @@ public class RailwayReservationApp {
     private static void bookTicket(Customer customer, Scanner sc) throws IOException, InvalidInputException {
         System.out.print("Train Number: ");
         String trainNum = sc.nextLine();
-        ArrayList<Train> trains = fileManager.loadTrains();
-        Train selTrain = null;
-        for (Train t : trains) {
-            if (t.getTrainNumber().equals(trainNum)) {
-                selTrain = t;
-                break;
-            }
-        }
+        Train selTrain = trainManagement.searchTrainByNumber(trainNum);
         if (selTrain == null) {
             System.out.println("Train not found.");
             return;
@@ -252,7 +295,10 @@ public class RailwayReservationApp {
             System.out.println("Class not found for train.");
             return;
         }
-        selTrain.printSeatMap(classType);
+        LocalDate journeyDate = readJourneyDate(sc);
+        if (journeyDate == null) return;
+        String[] leg = readLeg(selTrain, sc);
+        printSeatMap(selTrain, classType, journeyDate);
 
         System.out.print("Passenger Name: ");
         String name = sc.nextLine();
@@ -261,60 +307,140 @@ public class RailwayReservationApp {
         System.out.print("ID Proof: ");
         String idProof = sc.nextLine();
 
-        String bookingDate = java.time.LocalDate.now().toString();
+        int seatPreference = BookingRequest.ANY_SEAT;
+        ClassSeatInfo selectedClass = reservationSystem.viewClass(selTrain, classType, journeyDate);
+        if (selectedClass.getAvailableSeats() > 0 || selTrain.getSegmentCount() > 1) {
+            System.out.print("Seat number (1-" + selectedClass.totalSeats + ", 0 for any): ");
+            seatPreference = Integer.parseInt(sc.nextLine().trim());
+        }
+        System.out.print("Quota (GENERAL/TATKAL/LADIES/SENIOR_CITIZEN) [GENERAL]: ");
+        Quota quota = Quota.parse(sc.nextLine());
+
         Passenger passenger = new Passenger(name, age, idProof);
 
-        // Modified: now pass classType for true multi-class
-        Ticket ticket = reservationSystem.bookTicket(selTrain, passenger, customer.getUserId(), bookingDate);
-
-        System.out.println("Booking Successful! PNR: " + ticket.getPnrNumber());
-        System.out.println("Your status: " + ticket.getDisplayStatus());
-        selTrain.printSeatMap(classType);
-
-        // ====== FIX START: Sync with PNR Service ======
-        PNRRecord pnrRecord = new PNRRecord(
-                ticket.getPnrNumber(),
-                ticket.getTrainNumber(),
-                ticket.getUserId(),
-                ticket.getPassengerName(),
-                ticket.getTicketClass(), // Using Class as "Coach" (e.g. AC1) for now
-                String.valueOf(ticket.getSeatNum()),
-                ticket.getJourneyDate(),
-                ticket.getTicketClass(),
-                "BOOKED",
-                ticket.getStatus(),
-                ticket.getRacNumber(),
-                ticket.getWlNumber(),
-                false // Chart not prepared yet
-        );
-        pnrService.generatePNR(pnrRecord);
-        // ====== FIX END ======
+        BookingResult result = reservationSystem.book(new BookingRequest(selTrain.getTrainNumber(), classType,
+                customer.getUserId(), passenger, journeyDate.toString(), leg[0], leg[1], seatPreference, quota));
+        if (!result.isSuccess()) {
+            System.out.println("Booking failed: " + result.getMessage());
+            return;
+        }
+
+        System.out.println("Booking Successful! PNR: " + result.getPnrNumber());
+        System.out.println("Your status: " + result.getTicket().getDisplayStatus());
+        printSeatMap(selTrain, classType, journeyDate);
     }
 
 
 
+    private static void bookGroup(Customer customer, Scanner sc) throws IOException {
+        System.out.print("Train Number: ");
+        String trainNum = sc.nextLine();
+        Train selTrain = trainManagement.searchTrainByNumber(trainNum);
+        if (selTrain == null) {
+            System.out.println("Train not found.");
+            return;
+        }
+        System.out.println("Available Classes: " + String.join(", ", selTrain.getAvailableClasses()));
+        System.out.print("Enter Class for Booking: ");
+        String classType = sc.nextLine().toUpperCase();
+        if (!selTrain.getSeatClasses().containsKey(classType)) {
+            System.out.println("Class not found for train.");
+            return;
+        }
+        LocalDate journeyDate = readJourneyDate(sc);
+        if (journeyDate == null) return;
+        String[] leg = readLeg(selTrain, sc);
+        printSeatMap(selTrain, classType, journeyDate);
+
+        System.out.print("Number of passengers (1-" + GroupBookingRequest.MAX_PASSENGERS + "): ");
+        int count = Integer.parseInt(sc.nextLine().trim());
+        ArrayList<Passenger> passengers = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            System.out.print("Passenger " + i + " Name: ");
+            String name = sc.nextLine();
+            System.out.print("Passenger " + i + " Age: ");
+            int age = Integer.parseInt(sc.nextLine());
+            System.out.print("Passenger " + i + " ID Proof: ");
+            String idProof = sc.nextLine();
+            passengers.add(new Passenger(name, age, idProof));
+        }
+        System.out.print("Quota (GENERAL/TATKAL/LADIES/SENIOR_CITIZEN) [GENERAL]: ");
+        Quota quota = Quota.parse(sc.nextLine());
+
+        GroupBookingResult result = reservationSystem.bookGroup(new GroupBookingRequest(selTrain.getTrainNumber(),
+                classType, customer.getUserId(), passengers, journeyDate.toString(), leg[0], leg[1], quota));
+        if (!result.isSuccess()) {
+            System.out.println("Booking failed: " + result.getMessage());
+            return;
+        }
+
+        System.out.println("Booking Successful! PNR: " + result.getPnrNumber());
+        for (Ticket t : result.getTickets()) {
+            System.out.println("  " + t.getPnrNumber() + " | " + t.getPassengerName() + " | " + t.getDisplayStatus());
+        }
+        printSeatMap(selTrain, classType, journeyDate);
+    }
+
+    /** Asks for a journey date, today if left blank; null (after a message) if it cannot be parsed. */
+    private static LocalDate readJourneyDate(Scanner sc) {
+        System.out.print("Journey Date (YYYY-MM-DD) [today]: ");
+        String input = sc.nextLine().trim();
+        if (input.isEmpty()) return LocalDate.now();
+        try {
+            return JourneyInventory.parseDate(input);
+        } catch (InvalidInputException e) {
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
+    /** Boarding and alighting stops for trains with intermediate stops; blank answers mean the whole run. */
+    private static String[] readLeg(Train train, Scanner sc) {
+        if (train.getSegmentCount() < 2) return new String[]{"", ""};
+        System.out.println("Stops: " + String.join(" > ", train.getStops()));
+        System.out.print("Boarding at [" + train.getSource() + "]: ");
+        String boarding = sc.nextLine().trim();
+        System.out.print("Getting off at [" + train.getDestination() + "]: ");
+        String alighting = sc.nextLine().trim();
+        return new String[]{boarding, alighting};
+    }
+
+    private static void printSeatMap(Train train, String classType, LocalDate journeyDate) {
+        train.printSeatMap(classType, journeyDate.toString(), reservationSystem.viewClass(train, classType, journeyDate));
+    }
+
     private static void viewBookings(Customer customer, Scanner sc) throws IOException {
-        ArrayList<Ticket> myTickets = reservationSystem.viewBookings(customer.getUserId());
-        if (myTickets.isEmpty()) {
-            System.out.println("No bookings found.");
-        } else {
-            for (Ticket t : myTickets) {
+        // Most recent bookings first, one page at a time
+        int offset = 0;
+        while (true) {
+            ArrayList<Ticket> page = reservationSystem.viewRecentBookings(customer.getUserId(), offset, BOOKINGS_PAGE_SIZE);
+            if (page.isEmpty()) {
+                if (offset == 0) System.out.println("No bookings found.");
+                return;
+            }
+            for (Ticket t : page) {
                 System.out.println("PNR: " + t.getPnrNumber() +
                         " | Train: " + t.getTrainNumber() +
                         " | Date: " + t.getBookingDate() +
                         " | Class: " + t.getTicketClass() +
                         " | Status: " + t.getDisplayStatus());
             }
+            offset += page.size();
+            if (page.size() < BOOKINGS_PAGE_SIZE) return;
+            System.out.print("Show older bookings? (y/n): ");
+            if (!sc.nextLine().trim().equalsIgnoreCase("y")) return;
         }
     }
 
     private static void checkPNR(Scanner sc) throws IOException {
         System.out.print("Enter PNR Number: ");
         String pnr = sc.nextLine();
-        PNRRecord record = pnrService.checkPNRStatus(pnr);
-        if (record == null) {
+        // A group PNR lists every passenger under it
+        ArrayList<PNRRecord> records = pnrService.checkGroupStatus(pnr);
+        if (records.isEmpty()) {
             System.out.println("PNR Not Found.");
-        } else {
+        }
+        for (PNRRecord record : records) {
             System.out.println("Train: " + record.getTrainNumber() + " | Passenger: " + record.getPassengerName());
             System.out.println("Status: " + record.getDisplayStatus() +
                     " | Chart Prepared: " + (record.isChartPrepared() ? "Yes" : "No"));
@@ -326,19 +452,20 @@ public class RailwayReservationApp {
         String pnr = sc.nextLine();
         ArrayList<Ticket> myTickets = reservationSystem.viewBookings(customer.getUserId());
         boolean isOwner = myTickets.stream().anyMatch(t -> t.getPnrNumber().equals(pnr));
+        // A group PNR cancels every passenger still booked under it
+        boolean ownsGroup = myTickets.stream().anyMatch(t -> !t.getPnrNumber().equals(pnr)
+                && PNRGenerator.groupOf(t.getPnrNumber()).equals(pnr));
 
         if (isOwner) {
             // 1. Cancel from Reservations System (deletes ticket, frees seat)
-            boolean cancelled = reservationSystem.cancelTicket(pnr);
-
-            if (cancelled) {
-                // 2. FIX: Update PNR Record to "CANCELLED"
-                // updatePNRStatus(pnr, status, chartPrepared, coach, seat, rac, wl)
-                // We pass null for coach/seat to keep history, and 0 for queues.
-                pnrService.updatePNRStatus(pnr, "CANCELLED", false, null, null, 0, 0);
-
-                System.out.println("Ticket cancelled successfully.");
-            }
+            // 2. The reservation system also marks the PNR record "CANCELLED"
+            Ticket cancelled = reservationSystem.cancelTicket(pnr);
+            printSeatMapAfterCancel(cancelled);
+            System.out.println("Ticket cancelled successfully.");
+        } else if (ownsGroup) {
+            ArrayList<Ticket> cancelled = reservationSystem.cancelGroup(pnr);
+            printSeatMapAfterCancel(cancelled.get(0));
+            System.out.println(cancelled.size() + " passenger(s) cancelled successfully.");
         } else {
             System.out.println("You are not the owner of this ticket.");
         }
@@ -348,33 +475,15 @@ public class RailwayReservationApp {
         System.out.print("New Contact Number: ");
         String newPhone = sc.nextLine();
         customer.setContactNumber(newPhone);
-        ArrayList<Customer> users = fileManager.loadUsers();
-        for (Customer c : users) {
-            if (c.getUserId().equals(customer.getUserId())) {
-                c.setContactNumber(newPhone);
-                break;
-            }
-        }
-        try {
-            fileManager.saveUsers(users);
-            System.out.println("Contact updated.");
-        } catch (IOException e) {
-            throw new InvalidInputException("Error updating profile.");
-        }
+        dataStore.customers().save(customer);
+        System.out.println("Contact updated.");
     }
 
     // ====== NEW METHOD FOR CUSTOMER =======
     private static void viewTrainSeatMap(Scanner sc) throws IOException {
         System.out.print("Enter Train Number: ");
         String trainNum = sc.nextLine();
-        ArrayList<Train> trains = fileManager.loadTrains();
-        Train train = null;
-        for (Train t : trains) {
-            if (t.getTrainNumber().equals(trainNum)) {
-                train = t;
-                break;
-            }
-        }
+        Train train = trainManagement.searchTrainByNumber(trainNum);
         if (train != null) {
             System.out.println("Available Classes: " + String.join(", ", train.getAvailableClasses()));
             System.out.print("Enter Class to View Map: ");
@@ -383,7 +492,8 @@ public class RailwayReservationApp {
                 System.out.println("Class not found for train.");
                 return;
             }
-            train.printSeatMap(classType);
+            LocalDate journeyDate = readJourneyDate(sc);
+            if (journeyDate != null) printSeatMap(train, classType, journeyDate);
         } else {
             System.out.println("Train not found.");
         }
@@ -429,12 +539,24 @@ public class RailwayReservationApp {
             seatClasses.put(classType, new ClassSeatInfo(totalSeats, routeBaseFare, maxRac, maxWL));
         }
 
-        Train train = new Train(tNum, tName, src, dest, seatClasses);
+        Train train = new Train(tNum, tName, src, dest, seatClasses, readStops(sc, src, dest));
         trainManagement.addTrain(train);
         System.out.println("Train added successfully.");
     }
 
-    private static void updateTrain(Scanner sc) throws IOException {
+    /** Asks for the intermediate stops in running order (comma-separated, blank for none). */
+    private static ArrayList<String> readStops(Scanner sc, String src, String dest) {
+        System.out.print("Intermediate stops in order, comma-separated (blank for none): ");
+        ArrayList<String> stops = new ArrayList<>();
+        stops.add(src);
+        for (String stop : sc.nextLine().split(",")) {
+            if (!stop.isBlank()) stops.add(stop.trim());
+        }
+        stops.add(dest);
+        return stops;
+    }
+
+    private static void updateTrain(Scanner sc) throws IOException, InvalidInputException {
         System.out.print("Train Number to Update: ");
         String tNum = sc.nextLine();
         System.out.print("New Train Name: ");
@@ -468,13 +590,13 @@ public class RailwayReservationApp {
             seatClasses.put(classType, new ClassSeatInfo(totalSeats, routeBaseFare, maxRac, maxWL));
         }
 
-        Train updatedTrain = new Train(tNum, tName, src, dest, seatClasses);
+        Train updatedTrain = new Train(tNum, tName, src, dest, seatClasses, readStops(sc, src, dest));
         trainManagement.updateTrain(tNum, updatedTrain);
         System.out.println("Train details updated.");
     }
 
     private static void viewAllBookings(Scanner sc) throws IOException {
-        ArrayList<Ticket> tickets = fileManager.loadReservations();
+        ArrayList<Ticket> tickets = dataStore.tickets().findAll();
         for (Ticket t : tickets) {
             System.out.println("PNR: " + t.getPnrNumber() +
                     " | User: " + t.getUserId() +
@@ -488,33 +610,24 @@ public class RailwayReservationApp {
         System.out.print("Enter PNR to cancel: ");
         String pnr = sc.nextLine();
 
-        // 1. Cancel from Reservations System
-        boolean cancelled = reservationSystem.cancelTicket(pnr);
+        // Cancels the reservation and marks the PNR record "CANCELLED"
+        Ticket cancelled = reservationSystem.cancelTicket(pnr);
+        printSeatMapAfterCancel(cancelled);
+        System.out.println("Ticket cancelled (admin override).");
+    }
 
-        if (cancelled) {
-            // 2. FIX: Update PNR Record to "CANCELLED"
-            pnrService.updatePNRStatus(pnr, "CANCELLED", false, null, null, 0, 0);
-            System.out.println("Ticket cancelled (admin override).");
-        } else {
-            System.out.println("Could not cancel ticket (PNR not found in reservations).");
-        }
+    private static void printSeatMapAfterCancel(Ticket cancelled) throws IOException {
+        Train train = trainManagement.searchTrainByNumber(cancelled.getTrainNumber());
+        if (train != null) printSeatMap(train, cancelled.getTicketClass(), JourneyInventory.journeyDateOf(cancelled));
+        System.out.println("Status released: " + cancelled.getDisplayStatus());
     }
 
     private static void generateReports(Scanner sc) throws IOException {
-        ArrayList<Ticket> tickets = fileManager.loadReservations();
-        int activeBookings = 0;
-        int cancelledBookings = 0;
-        double totalRevenue = 0;
-
-        for (Ticket t : tickets) {
-            // CRITICAL FIX: Check status before adding to revenue
-            if (t.getStatus().equalsIgnoreCase("CANCELLED")) {
-                cancelledBookings++;
-            } else {
-                activeBookings++;
-                totalRevenue += t.getFare();
-            }
-        }
+        // Column scans of the ticket store; no ticket objects are built
+        int cancelledBookings = dataStore.tickets().countWithStatus("CANCELLED");
+        int activeBookings = dataStore.tickets().count() - cancelledBookings;
+        // CRITICAL FIX: Check status before adding to revenue
+        double totalRevenue = dataStore.tickets().fareExcludingStatus("CANCELLED");
 
         System.out.println("==== Financial Report ====");
         System.out.println("Active Bookings: " + activeBookings);
@@ -549,6 +662,7 @@ public class RailwayReservationApp {
 
                 // Save to file immediately
                 fileManager.saveFareRules(railway.model.FareConfig.getAllRules());
+                reservationSystem.refreshFares();
                 System.out.println("Rule updated and saved.");
             } catch (NumberFormatException e) {
                 System.out.println("Invalid number format.");
@@ -556,8 +670,22 @@ public class RailwayReservationApp {
         }
     }
 
+    private static void exportData(Scanner sc) throws IOException {
+        dataStore.exportAll();
+        System.out.println("Trains, users, admins, PNRs and reservations exported to " + fileManager.getDataDir() + "/");
+    }
+
+    private static void prepareCharts(Scanner sc) throws IOException {
+        LocalDate journeyDate = readJourneyDate(sc);
+        if (journeyDate == null) return;
+        System.out.print("Prepare charts for every train on " + journeyDate + " now? RAC and waitlist will be moved up (y/n): ");
+        if (!sc.nextLine().trim().equalsIgnoreCase("y")) return;
+        ChartPreparationService charts = new ChartPreparationService(dataStore, reservationSystem.getEngine(), pnrService);
+        System.out.println(charts.prepareAllCharts(journeyDate, Runtime.getRuntime().availableProcessors()));
+    }
+
     private static void viewRegisteredUsers(Scanner sc) throws IOException {
-        ArrayList<Customer> users = fileManager.loadUsers();
+        ArrayList<Customer> users = dataStore.customers().findAll();
         for (Customer u : users) {
             System.out.println("User: " + u.getUsername() +
                     " | Phone: " + u.getContactNumber() +
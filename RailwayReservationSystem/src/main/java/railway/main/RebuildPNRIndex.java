@@ -0,0 +1,48 @@
+package railway.main;
+
+import railway.repository.DataStore;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+
+/**
+ * PNR INDEX REBUILD:
+ * Regenerates data/pnr_records.dat and data/pnr_index.bin from the PNR source data
+ * (checkpoint + journal, or the workbooks). Run it if the index is reported corrupt.
+ *
+ * Usage: RebuildPNRIndex [dataDir]   (default: data)
+ */
+public class RebuildPNRIndex {
+
+    public static void main(String[] args) {
+        FileManager fileManager = new FileManager(args.length > 0 ? args[0] : "data");
+
+        DataStore store;
+        try {
+            store = DataStore.load(fileManager);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Fatal: could not load data files: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        int status = 0;
+        try {
+            long start = System.nanoTime();
+            store.rebuildPNRIndex();
+            System.out.printf("Indexed %d PNRs in %.1f ms%n",
+                    store.pnrIndex().count(), (System.nanoTime() - start) / 1e6);
+        } catch (IOException | RuntimeException e) {
+            // A corrupt source can fail as an unchecked exception too; either way the index was not rebuilt
+            System.out.println("Error rebuilding PNR index: " + e);
+            status = 1;
+        } finally {
+            try {
+                store.shutdown();
+            } catch (IOException e) {
+                System.out.println("Warning: could not save all changes: " + e.getMessage());
+                status = 1;
+            }
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,423 @@
+package railway.main;
+
+import railway.entities.ClassSeatInfo;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.exception.InvalidInputException;
+import railway.model.Ticket;
+import railway.repository.DataStore;
+import railway.repository.JourneyInventory;
+import railway.service.*;
+import railway.storage.FileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TATKAL LOAD GENERATOR:
+ * Builds a fleet with {@link DataSeeder#generateFleet} in a scratch data directory and drives the
+ * real booking services (ReservationSystem, PNRService) with a mix of bookings, cancellations
+ * and PNR checks, most of them aimed at a few "hot" trains as at the 10:00 Tatkal opening.
+ * All bookings are for tomorrow's journeys, the day Tatkal sells. On trains with intermediate
+ * stops a share of passengers ({@code legShare}) travel a random leg instead of the whole run.
+ *
+ * Closed loop (default): {@code concurrency} virtual-thread clients, each sending its next
+ * request as soon as the previous one returns.
+ * Open loop ({@code rate=N}): requests start on a fixed schedule of N per second whatever the
+ * response times; latency is measured from the scheduled start, so queueing delay is counted.
+ *
+ * Prints throughput and p50/p99/p99.9/max latency per operation, then checks the booking
+ * invariants on every journey class: no seat held twice on any segment, no more confirmed passengers than seats,
+ * free-seat count equal to the bitmap, RAC/WL within maxRacSeats/maxWaitlist, and queue
+ * membership matching ticket status. Exits with status 1 if any invariant fails.
+ *
+ * Usage: TatkalLoadGenerator [key=value ...]
+ *   trains=200 hot=1 hotShare=0.9 legShare=0.5 requests=100000 concurrency=1000 rate=0
+ *   mix=book:70,cancel:10,pnr:20 users=10000 seed=42 dataDir=(temp dir, deleted afterwards)
+ */
+public class TatkalLoadGenerator {
+
+    private enum Op { BOOK, CANCEL, PNR }
+
+    // ========== CONFIG ==========
+    private final int trainCount;
+    private final int hotTrains;
+    private final double hotShare;
+    private final double legShare;
+    private final long requests;
+    private final int concurrency;
+    private final int rate;
+    private final int users;
+    private final long seed;
+    private final int[] mix = new int[Op.values().length]; // cumulative weights
+    private final String dataDir;
+    private final String journeyDate = LocalDate.now().plusDays(1).toString();
+
+    // ========== RUN STATE ==========
+    private ReservationSystem reservations;
+    private PNRService pnrService;
+    private ArrayList<Train> fleet;
+    private final BookedPool booked = new BookedPool(1 << 16);
+    private final Histogram[] latency = new Histogram[Op.values().length];
+    private final AtomicLong[] refused = new AtomicLong[Op.values().length];
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong passengerSeq = new AtomicLong();
+
+    private TatkalLoadGenerator(Map<String, String> args) {
+        trainCount = Integer.parseInt(args.getOrDefault("trains", "200"));
+        hotTrains = Integer.parseInt(args.getOrDefault("hot", "1"));
+        hotShare = Double.parseDouble(args.getOrDefault("hotShare", "0.9"));
+        legShare = Double.parseDouble(args.getOrDefault("legShare", "0.5"));
+        requests = Long.parseLong(args.getOrDefault("requests", "100000"));
+        concurrency = Integer.parseInt(args.getOrDefault("concurrency", "1000"));
+        rate = Integer.parseInt(args.getOrDefault("rate", "0"));
+        users = Integer.parseInt(args.getOrDefault("users", "10000"));
+        seed = Long.parseLong(args.getOrDefault("seed", "42"));
+        dataDir = args.get("dataDir");
+
+        int[] weights = new int[Op.values().length];
+        for (String part : args.getOrDefault("mix", "book:70,cancel:10,pnr:20").split(",")) {
+            String[] kv = part.split(":");
+            weights[Op.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(kv[1].trim());
+        }
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            mix[i] = sum;
+        }
+        if (sum <= 0) throw new IllegalArgumentException("mix has no weight");
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new Histogram();
+            refused[i] = new AtomicLong();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        boolean ok = new TatkalLoadGenerator(options).run();
+        System.exit(ok ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        File dir = dataDir != null ? new File(dataDir) : Files.createTempDirectory("tatkal-load").toFile();
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        FileManager fileManager = new FileManager(dir.getPath());
+        fleet = DataSeeder.generateFleet(trainCount, new Random(seed));
+        fileManager.saveTrains(fleet);
+
+        DataStore store = DataStore.load(fileManager);
+        try {
+            pnrService = new PNRService(store.pnrs(), store.pnrIndex(), store.tickets());
+            reservations = new ReservationSystem(store, pnrService);
+            fleet = store.trains().findAll(); // the loaded objects, not the seeded copies
+
+            System.out.printf("=== Tatkal load: %d trains (%d hot, %.0f%% of bookings), %d requests, %s ===%n",
+                    fleet.size(), hotTrains, hotShare * 100, requests,
+                    rate > 0 ? "open loop " + rate + "/s" : "closed loop, " + concurrency + " clients");
+            long start = System.nanoTime();
+            if (rate > 0) runOpenLoop();
+            else runClosedLoop();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report(seconds);
+            return checkInvariants(store);
+        } finally {
+            store.shutdown();
+            if (dataDir == null) deleteRecursively(dir);
+        }
+    }
+
+    // ========== DRIVERS ==========
+    private void runClosedLoop() throws InterruptedException {
+        AtomicLong issued = new AtomicLong();
+        ArrayList<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            clients.add(Thread.ofVirtual().start(() -> {
+                while (issued.getAndIncrement() < requests) {
+                    Op op = pickOp();
+                    long t0 = System.nanoTime();
+                    execute(op);
+                    latency[op.ordinal()].record(System.nanoTime() - t0);
+                }
+            }));
+        }
+        for (Thread t : clients) t.join();
+    }
+
+    private void runOpenLoop() {
+        long period = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long intended = start + i * period;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                executor.execute(() -> {
+                    Op op = pickOp();
+                    execute(op);
+                    latency[op.ordinal()].record(System.nanoTime() - intended);
+                });
+            }
+        } // close() waits for every request to finish
+    }
+
+    private Op pickOp() {
+        int r = ThreadLocalRandom.current().nextInt(mix[mix.length - 1]);
+        for (Op op : Op.values()) {
+            if (r < mix[op.ordinal()]) return op;
+        }
+        return Op.BOOK;
+    }
+
+    private void execute(Op op) {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        try {
+            switch (op) {
+                case BOOK: {
+                    boolean hot = rand.nextDouble() < hotShare;
+                    Train train = fleet.get(hot ? rand.nextInt(Math.min(hotTrains, fleet.size())) : rand.nextInt(fleet.size()));
+                    ArrayList<String> classes = train.getAvailableClasses();
+                    String cls = classes.get(rand.nextInt(classes.size()));
+                    long n = passengerSeq.incrementAndGet();
+                    String boarding = null, alighting = null;
+                    List<String> stops = train.getStops();
+                    if (stops.size() > 2 && rand.nextDouble() < legShare) {
+                        int from = rand.nextInt(stops.size() - 1);
+                        boarding = stops.get(from);
+                        alighting = stops.get(from + 1 + rand.nextInt(stops.size() - 1 - from));
+                    }
+                    BookingRequest request = new BookingRequest(train.getTrainNumber(), cls, "LOAD" + (n % users),
+                            new Passenger("Passenger " + n, 18 + rand.nextInt(60), "ID" + n), journeyDate,
+                            boarding, alighting, BookingRequest.ANY_SEAT, hot ? Quota.TATKAL : Quota.GENERAL);
+                    BookingResult result = reservations.book(request);
+                    if (result.isSuccess()) booked.add(result.getPnrNumber());
+                    else refused[op.ordinal()].incrementAndGet();
+                    break;
+                }
+                case CANCEL: {
+                    String pnr = booked.take(rand);
+                    if (pnr == null) {
+                        refused[op.ordinal()].incrementAndGet();
+                        break;
+                    }
+                    try {
+                        reservations.cancelTicket(pnr);
+                    } catch (InvalidInputException e) {
+                        refused[op.ordinal()].incrementAndGet();
+                    }
+                    break;
+                }
+                case PNR: {
+                    String pnr = booked.peek(rand);
+                    if (pnr == null || pnrService.checkPNRStatus(pnr) == null) refused[op.ordinal()].incrementAndGet();
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            if (errors.incrementAndGet() <= 5) System.out.println("Error during " + op + ": " + e);
+        }
+    }
+
+    // ========== REPORT ==========
+    private void report(double seconds) {
+        long total = 0;
+        for (Histogram h : latency) total += h.count();
+        System.out.printf("Completed %d requests in %.2f s: %.0f req/s, %d errors%n", total, seconds, total / seconds, errors.get());
+        System.out.printf("%-7s %9s %9s %10s %10s %10s %10s%n", "op", "count", "refused", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Op op : Op.values()) {
+            Histogram h = latency[op.ordinal()];
+            if (h.count() == 0) continue;
+            System.out.printf("%-7s %9d %9d %10.3f %10.3f %10.3f %10.3f%n", op, h.count(), refused[op.ordinal()].get(),
+                    h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.percentile(99.9) / 1e6, h.max() / 1e6);
+        }
+    }
+
+    // ========== INVARIANTS ==========
+    /** Checks every journey class in the inventory against the active tickets; prints and counts violations. */
+    private boolean checkInvariants(DataStore store) {
+        HashMap<String, ArrayList<Ticket>> byClass = new HashMap<>();
+        for (Ticket t : store.tickets().findAll()) {
+            String key = t.getTrainNumber() + "/" + JourneyInventory.journeyDateOf(t) + "/" + t.getTicketClass();
+            byClass.computeIfAbsent(key, k -> new ArrayList<>()).add(t);
+        }
+        int violations = 0;
+        long confirmed = 0, rac = 0, wl = 0;
+        for (JourneyInventory.Shard shard : store.inventory().shards()) {
+            for (Map.Entry<String, ClassSeatInfo> e : shard.getClasses().entrySet()) {
+                String key = shard.getTrainNumber() + "/" + shard.getJourneyDate() + "/" + e.getKey();
+                ClassSeatInfo info = e.getValue();
+                ArrayList<Ticket> tickets = byClass.getOrDefault(key, new ArrayList<>());
+                ArrayList<String> problems = new ArrayList<>();
+
+                HashMap<Integer, BitSet> seats = new HashMap<>(); // seat -> segments sold
+                int confirmedHere = 0;
+                for (Ticket t : tickets) {
+                    if (!"CONFIRMED".equals(t.getStatus())) continue;
+                    confirmedHere++;
+                    if (t.getSeatNum() < 1 || t.getSeatNum() > info.totalSeats) {
+                        problems.add("confirmed " + t.getPnrNumber() + " has no valid seat (" + t.getSeatNum() + ")");
+                        continue;
+                    }
+                    int[] leg = info.segmentsOf(t);
+                    BitSet sold = seats.computeIfAbsent(t.getSeatNum(), k -> new BitSet());
+                    if (sold.nextSetBit(leg[0]) >= 0 && sold.nextSetBit(leg[0]) < leg[1]) {
+                        problems.add("seat " + t.getSeatNum() + " sold twice on segment " + sold.nextSetBit(leg[0]));
+                    }
+                    sold.set(leg[0], leg[1]);
+                    for (int s = leg[0]; s < leg[1]; s++) {
+                        if (info.segments.isFree(t.getSeatNum(), s, s + 1)) {
+                            problems.add("seat " + t.getSeatNum() + " of " + t.getPnrNumber() + " is free in the bitmap");
+                            break;
+                        }
+                    }
+                }
+                int marked = 0;
+                for (int s = 1; s <= info.totalSeats; s++) if (info.seats.isBooked(s)) marked++;
+                int segmentsSold = 0;
+                for (BitSet sold : seats.values()) segmentsSold += sold.cardinality();
+                if (segmentsSold > info.totalSeats * info.segments.segments()) {
+                    problems.add("oversold: " + segmentsSold + " seat-segments sold of " + info.totalSeats * info.segments.segments());
+                }
+                if (marked != seats.size()) problems.add(marked + " seats marked but " + seats.size() + " held by tickets");
+                if (info.getAvailableSeats() != info.totalSeats - marked) {
+                    problems.add("free count " + info.getAvailableSeats() + " != " + (info.totalSeats - marked));
+                }
+                if (info.racQueue.size() > info.maxRacSeats) problems.add("RAC " + info.racQueue.size() + " > max " + info.maxRacSeats);
+                if (info.waitlistQueue.size() > info.maxWaitlist) problems.add("WL " + info.waitlistQueue.size() + " > max " + info.maxWaitlist);
+                if (info.getConfirmedCount() != confirmedHere) {
+                    problems.add(info.getConfirmedCount() + " counted confirmed but " + confirmedHere + " confirmed tickets");
+                }
+                problems.addAll(queueMismatches(store, info.racQueue, "RAC"));
+                problems.addAll(queueMismatches(store, info.waitlistQueue, "WAITLIST"));
+                int queued = info.getConfirmedCount() + info.racQueue.size() + info.waitlistQueue.size();
+                if (queued != tickets.size()) problems.add(queued + " tickets in queues but " + tickets.size() + " active");
+                byClass.remove(key);
+
+                confirmed += confirmedHere;
+                rac += info.racQueue.size();
+                wl += info.waitlistQueue.size();
+                for (String p : problems) {
+                    if (violations++ < 20) System.out.println("VIOLATION " + key + ": " + p);
+                }
+            }
+        }
+        for (Map.Entry<String, ArrayList<Ticket>> e : byClass.entrySet()) {
+            if (violations++ < 20) System.out.println("VIOLATION " + e.getKey() + ": " + e.getValue().size() + " tickets but no inventory");
+        }
+        System.out.printf("Active: %d confirmed, %d RAC, %d waitlisted%n", confirmed, rac, wl);
+        System.out.println(violations == 0 ? "Invariants OK" : violations + " invariant violation(s)");
+        return violations == 0 && errors.get() == 0;
+    }
+
+    private static ArrayList<String> queueMismatches(DataStore store, Collection<Ticket> queue, String status) {
+        ArrayList<String> problems = new ArrayList<>();
+        for (Ticket t : queue) {
+            if (!status.equals(t.getStatus())) problems.add(t.getPnrNumber() + " is " + t.getStatus() + " but queued as " + status);
+            if (store.tickets().findByPnr(t.getPnrNumber()) != t) problems.add(t.getPnrNumber() + " is queued but the repository holds another object");
+        }
+        return problems;
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) deleteRecursively(c);
+        f.delete();
+    }
+
+    // ========== HELPERS ==========
+    /**
+     * Recently booked PNRs for cancellations and status checks: a fixed ring, newest
+     * entries overwrite the oldest. Lock-free so it does not serialise the clients.
+     */
+    private static class BookedPool {
+        private final AtomicReferenceArray<String> slots;
+        private final AtomicLong cursor = new AtomicLong();
+
+        BookedPool(int size) {
+            slots = new AtomicReferenceArray<>(size);
+        }
+
+        void add(String pnr) {
+            slots.set((int) (cursor.getAndIncrement() % slots.length()), pnr);
+        }
+
+        /** Removes and returns a random booked PNR, or null if none was found quickly. */
+        String take(ThreadLocalRandom rand) {
+            int bound = (int) Math.min(cursor.get(), slots.length());
+            for (int attempt = 0; bound > 0 && attempt < 8; attempt++) {
+                String pnr = slots.getAndSet(rand.nextInt(bound), null);
+                if (pnr != null) return pnr;
+            }
+            return null;
+        }
+
+        /** A random booked PNR, left in the pool; null if none was found quickly. */
+        String peek(ThreadLocalRandom rand) {
+            int bound = (int) Math.min(cursor.get(), slots.length());
+            for (int attempt = 0; bound > 0 && attempt < 8; attempt++) {
+                String pnr = slots.get(rand.nextInt(bound));
+                if (pnr != null) return pnr;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Lock-free latency histogram with log-linear buckets: exact below 128 ns, then 64
+     * buckets per power of two (under 1.6% error), covering any long value.
+     */
+    private static class Histogram {
+        private static final int SUB_BITS = 6;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 << SUB_BITS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long v = Math.max(0, nanos);
+            buckets.incrementAndGet(index(v));
+            count.incrementAndGet();
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        long count() { return count.get(); }
+        long max() { return max.get(); }
+
+        /** Lower bound of the bucket holding the given percentile. */
+        long percentile(double p) {
+            long rank = (long) Math.ceil(count.get() * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) return valueOf(i);
+            }
+            return max.get();
+        }
+
+        private static int index(long v) {
+            if (v < (2L << SUB_BITS)) return (int) v;
+            int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+            return (shift << SUB_BITS) + (int) (v >>> shift);
+        }
+
+        private static long valueOf(int index) {
+            if (index < (2 << SUB_BITS)) return index;
+            int shift = (index >>> SUB_BITS) - 1;
+            return (long) (index - (shift << SUB_BITS)) << shift;
+        }
+    }
+}
@@ -23,9 +23,14 @@ public class ACClassTicket extends Ticket {
      * AC1 = 3.5x, AC2 = 2.7x, AC3 = 2.2x multiplier (examples—customize multipliers as needed)
      */
     @Override
-    public double calculateFare(double baseFare) {
+    public double calculateFare(double baseFare, FareConfig.Rules rules) {
+        return classFare(baseFare, ticketClass, rules);
+    }
+
+    /** The fare rule above for any class; precomputed fare tables use it too. */
+    public static double classFare(double baseFare, String ticketClass, FareConfig.Rules rules) {
         // Use the dynamic multiplier from FareConfig
-        double multiplier = FareConfig.getMultiplier(ticketClass);
+        double multiplier = rules.multiplier(ticketClass);
         // Fallback logic if "AC" generic is used (optional)
         if (multiplier == 1.0 && ticketClass.toUpperCase().startsWith("AC")) {
             return baseFare * 2.5;
@@ -1,40 +1,109 @@
 package railway.model;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Holds the dynamic fare multipliers for the application.
  * Accessible statically by Ticket classes.
+ *
+ * The multipliers are an immutable {@link Rules} snapshot behind an AtomicReference: reads are a
+ * single volatile load with no locking, and every change (the admin menu, a reload of
+ * fare_rules.txt) builds a new snapshot and swaps it in whole. A booking that takes
+ * {@link #current()} once prices all of its fare with one consistent rule set, whatever is
+ * published meanwhile.
  */
 public class FareConfig {
+
+    /** One immutable set of multipliers, keyed by upper-case class (or quota) code. */
+    public static final class Rules {
+        private final Map<String, Double> multipliers;
+        private final long version;
+
+        private Rules(Map<String, Double> multipliers, long version) {
+            this.multipliers = Collections.unmodifiableMap(multipliers);
+            this.version = version;
+        }
+
+        public double multiplier(String ticketClass) {
+            return multipliers.getOrDefault(ticketClass.toUpperCase(), 1.0);
+        }
+
+        /** The multipliers of this snapshot (read-only). */
+        public Map<String, Double> asMap() {
+            return multipliers;
+        }
+
+        /** Increases by one with every snapshot published. */
+        public long getVersion() {
+            return version;
+        }
+
+        /** A copy of these rules with the given multipliers added or replaced, numbered {@code version}. */
+        private Rules with(Map<String, Double> changes, long version) {
+            HashMap<String, Double> merged = new HashMap<>(multipliers);
+            for (Map.Entry<String, Double> e : changes.entrySet()) {
+                merged.put(e.getKey().trim().toUpperCase(), e.getValue());
+            }
+            return new Rules(merged, version);
+        }
+    }
+
     // Default multipliers (Fallbacks if file is missing)
-    private static Map<String, Double> multipliers = new HashMap<>();
+    private static final Rules DEFAULTS;
 
     static {
         // Initialize defaults exactly as they were in your hardcoded files
-        multipliers.put("AC1", 3.5);
-        multipliers.put("AC2", 2.7);
-        multipliers.put("AC3", 2.2);
-        multipliers.put("SLEEPER", 1.2);
-        multipliers.put("GENERAL", 1.0);
+        HashMap<String, Double> defaults = new HashMap<>();
+        defaults.put("AC1", 3.5);
+        defaults.put("AC2", 2.7);
+        defaults.put("AC3", 2.2);
+        defaults.put("SLEEPER", 1.2);
+        defaults.put("GENERAL", 1.0);
+        DEFAULTS = new Rules(defaults, 0);
+    }
+
+    private static final AtomicReference<Rules> current = new AtomicReference<>(DEFAULTS);
+
+    /** The rules in force now; hold on to the result to price one booking consistently. */
+    public static Rules current() {
+        return current.get();
     }
 
     public static double getMultiplier(String ticketClass) {
-        return multipliers.getOrDefault(ticketClass.toUpperCase(), 1.0);
+        return current.get().multiplier(ticketClass);
     }
 
     public static void setMultiplier(String ticketClass, double value) {
-        multipliers.put(ticketClass.toUpperCase(), value);
+        current.updateAndGet(r -> r.with(Map.of(ticketClass, value), r.version + 1));
     }
 
+    /** Read-only view of the current multipliers. */
     public static Map<String, Double> getAllRules() {
-        return multipliers;
+        return current.get().asMap();
     }
 
+    /** Adds or replaces the given multipliers, keeping the others. */
     public static void setAllRules(Map<String, Double> newRules) {
         if (newRules != null && !newRules.isEmpty()) {
-            multipliers.putAll(newRules);
+            current.updateAndGet(r -> r.with(newRules, r.version + 1));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Replaces every rule with the defaults overlaid by {@code fileRules}, as read from the rules
+     * file, so a rule deleted from the file falls back to its default. Publishes nothing if that
+     * is what is in force already; returns whether the rules changed.
+     */
+    public static boolean replaceRules(Map<String, Double> fileRules) {
+        Rules before, after;
+        do {
+            before = current.get();
+            after = DEFAULTS.with(fileRules, before.version + 1);
+            if (after.multipliers.equals(before.multipliers)) return false;
+        } while (!current.compareAndSet(before, after));
+        return true;
+    }
+}
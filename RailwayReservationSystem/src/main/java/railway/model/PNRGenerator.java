@@ -0,0 +1,134 @@
+package railway.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style PNR numbers: unique across threads and across processes sharing a data
+ * directory, without locks.
+ *
+ * The 59-bit id is {@code [41 bits ms since 2025-01-01][6 bits node][12 bits sequence]}.
+ * Timestamp and sequence live in one AtomicLong that only ever moves forward by CAS, so ids
+ * from one generator are strictly increasing. Once 4096 ids are used in a millisecond, callers
+ * spin until the clock ticks, so ids never run ahead of the clock and a restarted process on
+ * the same node cannot reissue them. If the clock steps back, the sequence keeps counting
+ * from the last id.
+ * Node IDs come from a {@link railway.storage.NodeIdLease}, so two instances never share one.
+ *
+ * Printed form: "PNR" + the id as 18 zero-padded digits + one Damm check digit, which catches
+ * every single-digit typo and every swap of adjacent digits.
+ */
+public class PNRGenerator {
+    public static final int NODE_BITS = 6;
+    public static final int MAX_NODES = 1 << NODE_BITS;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long EPOCH_MILLIS = 1735689600000L; // 2025-01-01T00:00:00Z
+    private static final String PREFIX = "PNR";
+    /** Joins a group PNR and a passenger's position in it: PNR...-1, PNR...-2, ... */
+    public static final char PASSENGER_SEPARATOR = '-';
+    private static final int ID_DIGITS = 18;
+
+    // Damm quasigroup table (order 10, weakly totally anti-symmetric)
+    private static final int[][] DAMM = {
+            {0, 3, 1, 7, 5, 9, 8, 6, 4, 2},
+            {7, 0, 9, 2, 1, 5, 4, 8, 6, 3},
+            {4, 2, 0, 6, 8, 7, 1, 3, 5, 9},
+            {1, 7, 5, 0, 9, 8, 3, 4, 2, 6},
+            {6, 1, 2, 3, 0, 4, 5, 9, 7, 8},
+            {3, 6, 7, 4, 2, 0, 9, 5, 8, 1},
+            {5, 8, 6, 9, 7, 2, 0, 1, 3, 4},
+            {8, 9, 4, 5, 3, 6, 2, 0, 1, 7},
+            {9, 4, 3, 8, 6, 1, 7, 2, 0, 5},
+            {2, 5, 8, 1, 4, 3, 6, 7, 9, 0}
+    };
+
+    private final long nodeBits;
+    private final AtomicLong state = new AtomicLong(); // (ms since epoch << SEQUENCE_BITS) | sequence
+
+    public PNRGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId >= MAX_NODES) throw new IllegalArgumentException("node id " + nodeId);
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /** Next raw id; strictly greater than every id this generator returned before. */
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long next;
+            if (now > last) {
+                next = now; // new millisecond, sequence restarts at 0
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1; // same millisecond (or clock stepped back): next sequence
+            } else {
+                Thread.onSpinWait(); // 4096 ids used up in this millisecond: wait for the clock
+                continue;
+            }
+            if (state.compareAndSet(last, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /** Next PNR in printed form, e.g. PNR0015123456789012345 + check digit. */
+    public String next() {
+        return format(nextId());
+    }
+
+    public static String format(long id) {
+        StringBuilder sb = new StringBuilder(PREFIX.length() + ID_DIGITS + 1).append(PREFIX);
+        String digits = Long.toString(id);
+        for (int i = digits.length(); i < ID_DIGITS; i++) sb.append('0');
+        sb.append(digits);
+        sb.append((char) ('0' + damm(sb, PREFIX.length(), sb.length())));
+        return sb.toString();
+    }
+
+    /**
+     * False if the text cannot be a PNR: wrong prefix, non-digits, or a generated-format PNR
+     * whose check digit does not match. Older PNRs (plain "PNR" + timestamp, no check digit)
+     * have a different length and are accepted on shape alone.
+     */
+    public static boolean isWellFormed(String pnr) {
+        if (pnr == null) return false;
+        int sep = pnr.indexOf(PASSENGER_SEPARATOR);
+        if (sep >= 0) {
+            // Passenger of a group booking: the part after the separator is its 1-based position
+            if (sep == pnr.length() - 1 || pnr.charAt(sep + 1) == '0') return false;
+            for (int i = sep + 1; i < pnr.length(); i++) {
+                if (!Character.isDigit(pnr.charAt(i))) return false;
+            }
+            pnr = pnr.substring(0, sep);
+        }
+        if (!pnr.startsWith(PREFIX) || pnr.length() == PREFIX.length()) return false;
+        for (int i = PREFIX.length(); i < pnr.length(); i++) {
+            if (!Character.isDigit(pnr.charAt(i))) return false;
+        }
+        if (pnr.length() != PREFIX.length() + ID_DIGITS + 1) return true;
+        return damm(pnr, PREFIX.length(), pnr.length()) == 0;
+    }
+
+    /** PNR of the {@code position}-th (1-based) passenger of a group booking. */
+    public static String passengerPnr(String groupPnr, int position) {
+        return groupPnr + PASSENGER_SEPARATOR + position;
+    }
+
+    /** The group PNR a passenger PNR belongs to; a plain PNR is its own group. */
+    public static String groupOf(String pnr) {
+        int sep = pnr.indexOf(PASSENGER_SEPARATOR);
+        return sep < 0 ? pnr : pnr.substring(0, sep);
+    }
+
+    /** Node that generated a PNR in the current format. */
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & (MAX_NODES - 1));
+    }
+
+    /** Damm interim digit over chars [from, to); 0 means a valid number including its check digit. */
+    private static int damm(CharSequence s, int from, int to) {
+        int interim = 0;
+        for (int i = from; i < to; i++) interim = DAMM[interim][s.charAt(i) - '0'];
+        return interim;
+    }
+}
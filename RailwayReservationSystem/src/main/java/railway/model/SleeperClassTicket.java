@@ -23,7 +23,7 @@ public class SleeperClassTicket extends Ticket {
      * Sleeper = 1.2x, General = 1.0x multiplier. Adjust as per real/desired tariffs.
      */
     @Override
-    public double calculateFare(double baseFare) {
-        return baseFare * FareConfig.getMultiplier(ticketClass);
+    public double calculateFare(double baseFare, FareConfig.Rules rules) {
+        return baseFare * rules.multiplier(ticketClass);
     }
 }
@@ -0,0 +1,78 @@
+package railway.model;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary encoding for a column of repeated strings: each distinct value gets a dense int
+ * code, so a row stores 4 bytes however long the text is and the text itself is kept once.
+ * Code 0 is reserved for null. Codes are never reused, so a code stays valid for as long as the
+ * dictionary lives; values are never dropped either, so {@link TicketStore} replaces its
+ * dictionaries with ones rebuilt from the live rows when it compacts. Lookups go through an open-addressing table of codes rather than a HashMap,
+ * so a distinct value costs its String and a few array slots. Not thread-safe; the owning
+ * {@link TicketStore} is guarded by its caller.
+ */
+class StringDictionary {
+    private String[] values = new String[16];
+    private int[] table = new int[32]; // codes by hash, linear probing; 0 = empty slot
+    private int size = 1;              // slot 0 of values is null
+
+    /** Code of the value, adding it if it is new. */
+    int encode(String value) {
+        if (value == null) return 0;
+        int slot = slotOf(value);
+        if (table[slot] != 0) return table[slot];
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        table[slot] = size;
+        if (++size * 2 > table.length) rehash(table.length * 2);
+        return size - 1;
+    }
+
+    /** Code of the value, or -1 if it has never been added. */
+    int find(String value) {
+        if (value == null) return 0;
+        int code = table[slotOf(value)];
+        return code == 0 ? -1 : code;
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    /** Number of codes handed out, including the one for null. */
+    int size() {
+        return size;
+    }
+
+    /** A copy that can decode every code handed out so far; it cannot encode or find. */
+    StringDictionary readOnlyCopy() {
+        StringDictionary copy = new StringDictionary();
+        copy.values = Arrays.copyOf(values, size);
+        copy.table = null;
+        copy.size = size;
+        return copy;
+    }
+
+    private int slotOf(String value) {
+        if (table == null) throw new IllegalStateException("read-only dictionary");
+        int mask = table.length - 1;
+        int slot = mix(value.hashCode()) & mask;
+        while (table[slot] != 0 && !values[table[slot]].equals(value)) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int code = 1; code < size; code++) {
+            int slot = mix(values[code].hashCode()) & (capacity - 1);
+            while (table[slot] != 0) slot = (slot + 1) & (capacity - 1);
+            table[slot] = code;
+        }
+    }
+
+    /** Spreads String hash codes, whose low bits cluster for similar short strings. */
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,6 +1,7 @@
 package railway.model;
 
 import java.util.HashMap;
+import java.util.function.ToIntFunction;
 
 /**
  * Abstract Ticket class, inherited by specific ticket types (AC1/AC2/AC3/Sleeper/General).
@@ -20,6 +21,9 @@ public abstract class Ticket {
     protected int wlNumber;            // Position in waitlist (if WAITLIST)
     protected int racNumber;           // Position in RAC (if RAC)
     protected String journeyDate;      // For history and PNR reference (optional, set at booking)
+    protected String boardingStation;  // Stop the passenger boards at ("" = the train's source)
+    protected String alightingStation; // Stop the passenger leaves at ("" = the train's destination)
+    private ToIntFunction<Ticket> queuePosition; // Live RAC/WL position while queued (null otherwise)
 
     public Ticket() {
         this.seatNum = -1;        // -1 if not allotted
@@ -27,6 +31,8 @@ public abstract class Ticket {
         this.racNumber = 0;
         this.status = "WAITLIST";
         this.journeyDate = "";
+        this.boardingStation = "";
+        this.alightingStation = "";
     }
 
     public Ticket(String pnrNumber, String userId, String trainNumber, String passengerName,
@@ -45,10 +51,17 @@ public abstract class Ticket {
         this.wlNumber = wlNumber;
         this.racNumber = racNumber;
         this.journeyDate = journeyDate;
+        this.boardingStation = "";
+        this.alightingStation = "";
     }
 
     // Polymorphic fare calculation: pass the correct baseFare for the specific class
-    public abstract double calculateFare(double baseFare);
+    public double calculateFare(double baseFare) {
+        return calculateFare(baseFare, FareConfig.current());
+    }
+
+    /** Fare under one fare-rules snapshot, so a booking prices everything with the same rules. */
+    public abstract double calculateFare(double baseFare, FareConfig.Rules rules);
 
     // ===== Getters and Setters =====
     public String getPnrNumber() { return pnrNumber; }
@@ -81,23 +94,51 @@ public abstract class Ticket {
     public int getSeatNum() { return seatNum; }
     public void setSeatNum(int seatNum) { this.seatNum = seatNum; }
 
-    public int getWlNumber() { return wlNumber; }
+    /** Current waitlist position: live while the ticket is queued, otherwise the stored one. */
+    public int getWlNumber() {
+        if (queuePosition != null && "WAITLIST".equalsIgnoreCase(status)) return queuePosition.applyAsInt(this);
+        return wlNumber;
+    }
     public void setWlNumber(int wlNumber) { this.wlNumber = wlNumber; }
 
-    public int getRacNumber() { return racNumber; }
+    /** Current RAC position: live while the ticket is queued, otherwise the stored one. */
+    public int getRacNumber() {
+        if (queuePosition != null && "RAC".equalsIgnoreCase(status)) return queuePosition.applyAsInt(this);
+        return racNumber;
+    }
     public void setRacNumber(int racNumber) { this.racNumber = racNumber; }
 
+    // ===== RAC/WL Queue Membership =====
+    /** Called by the queue the ticket joins; its RAC/WL number is then read from the queue. */
+    public void joinQueue(ToIntFunction<Ticket> position) {
+        this.queuePosition = position;
+    }
+
+    /** Called by the queue the ticket leaves; the ticket keeps the last position it had. */
+    public void leaveQueue() {
+        if (queuePosition == null) return;
+        if ("RAC".equalsIgnoreCase(status)) racNumber = queuePosition.applyAsInt(this);
+        else if ("WAITLIST".equalsIgnoreCase(status)) wlNumber = queuePosition.applyAsInt(this);
+        queuePosition = null;
+    }
+
     public String getJourneyDate() { return journeyDate; }
     public void setJourneyDate(String journeyDate) { this.journeyDate = journeyDate; }
 
+    public String getBoardingStation() { return boardingStation; }
+    public void setBoardingStation(String boardingStation) { this.boardingStation = boardingStation == null ? "" : boardingStation; }
+
+    public String getAlightingStation() { return alightingStation; }
+    public void setAlightingStation(String alightingStation) { this.alightingStation = alightingStation == null ? "" : alightingStation; }
+
     // ===== Utility to Display Status =====
     public String getDisplayStatus() {
         if ("CONFIRMED".equalsIgnoreCase(status)) {
             return "CONFIRMED (Seat " + seatNum + ")";
         } else if ("RAC".equalsIgnoreCase(status)) {
-            return "RAC/" + racNumber;
+            return "RAC/" + getRacNumber();
         } else if ("WAITLIST".equalsIgnoreCase(status)) {
-            return "WL/" + wlNumber;
+            return "WL/" + getWlNumber();
         } else if ("CANCELLED".equalsIgnoreCase(status)) {
             return "Cancelled";
         }
@@ -0,0 +1,515 @@
+package railway.model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Column-oriented ticket storage: one primitive array per field instead of one object per ticket.
+ *
+ * A ticket is a row number. PNRs are packed four bits per character into two longs; user IDs,
+ * passenger names, train numbers and stations are dictionary codes; class and status are byte
+ * codes of small tables, the way an enum ordinal would be; ages are shorts and dates epoch days.
+ * A row costs about 100 bytes including the PNR index, against several hundred for a Ticket
+ * object with its own strings, and a scan over one or two columns (a date, a status) reads
+ * contiguous memory instead of chasing a pointer per ticket.
+ *
+ * {@link #get} materialises a Ticket from a row for callers that want one; changes go back
+ * through {@link #updateStatus}. Rows keep insertion order. A removed row is skipped by every
+ * read and the columns are compacted once removed rows outnumber live ones (or at a checkpoint,
+ * see {@link #trim}), so row numbers are only valid until the next {@link #remove}. Compaction
+ * rebuilds the dictionaries from the live rows, so a value only removed tickets used (a user who
+ * cancelled everything, a passenger name) does not stay behind for the life of the process.
+ * Values round-trip exactly: text that is not a PNR
+ * in the usual alphabet, or a date that is not yyyy-MM-dd, is kept in a dictionary instead.
+ * Not thread-safe; the owner synchronises access.
+ */
+public class TicketStore {
+    /** Returned by {@link #journeyDay} and {@link #bookingDay} for a blank or unparseable date. */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MIN_COMPACTION = 1024;
+    private static final int TRIM_SHARE = 8;         // trim() compacts once 1 row in 8 is removed
+    private static final byte REMOVED = -1;          // status code of a removed row
+    private static final int MAX_CODE = 127;          // class and status codes are bytes
+    private static final int TEXT_DATE = -10_000_000; // below any 4-digit year; TEXT_DATE - v is a label code
+    private static final String PNR_ALPHABET = "0123456789PNR-"; // nibbles 1..14, 0 ends the text
+    private static final int PNR_MAX_LENGTH = 32;
+    private static final String[] FIXED_STATUSES = {"WAITLIST", "RAC", "CONFIRMED", "CANCELLED"};
+
+    // ======= Columns =======
+    private long[] pnrHigh, pnrLow;  // packed PNR characters 0-15 and 16-31; pnrHigh 0 = label code in pnrLow
+    private int[] user, train, name, boarding, alighting;
+    private short[] age;
+    private byte[] ticketClass, status;
+    private double[] fare;
+    private int[] seat, wl, rac;
+    private int[] bookingDate, journeyDate;
+    private int[] olderOfUser;       // row + 1 of the same user's previous ticket, 0 at the first
+
+    private StringDictionary users = new StringDictionary();
+    private StringDictionary names = new StringDictionary();
+    private StringDictionary labels = new StringDictionary(); // trains, stations, odd PNRs and dates
+    private StringDictionary classes = new StringDictionary();
+    private StringDictionary statuses = new StringDictionary();
+    private int rows;                // rows in use, removed ones included
+    private int live;
+
+    // ======= Indexes =======
+    private int[] pnrTable;          // row + 1 by PNR hash, linear probing; 0 = empty
+    private int[] latestOfUser = new int[16]; // row + 1 of each user's newest ticket, by user code
+    private int[] countOfUser = new int[16];
+
+    public TicketStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private TicketStore(int capacity) {
+        allocate(Math.max(capacity, INITIAL_CAPACITY));
+        pnrTable = new int[pnrHigh.length * 2];
+        // Fixed codes for the statuses the engine uses, like enum ordinals
+        for (String s : FIXED_STATUSES) statuses.encode(s);
+    }
+
+    /** Live tickets. */
+    public int size() {
+        return live;
+    }
+
+    // ======= Rows =======
+    /** Appends a ticket and returns its row. Its PNR must not already be live in the store. */
+    public int add(Ticket t) {
+        if (rows == pnrHigh.length) grow();
+        int row = rows++;
+        String pnr = t.getPnrNumber();
+        if (packable(pnr)) {
+            pnrHigh[row] = pack(pnr, 0);
+            pnrLow[row] = pack(pnr, 16);
+        } else {
+            pnrHigh[row] = 0;
+            pnrLow[row] = labels.encode(pnr);
+        }
+        user[row] = users.encode(t.getUserId());
+        train[row] = labels.encode(t.getTrainNumber());
+        name[row] = names.encode(t.getPassengerName());
+        boarding[row] = labels.encode(t.getBoardingStation());
+        alighting[row] = labels.encode(t.getAlightingStation());
+        age[row] = (short) t.getAge();
+        ticketClass[row] = smallCode(classes, t.getTicketClass());
+        fare[row] = t.getFare();
+        bookingDate[row] = encodeDate(t.getBookingDate());
+        journeyDate[row] = encodeDate(t.getJourneyDate());
+        updateStatus(row, t);
+        live++;
+        indexPnr(row);
+        linkUser(row);
+        return row;
+    }
+
+    /** Copies the fields a booking changes after the fact (status, seat, RAC/WL position) from the ticket. */
+    public void updateStatus(int row, Ticket t) {
+        status[row] = smallCode(statuses, t.getStatus());
+        seat[row] = t.getSeatNum();
+        wl[row] = t.getWlNumber();
+        rac[row] = t.getRacNumber();
+    }
+
+    /** Removes a row; row numbers taken before this call are no longer valid. */
+    public void remove(int row) {
+        checkLive(row);
+        status[row] = REMOVED;
+        countOfUser[user[row]]--;
+        live--;
+        int removed = rows - live;
+        if (removed >= MIN_COMPACTION && removed > live) compact();
+    }
+
+    /**
+     * Compacts the columns and dictionaries if at least one row in eight has been
+     * removed since the last compaction; true if it did. Meant for checkpoints, which copy every
+     * live row anyway, so that values of cancelled tickets are dropped long before removed rows
+     * would outnumber live ones.
+     */
+    public boolean trim() {
+        int removed = rows - live;
+        if (removed == 0 || removed < live / TRIM_SHARE) return false;
+        compact();
+        return true;
+    }
+
+    /** Row of the live ticket with this PNR, or -1. */
+    public int rowOf(String pnr) {
+        long high, low;
+        if (packable(pnr)) {
+            high = pack(pnr, 0);
+            low = pack(pnr, 16);
+        } else {
+            int code = labels.find(pnr);
+            if (code < 0) return -1;
+            high = 0;
+            low = code;
+        }
+        int mask = pnrTable.length - 1;
+        for (int slot = hash(high, low) & mask; pnrTable[slot] != 0; slot = (slot + 1) & mask) {
+            int row = pnrTable[slot] - 1;
+            if (pnrHigh[row] == high && pnrLow[row] == low && status[row] != REMOVED) return row;
+        }
+        return -1;
+    }
+
+    /** First live row at or after {@code row} in insertion order, or -1: {@code for (r = nextRow(0); r >= 0; r = nextRow(r + 1))}. */
+    public int nextRow(int row) {
+        for (; row < rows; row++) {
+            if (status[row] != REMOVED) return row;
+        }
+        return -1;
+    }
+
+    /** A new Ticket object holding the row's values. */
+    public Ticket get(int row) {
+        checkLive(row);
+        String cls = classes.decode(ticketClass[row]);
+        Ticket t = cls != null && cls.toUpperCase().startsWith("AC") ? new ACClassTicket() : new SleeperClassTicket();
+        t.setPnrNumber(pnr(row));
+        t.setUserId(users.decode(user[row]));
+        t.setTrainNumber(labels.decode(train[row]));
+        t.setPassengerName(names.decode(name[row]));
+        t.setAge(age[row]);
+        t.setTicketClass(cls);
+        t.setBookingDate(decodeDate(bookingDate[row]));
+        t.setStatus(statuses.decode(status[row]));
+        t.setFare(fare[row]);
+        t.setSeatNum(seat[row]);
+        t.setWlNumber(wl[row]);
+        t.setRacNumber(rac[row]);
+        t.setJourneyDate(decodeDate(journeyDate[row]));
+        t.setBoardingStation(labels.decode(boarding[row]));
+        t.setAlightingStation(labels.decode(alighting[row]));
+        return t;
+    }
+
+    // ======= Column Reads =======
+    public String pnr(int row) {
+        if (pnrHigh[row] == 0) return labels.decode((int) pnrLow[row]);
+        StringBuilder sb = new StringBuilder(24);
+        if (unpack(pnrHigh[row], sb)) unpack(pnrLow[row], sb);
+        return sb.toString();
+    }
+
+    public String trainNumber(int row) { return labels.decode(train[row]); }
+    public String ticketClass(int row) { return classes.decode(ticketClass[row]); }
+    public String status(int row) { return statuses.decode(status[row]); }
+    public double fare(int row) { return fare[row]; }
+    public int seatNum(int row) { return seat[row]; }
+
+    /** Status code of a row, for scans with {@link #statusesMatching}. */
+    public int statusCode(int row) { return status[row]; }
+
+    /** Which status codes stand for this status, ignoring case; index the result by {@link #statusCode}. */
+    public boolean[] statusesMatching(String wanted) {
+        boolean[] match = new boolean[statuses.size()];
+        for (int code = 1; code < match.length; code++) match[code] = statuses.decode(code).equalsIgnoreCase(wanted);
+        return match;
+    }
+
+    /** Journey date as an epoch day, or {@link #NO_DAY}. */
+    public int journeyDay(int row) { return day(journeyDate[row]); }
+
+    /** Booking date as an epoch day, or {@link #NO_DAY}. */
+    public int bookingDay(int row) { return day(bookingDate[row]); }
+
+    // ======= Users =======
+    /** Number of live tickets of the user. */
+    public int countOfUser(String userId) {
+        int u = users.find(userId);
+        return u < 0 ? 0 : countOfUser[u];
+    }
+
+    /** The user's newest live ticket, or -1. */
+    public int latestOfUser(String userId) {
+        int u = users.find(userId);
+        return u < 0 ? -1 : liveFrom(latestOfUser[u]);
+    }
+
+    /** The live ticket the same user booked before this row, or -1. */
+    public int olderOfUser(int row) {
+        return liveFrom(olderOfUser[row]);
+    }
+
+    private int liveFrom(int link) {
+        while (link != 0 && status[link - 1] == REMOVED) link = olderOfUser[link - 1];
+        return link - 1;
+    }
+
+    private void linkUser(int row) {
+        int u = user[row];
+        if (u >= latestOfUser.length) {
+            int capacity = Math.max(u + 1, latestOfUser.length * 2);
+            latestOfUser = Arrays.copyOf(latestOfUser, capacity);
+            countOfUser = Arrays.copyOf(countOfUser, capacity);
+        }
+        olderOfUser[row] = latestOfUser[u];
+        latestOfUser[u] = row + 1;
+        countOfUser[u]++;
+    }
+
+    // ======= Snapshots =======
+    /**
+     * A compacted copy of the live rows for reading elsewhere while this store keeps changing
+     * (checkpoints). The copy has its own columns and read-only dictionaries; it supports
+     * {@link #get}, {@link #nextRow}, the column reads and {@link #tickets}, not lookups or changes.
+     */
+    public TicketStore readOnlyCopy() {
+        TicketStore copy = new TicketStore(live);
+        int to = 0;
+        for (int row = nextRow(0); row >= 0; row = nextRow(row + 1)) copyRow(this, row, copy, to++);
+        copy.rows = copy.live = to;
+        copy.users = users.readOnlyCopy();
+        copy.names = names.readOnlyCopy();
+        copy.labels = labels.readOnlyCopy();
+        copy.classes = classes.readOnlyCopy();
+        copy.statuses = statuses.readOnlyCopy();
+        return copy;
+    }
+
+    /** Live tickets in insertion order, materialised one at a time as the iterator reaches them. */
+    public Collection<Ticket> tickets() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Ticket> iterator() {
+                return new Iterator<>() {
+                    private int next = nextRow(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Ticket next() {
+                        if (next < 0) throw new NoSuchElementException();
+                        Ticket t = get(next);
+                        next = nextRow(next + 1);
+                        return t;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return live;
+            }
+        };
+    }
+
+    // ======= Storage =======
+    private void allocate(int capacity) {
+        pnrHigh = new long[capacity];
+        pnrLow = new long[capacity];
+        user = new int[capacity];
+        train = new int[capacity];
+        name = new int[capacity];
+        boarding = new int[capacity];
+        alighting = new int[capacity];
+        age = new short[capacity];
+        ticketClass = new byte[capacity];
+        status = new byte[capacity];
+        fare = new double[capacity];
+        seat = new int[capacity];
+        wl = new int[capacity];
+        rac = new int[capacity];
+        bookingDate = new int[capacity];
+        journeyDate = new int[capacity];
+        olderOfUser = new int[capacity];
+    }
+
+    private void grow() {
+        int capacity = pnrHigh.length * 2;
+        pnrHigh = Arrays.copyOf(pnrHigh, capacity);
+        pnrLow = Arrays.copyOf(pnrLow, capacity);
+        user = Arrays.copyOf(user, capacity);
+        train = Arrays.copyOf(train, capacity);
+        name = Arrays.copyOf(name, capacity);
+        boarding = Arrays.copyOf(boarding, capacity);
+        alighting = Arrays.copyOf(alighting, capacity);
+        age = Arrays.copyOf(age, capacity);
+        ticketClass = Arrays.copyOf(ticketClass, capacity);
+        status = Arrays.copyOf(status, capacity);
+        fare = Arrays.copyOf(fare, capacity);
+        seat = Arrays.copyOf(seat, capacity);
+        wl = Arrays.copyOf(wl, capacity);
+        rac = Arrays.copyOf(rac, capacity);
+        bookingDate = Arrays.copyOf(bookingDate, capacity);
+        journeyDate = Arrays.copyOf(journeyDate, capacity);
+        olderOfUser = Arrays.copyOf(olderOfUser, capacity);
+        rebuildPnrIndex();
+    }
+
+    /** Slides live rows down over removed ones, keeping their order, and rebuilds the dictionaries and indexes. */
+    private void compact() {
+        int to = 0;
+        for (int row = 0; row < rows; row++) {
+            if (status[row] == REMOVED) continue;
+            if (row != to) copyRow(this, row, this, to);
+            to++;
+        }
+        rows = to;
+        recode();
+        rebuildPnrIndex();
+        Arrays.fill(latestOfUser, 0);
+        Arrays.fill(countOfUser, 0);
+        for (int row = 0; row < rows; row++) linkUser(row);
+    }
+
+    private static void copyRow(TicketStore from, int row, TicketStore to, int toRow) {
+        to.pnrHigh[toRow] = from.pnrHigh[row];
+        to.pnrLow[toRow] = from.pnrLow[row];
+        to.user[toRow] = from.user[row];
+        to.train[toRow] = from.train[row];
+        to.name[toRow] = from.name[row];
+        to.boarding[toRow] = from.boarding[row];
+        to.alighting[toRow] = from.alighting[row];
+        to.age[toRow] = from.age[row];
+        to.ticketClass[toRow] = from.ticketClass[row];
+        to.status[toRow] = from.status[row];
+        to.fare[toRow] = from.fare[row];
+        to.seat[toRow] = from.seat[row];
+        to.wl[toRow] = from.wl[row];
+        to.rac[toRow] = from.rac[row];
+        to.bookingDate[toRow] = from.bookingDate[row];
+        to.journeyDate[toRow] = from.journeyDate[row];
+    }
+
+    /**
+     * Re-encodes every row into fresh dictionaries, keeping only the values some row still uses.
+     * Codes change, so the indexes keyed by code (PNR table, user links) are rebuilt after this.
+     */
+    private void recode() {
+        StringDictionary newUsers = new StringDictionary();
+        StringDictionary newNames = new StringDictionary();
+        StringDictionary newLabels = new StringDictionary();
+        StringDictionary newClasses = new StringDictionary();
+        StringDictionary newStatuses = new StringDictionary();
+        for (String s : FIXED_STATUSES) newStatuses.encode(s);
+        for (int row = 0; row < rows; row++) {
+            if (pnrHigh[row] == 0) pnrLow[row] = newLabels.encode(labels.decode((int) pnrLow[row]));
+            user[row] = newUsers.encode(users.decode(user[row]));
+            train[row] = newLabels.encode(labels.decode(train[row]));
+            name[row] = newNames.encode(names.decode(name[row]));
+            boarding[row] = newLabels.encode(labels.decode(boarding[row]));
+            alighting[row] = newLabels.encode(labels.decode(alighting[row]));
+            ticketClass[row] = (byte) newClasses.encode(classes.decode(ticketClass[row]));
+            status[row] = (byte) newStatuses.encode(statuses.decode(status[row]));
+            if (bookingDate[row] <= TEXT_DATE) bookingDate[row] = TEXT_DATE - newLabels.encode(labels.decode(TEXT_DATE - bookingDate[row]));
+            if (journeyDate[row] <= TEXT_DATE) journeyDate[row] = TEXT_DATE - newLabels.encode(labels.decode(TEXT_DATE - journeyDate[row]));
+        }
+        users = newUsers;
+        names = newNames;
+        labels = newLabels;
+        classes = newClasses;
+        statuses = newStatuses;
+    }
+
+    /** Codes handed out by the user, name and label dictionaries; for tests of compaction. */
+    int dictionaryCodes() {
+        return users.size() + names.size() + labels.size();
+    }
+
+    private void checkLive(int row) {
+        if (row < 0 || row >= rows || status[row] == REMOVED) throw new IndexOutOfBoundsException("No ticket at row " + row);
+    }
+
+    private static byte smallCode(StringDictionary table, String value) {
+        int code = table.encode(value);
+        if (code > MAX_CODE) throw new IllegalStateException("More than " + MAX_CODE + " distinct values for a byte column: " + value);
+        return (byte) code;
+    }
+
+    // ======= PNR Index =======
+    private void rebuildPnrIndex() {
+        pnrTable = new int[pnrHigh.length * 2];
+        for (int row = 0; row < rows; row++) {
+            if (status[row] != REMOVED) indexPnr(row);
+        }
+    }
+
+    private void indexPnr(int row) {
+        int mask = pnrTable.length - 1;
+        int slot = hash(pnrHigh[row], pnrLow[row]) & mask;
+        while (pnrTable[slot] != 0) slot = (slot + 1) & mask;
+        pnrTable[slot] = row + 1;
+    }
+
+    private static int hash(long high, long low) {
+        long h = (high * 0x9E3779B97F4A7C15L) ^ low;
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+
+    // ======= PNR Packing =======
+    private static boolean packable(String pnr) {
+        if (pnr == null || pnr.isEmpty() || pnr.length() > PNR_MAX_LENGTH) return false;
+        for (int i = 0; i < pnr.length(); i++) {
+            if (PNR_ALPHABET.indexOf(pnr.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    /** Characters [from, from + 16) as nibbles, first character in the top nibble; 0 past the end. */
+    private static long pack(String pnr, int from) {
+        long packed = 0;
+        for (int i = 0; i < 16; i++) {
+            int c = from + i < pnr.length() ? PNR_ALPHABET.indexOf(pnr.charAt(from + i)) + 1 : 0;
+            packed = (packed << 4) | c;
+        }
+        return packed;
+    }
+
+    /** Appends the characters of one packed half; false if the text ended inside it. */
+    private static boolean unpack(long packed, StringBuilder sb) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            int c = (int) (packed >>> shift) & 0xF;
+            if (c == 0) return false;
+            sb.append(PNR_ALPHABET.charAt(c - 1));
+        }
+        return true;
+    }
+
+    // ======= Dates =======
+    /** A yyyy-MM-dd date as its epoch day; any other text (null and blank included) as a label code. */
+    private int encodeDate(String date) {
+        int day = isoDay(date);
+        return day != NO_DAY ? day : TEXT_DATE - labels.encode(date);
+    }
+
+    private String decodeDate(int value) {
+        return value > TEXT_DATE ? LocalDate.ofEpochDay(value).toString() : labels.decode(TEXT_DATE - value);
+    }
+
+    /** Epoch day of a stored date; dates kept as text are parsed leniently (trimmed), as booking code does. */
+    private int day(int value) {
+        if (value > TEXT_DATE) return value;
+        String text = labels.decode(TEXT_DATE - value);
+        return text == null ? NO_DAY : isoDay(text.trim());
+    }
+
+    /** Epoch day of text that is exactly yyyy-MM-dd (so it prints back the same), else NO_DAY. */
+    private static int isoDay(String s) {
+        if (s == null || s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return NO_DAY;
+        for (int i = 0; i < 10; i++) {
+            if (i != 4 && i != 7 && (s.charAt(i) < '0' || s.charAt(i) > '9')) return NO_DAY;
+        }
+        try {
+            LocalDate date = LocalDate.of(Integer.parseInt(s, 0, 4, 10), Integer.parseInt(s, 5, 7, 10),
+                    Integer.parseInt(s, 8, 10, 10));
+            return (int) date.toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DAY;
+        }
+    }
+}
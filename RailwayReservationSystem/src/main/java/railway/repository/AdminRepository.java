@@ -0,0 +1,50 @@
+package railway.repository;
+
+import railway.auth.Admin;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Admins keyed by admin ID with a username index for login.
+ * Checkpointed in the background and exported to admin.xlsx.
+ */
+public class AdminRepository extends WriteBehindRepository<Admin> {
+    private final HashMap<String, Admin> byUsername = new HashMap<>();
+
+    @Override
+    protected String idOf(Admin admin) {
+        return admin.getUserId();
+    }
+
+    @Override
+    protected synchronized void load(ArrayList<Admin> loaded) {
+        super.load(loaded);
+        byUsername.clear();
+        for (Admin a : loaded) byUsername.put(a.getUsername(), a);
+    }
+
+    @Override
+    public synchronized void save(Admin admin) {
+        super.save(admin);
+        byUsername.put(admin.getUsername(), admin);
+    }
+
+    @Override
+    public synchronized boolean delete(String adminId) {
+        Admin a = findById(adminId);
+        if (a != null) byUsername.remove(a.getUsername());
+        return super.delete(adminId);
+    }
+
+    public synchronized Admin findByUsername(String username) {
+        return byUsername.get(username);
+    }
+
+    @Override
+    protected void persist(FileManager fileManager, ArrayList<Admin> snapshot) throws IOException {
+        fileManager.saveAdmins(snapshot);
+    }
+}
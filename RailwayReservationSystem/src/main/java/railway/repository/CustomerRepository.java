@@ -0,0 +1,50 @@
+package railway.repository;
+
+import railway.auth.Customer;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Customers keyed by user ID with a username index for login.
+ * Checkpointed in the background and exported to users.xlsx.
+ */
+public class CustomerRepository extends WriteBehindRepository<Customer> {
+    private final HashMap<String, Customer> byUsername = new HashMap<>();
+
+    @Override
+    protected String idOf(Customer customer) {
+        return customer.getUserId();
+    }
+
+    @Override
+    protected synchronized void load(ArrayList<Customer> loaded) {
+        super.load(loaded);
+        byUsername.clear();
+        for (Customer c : loaded) byUsername.put(c.getUsername(), c);
+    }
+
+    @Override
+    public synchronized void save(Customer customer) {
+        super.save(customer);
+        byUsername.put(customer.getUsername(), customer);
+    }
+
+    @Override
+    public synchronized boolean delete(String userId) {
+        Customer c = findById(userId);
+        if (c != null) byUsername.remove(c.getUsername());
+        return super.delete(userId);
+    }
+
+    public synchronized Customer findByUsername(String username) {
+        return byUsername.get(username);
+    }
+
+    @Override
+    protected void persist(FileManager fileManager, ArrayList<Customer> snapshot) throws IOException {
+        fileManager.saveUsers(snapshot);
+    }
+}
@@ -0,0 +1,227 @@
+package railway.repository;
+
+import railway.entities.ClassSeatInfo;
+import railway.entities.PNRRecord;
+import railway.entities.Train;
+import railway.model.PNRGenerator;
+import railway.model.Ticket;
+import railway.storage.CheckpointFile;
+import railway.storage.FileManager;
+import railway.storage.PNRIndexFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads all data once at startup and serves all reads from memory.
+ *
+ * Startup restores the last binary checkpoint and replays only the journal segments written
+ * after it. If that checkpoint is unreadable it uses the previous generation, whose journal
+ * tail is still on disk; only without either does it fall back to the workbooks plus the whole
+ * journal. Tickets go through the reservation journal, and the per-journey seat maps and RAC/WL
+ * queues of the {@link JourneyInventory} are rebuilt from them at startup. The
+ * {@link WriteBehindFlusher} periodically folds everything into a new checkpoint; journal
+ * segments are dropped once two checkpoints cover them. The workbooks are written only on export.
+ *
+ * PNR records are written to the {@link PNRIndexFile} as they change, so at startup the PNR
+ * repository takes the checkpoint's records and then every record the index gained after that
+ * checkpoint. A booking whose journal record is durable but whose PNR record never got written
+ * gets one rebuilt from the ticket. The index itself is rebuilt only when it fails validation,
+ * and then from those merged records.
+ */
+public class DataStore {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2000;
+    /** Journal tail size that triggers a checkpoint even when no repository is dirty. */
+    public static final long JOURNAL_CHECKPOINT_BYTES = 16L * 1024 * 1024;
+
+    private final FileManager fileManager;
+    private final TrainRepository trains;
+    private final CustomerRepository customers = new CustomerRepository();
+    private final AdminRepository admins = new AdminRepository();
+    private final PNRRepository pnrs = new PNRRepository();
+    private final TicketRepository tickets;
+    private final JourneyInventory inventory = new JourneyInventory();
+    private final PNRIndexFile pnrIndex;
+    private final PNRGenerator pnrGenerator;
+    private final WriteBehindFlusher flusher;
+    private long checkpointGeneration = -1; // of checkpoint.bin; -1 while it is missing or unreadable
+    private long previousGeneration;        // of checkpoint.bin.prev, the fallback; 0 if there is none
+
+    private DataStore(FileManager fileManager, long flushIntervalMillis) throws IOException {
+        this.fileManager = fileManager;
+        this.trains = new TrainRepository(inventory);
+        this.tickets = new TicketRepository(fileManager.getJournal());
+        this.pnrIndex = fileManager.getPNRIndex();
+        this.pnrGenerator = new PNRGenerator(fileManager.getNodeLease().getNodeId());
+        this.flusher = new WriteBehindFlusher(this, flushIntervalMillis);
+    }
+
+    public static DataStore load(FileManager fileManager) throws IOException {
+        return load(fileManager, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public static DataStore load(FileManager fileManager, long flushIntervalMillis) throws IOException {
+        DataStore store = new DataStore(fileManager, flushIntervalMillis);
+        CheckpointFile checkpointFile = fileManager.getCheckpointFile();
+        CheckpointFile.Snapshot checkpoint = null;
+        try {
+            checkpoint = checkpointFile.read();
+            if (checkpoint != null) store.checkpointGeneration = checkpoint.journalGeneration;
+        } catch (IOException e) {
+            System.out.println("Warning: checkpoint unreadable (" + e.getMessage() + "), trying the previous one.");
+        }
+        if (checkpoint == null) {
+            // Missing (crash between the two renames of a write) or unreadable: the previous generation
+            try {
+                checkpoint = checkpointFile.readPrevious();
+                if (checkpoint != null) store.previousGeneration = checkpoint.journalGeneration;
+            } catch (IOException e) {
+                System.out.println("Warning: previous checkpoint unreadable (" + e.getMessage() + "), loading workbooks and journal instead.");
+            }
+        }
+
+        ArrayList<Ticket> loadedTickets;
+        long pnrIndexFrom = 0; // index records from here on may be newer than the PNRs loaded below
+        if (checkpoint != null) {
+            if (checkpoint.pnrIndexId == store.pnrIndex.dataId()) pnrIndexFrom = checkpoint.pnrIndexLength;
+            store.trains.load(checkpoint.trains);
+            store.customers.load(checkpoint.customers);
+            store.admins.load(checkpoint.admins);
+            store.pnrs.load(checkpoint.pnrs);
+            loadedTickets = fileManager.replayJournal(checkpoint.tickets, checkpoint.journalGeneration);
+        } else {
+            store.trains.load(fileManager.loadTrains());
+            store.customers.load(fileManager.loadUsers());
+            store.admins.load(fileManager.loadAdmins());
+            store.pnrs.load(fileManager.loadPNRRecords());
+            loadedTickets = fileManager.loadReservations();
+        }
+        if (store.pnrIndex.isValid()) {
+            for (PNRRecord r : store.pnrIndex.readFrom(pnrIndexFrom)) store.pnrs.save(r);
+        }
+        store.tickets.load(loadedTickets);
+        store.attachTickets(loadedTickets);
+        store.restoreMissingPNRs(loadedTickets);
+        if (!store.pnrIndex.isValid()) {
+            System.out.println("PNR index missing or corrupt, rebuilding...");
+            store.rebuildPNRIndex();
+        }
+        if (checkpoint == null) store.checkpoint(); // next start skips the workbooks
+        store.flusher.start();
+        return store;
+    }
+
+    /**
+     * Rebuilds the journey inventory from the loaded tickets: confirmed tickets claim their seats
+     * over the segments they travel, RAC/WL tickets rejoin their queues (FileManager returns them
+     * in queue order) and stay live objects in the ticket repository. Tickets of journeys that
+     * have already run stay in the repository but hold no inventory.
+     */
+    private void attachTickets(ArrayList<Ticket> loaded) {
+        for (Ticket t : loaded) {
+            Train train = trains.findById(t.getTrainNumber());
+            if (train == null) continue;
+            ClassSeatInfo info = inventory.classFor(train, JourneyInventory.journeyDateOf(t), t.getTicketClass());
+            if (info == null) continue;
+            if ("CONFIRMED".equalsIgnoreCase(t.getStatus())) {
+                int seat = t.getSeatNum();
+                int[] range = info.segmentsOf(t);
+                if (seat >= 1 && seat <= info.totalSeats && !info.segments.claimSpecific(seat, range[0], range[1])) {
+                    System.out.println("Warning: seat " + seat + " of " + t.getPnrNumber() + " is held by another ticket.");
+                }
+                info.assignTicket(t);
+            } else if ("RAC".equalsIgnoreCase(t.getStatus()) || "WAITLIST".equalsIgnoreCase(t.getStatus())) {
+                info.assignTicket(t);
+                tickets.attachQueued(t);
+            }
+        }
+    }
+
+    /**
+     * Gives a PNR record to every loaded ticket that has none: its booking reached the journal
+     * but the process stopped before the PNR was written.
+     */
+    private void restoreMissingPNRs(ArrayList<Ticket> loaded) throws IOException {
+        ArrayList<PNRRecord> restored = new ArrayList<>();
+        for (Ticket t : loaded) {
+            if (pnrs.findById(t.getPnrNumber()) == null) restored.add(PNRRecord.forTicket(t));
+        }
+        if (restored.isEmpty()) return;
+        pnrs.saveAll(restored);
+        if (pnrIndex.isValid()) pnrIndex.putAll(restored);
+    }
+
+    public FileManager getFileManager() { return fileManager; }
+    public TrainRepository trains() { return trains; }
+    public CustomerRepository customers() { return customers; }
+    public AdminRepository admins() { return admins; }
+    public PNRRepository pnrs() { return pnrs; }
+    public TicketRepository tickets() { return tickets; }
+    /** Seats and RAC/WL queues per (train, journey date, class). */
+    public JourneyInventory inventory() { return inventory; }
+    public PNRIndexFile pnrIndex() { return pnrIndex; }
+    /** The one PNR generator of this process; share it, never create a second one on the same node ID. */
+    public PNRGenerator pnrGenerator() { return pnrGenerator; }
+
+    /** Regenerates the on-disk PNR index from the PNR repository (checkpoint, index tail and journal, merged at load). */
+    public void rebuildPNRIndex() throws IOException {
+        pnrIndex.rebuild(pnrs.findAll());
+    }
+
+    /** Checkpoints dirty repositories now and forces the journal to disk. */
+    public void flush() throws IOException {
+        flusher.flushAll();
+        fileManager.getJournal().sync();
+    }
+
+    // ========== CHECKPOINTS ==========
+    /** Checkpoints if any repository is dirty or the journal tail holds at least {@code journalBytes}. */
+    synchronized boolean checkpointIfNeeded(long journalBytes) throws IOException {
+        boolean dirty = trains.isDirty() || customers.isDirty() || admins.isDirty() || pnrs.isDirty();
+        if (!dirty && fileManager.getJournal().currentSegmentSize() < journalBytes) return false;
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * Writes a full checkpoint. The one it replaces becomes the previous generation, and journal
+     * segments are deleted only up to that one, so either checkpoint can be replayed from.
+     * If the write fails the repositories stay dirty and the old checkpoints and journal are kept.
+     */
+    public synchronized void checkpoint() throws IOException {
+        CheckpointFile.Snapshot snapshot = new CheckpointFile.Snapshot();
+        // Taken before the PNRs: anything the index gains from here on is folded in again at load
+        snapshot.pnrIndexId = pnrIndex.dataId();
+        snapshot.pnrIndexLength = pnrIndex.length();
+        snapshot.trains = trains.takeSnapshot();
+        snapshot.customers = customers.takeSnapshot();
+        snapshot.admins = admins.takeSnapshot();
+        snapshot.pnrs = pnrs.takeSnapshot();
+        snapshot.journalGeneration = tickets.snapshotAndRotate(snapshot);
+        try {
+            pnrIndex.force();
+            // An unreadable current checkpoint is overwritten rather than kept as the fallback
+            fileManager.getCheckpointFile().write(snapshot, checkpointGeneration >= 0);
+        } catch (IOException e) {
+            for (WriteBehindRepository<?> repo : List.of(trains, customers, admins, pnrs)) repo.markDirty();
+            throw e;
+        }
+        if (checkpointGeneration >= 0) previousGeneration = checkpointGeneration;
+        checkpointGeneration = snapshot.journalGeneration;
+        fileManager.getJournal().discardBefore(previousGeneration);
+    }
+
+    // ========== EXPORT ==========
+    /** Writes every workbook (trains, users, admins, PNRs, reservations) from memory. */
+    public void exportAll() throws IOException {
+        for (WriteBehindRepository<?> repo : List.of(trains, customers, admins, pnrs)) repo.export(fileManager);
+        tickets.export(fileManager);
+    }
+
+    /** Stops the flusher, writes a final checkpoint and closes the journal. */
+    public void shutdown() throws IOException {
+        flusher.shutdown();
+        fileManager.close();
+    }
+}
@@ -0,0 +1,269 @@
+package railway.repository;
+
+import railway.entities.ClassSeatInfo;
+import railway.entities.Train;
+import railway.exception.InvalidInputException;
+import railway.model.Ticket;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Seat inventory per (train, journey date, class).
+ *
+ * The ClassSeatInfo objects of a {@link Train} are templates. The seats, confirmed count and
+ * RAC/WL queues of one journey live in a shard, created from the templates the first time that
+ * (train, date) is touched. Bookings are taken from today up to {@code horizonDays} ahead.
+ * Shards of dates that have passed are dropped on the first access of a new day, so memory
+ * follows the open booking window rather than history; past journeys stay in the ticket
+ * repository and PNR records.
+ *
+ * Shards have no file of their own: startup rebuilds them from the loaded tickets (confirmed
+ * seats and RAC/WL queue order), which the journal already keeps durable.
+ *
+ * The inventory also owns the booking locks: one stripe per (train, date, class) hash, shared by
+ * every booking engine over this store. Shard classes are read and changed only under their
+ * stripe. When a train is updated its live shards are rebuilt from the new templates under
+ * those stripes and take their bookings along (see {@link #reconcile}).
+ */
+public class JourneyInventory {
+    public static final int DEFAULT_HORIZON_DAYS = 120;
+    public static final int DEFAULT_STRIPES = 256;
+
+    /** The classes of one train on one journey date, tracking seats over the train's stops. */
+    public static class Shard {
+        private final String trainNumber;
+        private final LocalDate journeyDate;
+        private final HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+
+        Shard(Train train, LocalDate journeyDate) {
+            this.trainNumber = train.getTrainNumber();
+            this.journeyDate = journeyDate;
+            for (Map.Entry<String, ClassSeatInfo> e : train.getSeatClasses().entrySet()) {
+                classes.put(e.getKey(), e.getValue().emptyCopy(train.getStops()));
+            }
+        }
+
+        public String getTrainNumber() { return trainNumber; }
+        public LocalDate getJourneyDate() { return journeyDate; }
+        /** Class types of this shard; the map itself is fixed once the shard exists. */
+        public HashMap<String, ClassSeatInfo> getClasses() { return classes; }
+    }
+
+    private final int horizonDays;
+    private final StripedLocks locks;
+    private final ConcurrentHashMap<String, Shard> shards = new ConcurrentHashMap<>();
+    private volatile LocalDate today = LocalDate.now();
+
+    public JourneyInventory() {
+        this(DEFAULT_HORIZON_DAYS);
+    }
+
+    public JourneyInventory(int horizonDays) {
+        this(horizonDays, DEFAULT_STRIPES);
+    }
+
+    public JourneyInventory(int horizonDays, int stripes) {
+        this.horizonDays = horizonDays;
+        this.locks = new StripedLocks(stripes);
+    }
+
+    public int getHorizonDays() { return horizonDays; }
+
+    /** The lock to hold while reading or changing that journey class. */
+    public ReentrantLock lockFor(String trainNumber, LocalDate journeyDate, String classType) {
+        return locks.lockFor(trainNumber, journeyDate, classType);
+    }
+
+    // ========== LOOKUP ==========
+    /**
+     * The class to book on that journey, creating its shard if needed. Call under its lock.
+     * Throws if the date is outside the booking horizon, the train has no such class, or the
+     * caller's train is older than the shard's (its stops changed meanwhile).
+     */
+    public ClassSeatInfo forBooking(Train train, LocalDate journeyDate, String classType) throws InvalidInputException {
+        LocalDate now = currentDate();
+        if (journeyDate.isBefore(now)) throw new InvalidInputException("Journey date has already passed.");
+        if (!journeyDate.isBefore(now.plusDays(horizonDays))) {
+            throw new InvalidInputException("Bookings open only " + horizonDays + " days ahead.");
+        }
+        ClassSeatInfo info = shard(train, journeyDate).classes.get(classType);
+        if (info == null) throw new InvalidInputException("Class not found for this train.");
+        if (!info.getStops().equals(train.getStops())) {
+            throw new InvalidInputException("Train " + train.getTrainNumber() + " was just updated; please try again.");
+        }
+        return info;
+    }
+
+    /**
+     * The class of a journey that has bookings to restore or cancel, creating its shard if
+     * needed (the horizon is not checked); null if the date has passed or there is no such class.
+     */
+    public ClassSeatInfo classFor(Train train, LocalDate journeyDate, String classType) {
+        if (journeyDate.isBefore(currentDate())) return null;
+        return shard(train, journeyDate).classes.get(classType);
+    }
+
+    /**
+     * Read-only view for seat maps and availability: the live class if its shard exists,
+     * otherwise an empty copy of the template that is not kept. Null if there is no such class.
+     */
+    public ClassSeatInfo view(Train train, LocalDate journeyDate, String classType) {
+        Shard shard = shards.get(key(train.getTrainNumber(), journeyDate));
+        if (shard != null && !journeyDate.isBefore(currentDate())) return shard.classes.get(classType);
+        ClassSeatInfo template = train.getSeatClasses().get(classType);
+        return template == null ? null : template.emptyCopy(train.getStops());
+    }
+
+    /** Live shards of one journey date (chart preparation). */
+    public ArrayList<Shard> shardsOn(LocalDate journeyDate) {
+        ArrayList<Shard> result = new ArrayList<>();
+        for (Shard s : shards.values()) if (s.journeyDate.equals(journeyDate)) result.add(s);
+        return result;
+    }
+
+    /** Every live shard. */
+    public ArrayList<Shard> shards() {
+        currentDate();
+        return new ArrayList<>(shards.values());
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    private Shard shard(Train train, LocalDate journeyDate) {
+        return shards.computeIfAbsent(key(train.getTrainNumber(), journeyDate), k -> new Shard(train, journeyDate));
+    }
+
+    private static String key(String trainNumber, LocalDate journeyDate) {
+        return trainNumber + "|" + journeyDate;
+    }
+
+    // ========== TRAIN UPDATES ==========
+    /**
+     * Rebuilds the live shards of an updated train from its new class templates, moving each
+     * journey's bookings into the new classes (bitmaps resized to the new capacity, fares and
+     * RAC/WL limits from the new template). Classes the train no longer has are dropped.
+     *
+     * All or nothing, under the locks of every class involved: the update is refused if on some
+     * journey a class to be dropped still has bookings, a booked seat is beyond the new capacity,
+     * or the stops change while bookings exist (their segments would no longer mean the same stretch).
+     * Synchronized so that two updates never take the stripes in different orders.
+     */
+    public synchronized void reconcile(Train train) throws InvalidInputException {
+        ArrayList<Shard> affected = new ArrayList<>();
+        for (Shard s : shards.values()) {
+            if (s.trainNumber.equals(train.getTrainNumber())) affected.add(s);
+        }
+        if (affected.isEmpty()) return;
+
+        ArrayList<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (Shard s : affected) {
+                TreeSet<String> classTypes = new TreeSet<>(s.classes.keySet());
+                classTypes.addAll(train.getSeatClasses().keySet());
+                for (String classType : classTypes) {
+                    ReentrantLock lock = lockFor(s.trainNumber, s.journeyDate, classType);
+                    lock.lock();
+                    held.add(lock);
+                }
+            }
+            for (Shard s : affected) checkUpdate(s, train);
+            for (Shard s : affected) {
+                Shard updated = new Shard(train, s.journeyDate);
+                for (Map.Entry<String, ClassSeatInfo> e : s.classes.entrySet()) {
+                    ClassSeatInfo target = updated.classes.get(e.getKey());
+                    if (target != null && e.getValue().hasBookings()) e.getValue().moveBookingsTo(target);
+                }
+                shards.replace(key(s.trainNumber, s.journeyDate), s, updated);
+            }
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) held.get(i).unlock();
+        }
+    }
+
+    private static void checkUpdate(Shard shard, Train train) throws InvalidInputException {
+        for (Map.Entry<String, ClassSeatInfo> e : shard.classes.entrySet()) {
+            ClassSeatInfo current = e.getValue();
+            if (!current.hasBookings()) continue;
+            String journey = e.getKey() + " on " + shard.journeyDate;
+            ClassSeatInfo template = train.getSeatClasses().get(e.getKey());
+            if (template == null) {
+                throw new InvalidInputException(journey + " has bookings; the class cannot be removed.");
+            }
+            if (!current.getStops().equals(train.getStops())) {
+                throw new InvalidInputException(journey + " has bookings; the stops cannot change before that journey.");
+            }
+            int highest = current.seats.highestBooked();
+            if (highest > template.totalSeats) {
+                throw new InvalidInputException(journey + ": seat " + highest + " is booked, more than "
+                        + template.totalSeats + " seats.");
+            }
+        }
+    }
+
+    /** Whether any live journey of the train has a booked seat or a queued ticket (read without the locks). */
+    public boolean hasBookings(String trainNumber) {
+        for (Shard s : shards.values()) {
+            if (!s.trainNumber.equals(trainNumber)) continue;
+            for (ClassSeatInfo info : s.classes.values()) if (info.hasBookings()) return true;
+        }
+        return false;
+    }
+
+    /** Drops every shard of a deleted train; its tickets stay in the ticket repository. */
+    public void dropTrain(String trainNumber) {
+        shards.values().removeIf(s -> s.trainNumber.equals(trainNumber));
+    }
+
+    // ========== EVICTION ==========
+    /** Today's date; the first call on a new day drops the shards of the days before. */
+    private LocalDate currentDate() {
+        LocalDate now = LocalDate.now();
+        if (now.isAfter(today)) {
+            today = now;
+            evictBefore(now);
+        }
+        return today;
+    }
+
+    /** Drops shards of journeys before {@code date}; returns how many were dropped. */
+    public int evictBefore(LocalDate date) {
+        int before = shards.size();
+        shards.values().removeIf(s -> s.journeyDate.isBefore(date));
+        return before - shards.size();
+    }
+
+    // ========== JOURNEY DATES ==========
+    /** Parses a journey date (yyyy-MM-dd); throws if it is missing or malformed. */
+    public static LocalDate parseDate(String journeyDate) throws InvalidInputException {
+        try {
+            return LocalDate.parse(journeyDate == null ? "" : journeyDate.trim());
+        } catch (DateTimeParseException e) {
+            throw new InvalidInputException("Invalid journey date (use YYYY-MM-DD): " + journeyDate);
+        }
+    }
+
+    /**
+     * The journey date of a stored ticket. Tickets written before journey dates were recorded
+     * fall back to their booking date, and failing that to today.
+     */
+    public static LocalDate journeyDateOf(Ticket t) {
+        for (String date : new String[]{t.getJourneyDate(), t.getBookingDate()}) {
+            if (date == null || date.isBlank()) continue;
+            try {
+                return LocalDate.parse(date.trim());
+            } catch (DateTimeParseException e) {
+                // try the next one
+            }
+        }
+        return LocalDate.now();
+    }
+}
@@ -0,0 +1,63 @@
+package railway.repository;
+
+import railway.entities.PNRRecord;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PNR records keyed by PNR number with a user ID index for PNR history.
+ * Checkpointed in the background and exported to pnr_records.xlsx.
+ */
+public class PNRRepository extends WriteBehindRepository<PNRRecord> {
+    private final UserIndex<PNRRecord> byUser = new UserIndex<>(PNRRecord::getUserId);
+
+    @Override
+    protected String idOf(PNRRecord record) {
+        return record.getPnrNumber();
+    }
+
+    @Override
+    protected synchronized void load(ArrayList<PNRRecord> loaded) {
+        super.load(loaded);
+        byUser.clear();
+        for (PNRRecord p : items.values()) byUser.add(p);
+    }
+
+    @Override
+    public synchronized void save(PNRRecord record) {
+        PNRRecord previous = findById(record.getPnrNumber());
+        if (previous != null) byUser.remove(previous);
+        super.save(record);
+        byUser.add(record);
+    }
+
+    /** Saves the records of a group booking together. */
+    public synchronized void saveAll(List<PNRRecord> records) {
+        for (PNRRecord record : records) save(record);
+    }
+
+    @Override
+    public synchronized boolean delete(String pnrNumber) {
+        PNRRecord p = findById(pnrNumber);
+        if (p != null) byUser.remove(p);
+        return super.delete(pnrNumber);
+    }
+
+    /** All PNRs of a user, oldest first. */
+    public synchronized ArrayList<PNRRecord> findByUser(String userId) {
+        return byUser.all(userId);
+    }
+
+    /** A page of a user's PNRs, most recent first. */
+    public synchronized ArrayList<PNRRecord> findRecentByUser(String userId, int offset, int limit) {
+        return byUser.recent(userId, offset, limit);
+    }
+
+    @Override
+    protected void persist(FileManager fileManager, ArrayList<PNRRecord> snapshot) throws IOException {
+        fileManager.savePNRRecords(snapshot);
+    }
+}
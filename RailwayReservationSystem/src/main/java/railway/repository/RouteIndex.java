@@ -0,0 +1,139 @@
+package railway.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Route lookups over normalised station names (trimmed, lower-case, single spaces).
+ *
+ * An exact (source, destination) map answers full-name queries directly. Partial matches
+ * ("contains", as the console search has always behaved) go through an n-gram inverted
+ * index per side: every 1-, 2- and 3-character substring of a station name maps to the
+ * trains that have it. A query intersects the posting lists of its own n-grams, starting
+ * from the shortest, and confirms the survivors with a real contains check, so the work
+ * follows the number of candidate trains rather than the fleet size.
+ * Not thread-safe on its own; {@link TrainRepository} synchronises access.
+ */
+class RouteIndex {
+    private static final int GRAM = 3;
+
+    /** The normalised route each train was indexed under, so it can be removed later. */
+    private static class Route {
+        final String source;
+        final String destination;
+
+        Route(String source, String destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+    }
+
+    private final HashMap<String, Route> routes = new HashMap<>();
+    private final HashMap<String, LinkedHashSet<String>> exact = new HashMap<>();
+    private final HashMap<String, HashSet<String>> sourceGrams = new HashMap<>();
+    private final HashMap<String, HashSet<String>> destinationGrams = new HashMap<>();
+
+    static String normalize(String station) {
+        return station == null ? "" : station.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    void clear() {
+        routes.clear();
+        exact.clear();
+        sourceGrams.clear();
+        destinationGrams.clear();
+    }
+
+    void add(String trainNumber, String source, String destination) {
+        remove(trainNumber);
+        Route route = new Route(normalize(source), normalize(destination));
+        routes.put(trainNumber, route);
+        exact.computeIfAbsent(key(route.source, route.destination), k -> new LinkedHashSet<>()).add(trainNumber);
+        for (String g : grams(route.source)) sourceGrams.computeIfAbsent(g, k -> new HashSet<>()).add(trainNumber);
+        for (String g : grams(route.destination)) destinationGrams.computeIfAbsent(g, k -> new HashSet<>()).add(trainNumber);
+    }
+
+    void remove(String trainNumber) {
+        Route route = routes.remove(trainNumber);
+        if (route == null) return;
+        removePosting(exact, key(route.source, route.destination), trainNumber);
+        for (String g : grams(route.source)) removePosting(sourceGrams, g, trainNumber);
+        for (String g : grams(route.destination)) removePosting(destinationGrams, g, trainNumber);
+    }
+
+    /** Train numbers whose normalised source and destination equal the query exactly. */
+    ArrayList<String> findExact(String source, String destination) {
+        LinkedHashSet<String> hits = exact.get(key(normalize(source), normalize(destination)));
+        return hits == null ? new ArrayList<>() : new ArrayList<>(hits);
+    }
+
+    /** Train numbers whose source contains {@code source} and destination contains {@code destination}. */
+    ArrayList<String> findContaining(String source, String destination) {
+        String src = normalize(source);
+        String dest = normalize(destination);
+
+        ArrayList<Set<String>> postings = new ArrayList<>();
+        if (!collectPostings(sourceGrams, src, postings) || !collectPostings(destinationGrams, dest, postings)) {
+            return new ArrayList<>();
+        }
+        ArrayList<String> result = new ArrayList<>();
+        if (postings.isEmpty()) {
+            // Both sides blank: everything matches, as with String.contains("")
+            result.addAll(routes.keySet());
+            return result;
+        }
+
+        Set<String> smallest = postings.get(0);
+        for (Set<String> p : postings) {
+            if (p.size() < smallest.size()) smallest = p;
+        }
+        candidates:
+        for (String trainNumber : smallest) {
+            for (Set<String> p : postings) {
+                if (p != smallest && !p.contains(trainNumber)) continue candidates;
+            }
+            Route route = routes.get(trainNumber);
+            if (route.source.contains(src) && route.destination.contains(dest)) result.add(trainNumber);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the posting list of every n-gram of the query; false if one is missing (no match possible).
+     * A blank query adds nothing and so does not constrain the result.
+     */
+    private static boolean collectPostings(HashMap<String, HashSet<String>> index, String query, ArrayList<Set<String>> out) {
+        if (query.isEmpty()) return true;
+        int n = Math.min(GRAM, query.length());
+        for (int i = 0; i + n <= query.length(); i++) {
+            HashSet<String> p = index.get(query.substring(i, i + n));
+            if (p == null) return false;
+            out.add(p);
+        }
+        return true;
+    }
+
+    /** Every distinct substring of length 1..GRAM, so queries shorter than GRAM still hit the index. */
+    private static HashSet<String> grams(String s) {
+        HashSet<String> grams = new HashSet<>();
+        for (int n = 1; n <= GRAM; n++) {
+            for (int i = 0; i + n <= s.length(); i++) grams.add(s.substring(i, i + n));
+        }
+        return grams;
+    }
+
+    private static void removePosting(HashMap<String, ? extends Set<String>> index, String key, String trainNumber) {
+        Set<String> p = index.get(key);
+        if (p == null) return;
+        p.remove(trainNumber);
+        if (p.isEmpty()) index.remove(key);
+    }
+
+    private static String key(String source, String destination) {
+        return source + '\u0000' + destination;
+    }
+}
@@ -0,0 +1,38 @@
+package railway.repository;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks shared out by (train, class) or (train, journey date, class) hash.
+ * Bookings for the same key always get the same lock; different trains or dates almost always
+ * get different ones, so they run in parallel without a lock object per class.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /** {@code stripeCount} is rounded up to a power of two. */
+    public StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) stripes[i] = new ReentrantLock();
+        mask = size - 1;
+    }
+
+    public ReentrantLock lockFor(String trainNumber, String classType) {
+        int h = trainNumber.hashCode() * 31 + classType.hashCode();
+        h ^= h >>> 16; // spread high bits into the masked range
+        return stripes[h & mask];
+    }
+
+    public ReentrantLock lockFor(String trainNumber, LocalDate journeyDate, String classType) {
+        int h = (trainNumber.hashCode() * 31 + journeyDate.hashCode()) * 31 + classType.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & mask];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,196 @@
+package railway.repository;
+
+import railway.model.Ticket;
+import railway.model.TicketStore;
+import railway.storage.CheckpointFile;
+import railway.storage.FileManager;
+import railway.storage.ReservationJournal;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Active tickets keyed by PNR number, held in a column-oriented {@link TicketStore}.
+ * Reads hand out Ticket objects built from the columns, except for tickets waiting in a RAC or
+ * waitlist queue of the journey inventory: those stay live objects, because the queue updates
+ * their position and promotes them in place, and every read returns that same object.
+ *
+ * Unlike the other repositories this one is not written behind: every change is queued on
+ * the reservation journal in the same step that makes it visible, so journal order matches
+ * the order of changes. Mutators return the journal's future; callers wait on it (outside
+ * their own locks) before telling anyone the change is done.
+ */
+public class TicketRepository {
+    private TicketStore store = new TicketStore();
+    private final HashMap<String, Ticket> queued = new HashMap<>(); // RAC/WL tickets held by inventory queues
+    private final ReservationJournal journal;
+
+    public TicketRepository(ReservationJournal journal) {
+        this.journal = journal;
+    }
+
+    synchronized void load(ArrayList<Ticket> loaded) {
+        store = new TicketStore();
+        queued.clear();
+        for (Ticket t : loaded) store.add(t);
+    }
+
+    /** Called while loading for each ticket put back into a RAC/WL queue. */
+    synchronized void attachQueued(Ticket ticket) {
+        queued.put(ticket.getPnrNumber(), ticket);
+    }
+
+    public synchronized Ticket findByPnr(String pnrNumber) {
+        int row = store.rowOf(pnrNumber);
+        return row < 0 ? null : ticketAt(row);
+    }
+
+    /** Every active ticket, in booking order. Builds an object per ticket: meant for exports and admin listings. */
+    public synchronized ArrayList<Ticket> findAll() {
+        ArrayList<Ticket> all = new ArrayList<>(store.size());
+        for (int row = store.nextRow(0); row >= 0; row = store.nextRow(row + 1)) all.add(ticketAt(row));
+        return all;
+    }
+
+    /**
+     * Active tickets travelling on a date. A ticket without a journey date counts on its booking
+     * date, as in {@link JourneyInventory#journeyDateOf}.
+     */
+    public synchronized ArrayList<Ticket> findByJourneyDate(LocalDate journeyDate) {
+        int wanted = (int) journeyDate.toEpochDay();
+        int today = (int) LocalDate.now().toEpochDay();
+        ArrayList<Ticket> result = new ArrayList<>();
+        for (int row = store.nextRow(0); row >= 0; row = store.nextRow(row + 1)) {
+            int day = store.journeyDay(row);
+            if (day == TicketStore.NO_DAY) day = store.bookingDay(row);
+            if (day == TicketStore.NO_DAY) day = today;
+            if (day == wanted) result.add(ticketAt(row));
+        }
+        return result;
+    }
+
+    /** All active tickets of a user, oldest booking first. */
+    public synchronized ArrayList<Ticket> findByUser(String userId) {
+        ArrayList<Ticket> all = findRecentByUser(userId, 0, Integer.MAX_VALUE);
+        Collections.reverse(all);
+        return all;
+    }
+
+    /** A page of a user's active tickets, most recent booking first. */
+    public synchronized ArrayList<Ticket> findRecentByUser(String userId, int offset, int limit) {
+        ArrayList<Ticket> page = new ArrayList<>();
+        int row = store.latestOfUser(userId);
+        for (int skipped = 0; row >= 0 && skipped < offset; skipped++) row = store.olderOfUser(row);
+        for (; row >= 0 && page.size() < limit; row = store.olderOfUser(row)) page.add(ticketAt(row));
+        return page;
+    }
+
+    public synchronized int countByUser(String userId) {
+        return store.countOfUser(userId);
+    }
+
+    public synchronized int count() {
+        return store.size();
+    }
+
+    /** Number of tickets with the status, ignoring case; a scan of the status column. */
+    public synchronized int countWithStatus(String status) {
+        boolean[] match = store.statusesMatching(status);
+        int count = 0;
+        for (int row = store.nextRow(0); row >= 0; row = store.nextRow(row + 1)) {
+            if (match[store.statusCode(row)]) count++;
+        }
+        return count;
+    }
+
+    /** Sum of the fares of every ticket whose status is not the given one (ignoring case). */
+    public synchronized double fareExcludingStatus(String status) {
+        boolean[] match = store.statusesMatching(status);
+        double fares = 0;
+        for (int row = store.nextRow(0); row >= 0; row = store.nextRow(row + 1)) {
+            if (!match[store.statusCode(row)]) fares += store.fare(row);
+        }
+        return fares;
+    }
+
+    public synchronized CompletableFuture<Void> book(Ticket ticket) throws IOException {
+        CompletableFuture<Void> durable = journal.appendBooking(ticket);
+        put(ticket);
+        return durable;
+    }
+
+    /** Adds all tickets of a group booking with a single journal record. */
+    public synchronized CompletableFuture<Void> bookAll(List<Ticket> group) throws IOException {
+        CompletableFuture<Void> durable = journal.appendGroupBooking(group);
+        for (Ticket ticket : group) put(ticket);
+        return durable;
+    }
+
+    private void put(Ticket ticket) {
+        int previous = store.rowOf(ticket.getPnrNumber());
+        if (previous >= 0) store.remove(previous);
+        store.add(ticket);
+        if (isQueued(ticket)) queued.put(ticket.getPnrNumber(), ticket);
+        else queued.remove(ticket.getPnrNumber());
+    }
+
+    /** Removes a ticket; returns null if there is no such ticket. */
+    public synchronized CompletableFuture<Void> cancel(String pnrNumber) throws IOException {
+        int row = store.rowOf(pnrNumber);
+        if (row < 0) return null;
+        CompletableFuture<Void> durable = journal.appendCancel(pnrNumber);
+        store.remove(row);
+        queued.remove(pnrNumber);
+        return durable;
+    }
+
+    /** Writes reservations.xlsx; bookings wait until the export is done. */
+    public synchronized void export(FileManager fileManager) throws IOException {
+        fileManager.saveReservations(findAll());
+    }
+
+    /**
+     * Copies all tickets into the snapshot and starts a new journal segment in the same step,
+     * so the copy holds exactly the events before the returned generation. The copy is a
+     * compacted set of columns, so the checkpoint is written without holding this repository.
+     */
+    synchronized long snapshotAndRotate(CheckpointFile.Snapshot snapshot) throws IOException {
+        for (Ticket t : queued.values()) {
+            int row = store.rowOf(t.getPnrNumber());
+            if (row >= 0) store.updateStatus(row, t); // current RAC/WL positions
+        }
+        store.trim(); // drops cancelled rows and the dictionary values only they used
+        snapshot.tickets = store.readOnlyCopy().tickets();
+        if (journal.currentSegmentSize() == 0) return journal.currentGeneration();
+        return journal.rotate();
+    }
+
+    /**
+     * Records the new status/seat/queue position of a ticket that was promoted in place and
+     * journals it. A ticket promoted out of the queues is from then on read from the columns.
+     */
+    public synchronized CompletableFuture<Void> promoted(Ticket ticket) throws IOException {
+        CompletableFuture<Void> durable = journal.appendPromote(ticket);
+        int row = store.rowOf(ticket.getPnrNumber());
+        if (row >= 0) store.updateStatus(row, ticket);
+        if (!isQueued(ticket)) queued.remove(ticket.getPnrNumber());
+        return durable;
+    }
+
+    private Ticket ticketAt(int row) {
+        if (!queued.isEmpty()) {
+            Ticket live = queued.get(store.pnr(row));
+            if (live != null) return live;
+        }
+        return store.get(row);
+    }
+
+    private static boolean isQueued(Ticket t) {
+        return "RAC".equalsIgnoreCase(t.getStatus()) || "WAITLIST".equalsIgnoreCase(t.getStatus());
+    }
+}
@@ -0,0 +1,125 @@
+package railway.repository;
+
+import railway.entities.Train;
+import railway.exception.InvalidInputException;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * All trains keyed by train number, checkpointed in the background and exported to trains.xlsx.
+ * A {@link RouteIndex} over source/destination is kept in step with every save and delete.
+ * Trains hold only the class templates; bookings live in the {@link JourneyInventory}, so seat
+ * changes never make the train workbook dirty. Updating a train rebuilds its live journeys from
+ * the new templates, and deleting it drops them.
+ *
+ * Every save stamps the train with a new version and tells the change listeners, so caches built
+ * from a train (the fare table) notice an edit even when the same Train object was changed in
+ * place and saved again.
+ */
+public class TrainRepository extends WriteBehindRepository<Train> {
+    private final RouteIndex routes = new RouteIndex();
+    private final JourneyInventory inventory; // null for a repository without bookings
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong lastVersion = new AtomicLong(); // shared, so a re-added train never repeats a stamp
+    private final CopyOnWriteArrayList<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public TrainRepository() {
+        this(null);
+    }
+
+    TrainRepository(JourneyInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    @Override
+    protected String idOf(Train train) {
+        return train.getTrainNumber();
+    }
+
+    @Override
+    protected synchronized void load(ArrayList<Train> loaded) {
+        super.load(loaded);
+        routes.clear();
+        versions.clear();
+        for (Train t : loaded) {
+            routes.add(t.getTrainNumber(), t.getSource(), t.getDestination());
+            versions.put(t.getTrainNumber(), lastVersion.incrementAndGet());
+        }
+    }
+
+    @Override
+    public synchronized void save(Train train) {
+        super.save(train);
+        routes.add(train.getTrainNumber(), train.getSource(), train.getDestination());
+        changed(train.getTrainNumber(), lastVersion.incrementAndGet());
+    }
+
+    /**
+     * Replaces a train with its edited version, first moving the bookings of its live journeys
+     * onto the new class templates (see {@link JourneyInventory#reconcile}); refused, with
+     * nothing changed, if that would strand a booking.
+     */
+    public synchronized void update(Train train) throws InvalidInputException {
+        if (inventory != null) inventory.reconcile(train);
+        save(train);
+    }
+
+    /** Whether the train's live journeys hold any booking. */
+    public boolean hasBookings(String trainNumber) {
+        return inventory != null && inventory.hasBookings(trainNumber);
+    }
+
+    @Override
+    public synchronized boolean delete(String trainNumber) {
+        routes.remove(trainNumber);
+        if (inventory != null) inventory.dropTrain(trainNumber);
+        boolean removed = super.delete(trainNumber);
+        if (removed) changed(trainNumber, 0);
+        return removed;
+    }
+
+    /** Stamp of the train's last save, different after every save; 0 for a train not held. Takes no lock. */
+    public long versionOf(String trainNumber) {
+        return versions.getOrDefault(trainNumber, 0L);
+    }
+
+    /** Calls the listener with the train number after every save and delete, under this repository's lock. */
+    public void addChangeListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private void changed(String trainNumber, long version) {
+        if (version == 0) versions.remove(trainNumber);
+        else versions.put(trainNumber, version);
+        for (Consumer<String> listener : listeners) listener.accept(trainNumber);
+    }
+
+    /** Trains running exactly between the two stations (case and spacing ignored). */
+    public synchronized ArrayList<Train> findByRoute(String source, String destination) {
+        return resolve(routes.findExact(source, destination));
+    }
+
+    /** Trains whose source and destination contain the given text (case-insensitive), by train number. */
+    public synchronized ArrayList<Train> searchByRoute(String source, String destination) {
+        return resolve(routes.findContaining(source, destination));
+    }
+
+    private ArrayList<Train> resolve(ArrayList<String> trainNumbers) {
+        Collections.sort(trainNumbers);
+        ArrayList<Train> result = new ArrayList<>(trainNumbers.size());
+        for (String number : trainNumbers) result.add(items.get(number));
+        return result;
+    }
+
+    @Override
+    protected void persist(FileManager fileManager, ArrayList<Train> snapshot) throws IOException {
+        fileManager.saveTrains(snapshot);
+    }
+}
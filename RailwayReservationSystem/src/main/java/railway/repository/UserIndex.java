@@ -0,0 +1,56 @@
+package railway.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index from user ID to that user's entities, kept in booking order.
+ * Lookups cost time proportional to the number of results, not the size of the repository.
+ * Not thread-safe on its own; the owning repository synchronises access.
+ */
+class UserIndex<T> {
+    private final HashMap<String, ArrayList<T>> byUser = new HashMap<>();
+    private final Function<T, String> userIdOf;
+
+    UserIndex(Function<T, String> userIdOf) {
+        this.userIdOf = userIdOf;
+    }
+
+    void clear() {
+        byUser.clear();
+    }
+
+    void add(T item) {
+        byUser.computeIfAbsent(userIdOf.apply(item), k -> new ArrayList<>()).add(item);
+    }
+
+    void remove(T item) {
+        ArrayList<T> list = byUser.get(userIdOf.apply(item));
+        if (list == null) return;
+        // Recent entries are the likeliest to be removed, so search from the end
+        int i = list.lastIndexOf(item);
+        if (i >= 0) list.remove(i);
+        if (list.isEmpty()) byUser.remove(userIdOf.apply(item));
+    }
+
+    /** Every entity of the user, oldest first. */
+    ArrayList<T> all(String userId) {
+        ArrayList<T> list = byUser.get(userId);
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    /** One page of the user's entities, newest first: skips {@code offset} and returns up to {@code limit}. */
+    ArrayList<T> recent(String userId, int offset, int limit) {
+        ArrayList<T> list = byUser.get(userId);
+        ArrayList<T> page = new ArrayList<>();
+        if (list == null) return page;
+        for (int i = list.size() - 1 - offset; i >= 0 && page.size() < limit; i--) page.add(list.get(i));
+        return page;
+    }
+
+    int count(String userId) {
+        ArrayList<T> list = byUser.get(userId);
+        return list == null ? 0 : list.size();
+    }
+}
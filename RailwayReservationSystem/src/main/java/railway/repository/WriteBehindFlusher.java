@@ -0,0 +1,67 @@
+package railway.repository;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread that periodically checkpoints the data store when repositories are dirty
+ * or the journal tail has grown past its threshold.
+ * {@link #shutdown()} stops the schedule and writes one final checkpoint so the next start
+ * has no journal to replay.
+ */
+public class WriteBehindFlusher {
+    private final DataStore store;
+    private final long flushIntervalMillis;
+    private ScheduledExecutorService scheduler;
+
+    public WriteBehindFlusher(DataStore store, long flushIntervalMillis) {
+        this.store = store;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Checkpoints now if anything is pending; serialised with the background flush. */
+    public synchronized void flushAll() throws IOException {
+        store.checkpointIfNeeded(DataStore.JOURNAL_CHECKPOINT_BYTES);
+    }
+
+    private void flushQuietly() {
+        try {
+            flushAll();
+        } catch (IOException e) {
+            System.out.println("Warning: background checkpoint failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /** Stops the background thread and checkpoints everything, including a short journal tail. */
+    public void shutdown() throws IOException {
+        ScheduledExecutorService s;
+        synchronized (this) {
+            s = scheduler;
+            scheduler = null;
+        }
+        if (s != null) {
+            s.shutdown();
+            try {
+                s.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            store.checkpointIfNeeded(1);
+        }
+    }
+}
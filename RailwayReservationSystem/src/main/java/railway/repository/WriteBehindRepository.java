@@ -0,0 +1,72 @@
+package railway.repository;
+
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Base class for in-memory repositories that are persisted in the background.
+ * Entities are kept in insertion order keyed by their id; every change marks the
+ * repository dirty and the {@link WriteBehindFlusher} includes it in the next checkpoint.
+ * The workbook is only written on an explicit {@link #export}.
+ */
+public abstract class WriteBehindRepository<T> {
+    protected final LinkedHashMap<String, T> items = new LinkedHashMap<>();
+    private volatile boolean dirty;
+
+    protected abstract String idOf(T item);
+
+    /** Writes a full snapshot to the entity's workbook. */
+    protected abstract void persist(FileManager fileManager, ArrayList<T> snapshot) throws IOException;
+
+    /** Called while loading; does not mark the repository dirty. */
+    protected synchronized void load(ArrayList<T> loaded) {
+        items.clear();
+        for (T item : loaded) items.put(idOf(item), item);
+    }
+
+    public synchronized T findById(String id) {
+        return items.get(id);
+    }
+
+    public synchronized ArrayList<T> findAll() {
+        return new ArrayList<>(items.values());
+    }
+
+    public synchronized int count() {
+        return items.size();
+    }
+
+    public synchronized void save(T item) {
+        items.put(idOf(item), item);
+        markDirty();
+    }
+
+    public synchronized boolean delete(String id) {
+        boolean removed = items.remove(id) != null;
+        if (removed) markDirty();
+        return removed;
+    }
+
+    /** Call after mutating an entity obtained from this repository in place. */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /** Copies the current state for a checkpoint and clears the dirty flag. */
+    synchronized ArrayList<T> takeSnapshot() {
+        dirty = false;
+        return new ArrayList<>(items.values());
+    }
+
+    /** Writes the current state to the workbook regardless of the dirty flag. */
+    public void export(FileManager fileManager) throws IOException {
+        persist(fileManager, findAll());
+    }
+}
@@ -0,0 +1,216 @@
+package railway.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the reservation API: a streaming writer for responses and a reader
+ * for flat request objects ({"key": "string" | number | true | false | null, ...}).
+ * Nested objects and arrays in requests are rejected; no request needs them.
+ */
+class Json {
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean needComma;
+
+    // ========== WRITER ==========
+    Json beginObject() {
+        separator();
+        out.append('{');
+        needComma = false;
+        return this;
+    }
+
+    Json endObject() {
+        out.append('}');
+        needComma = true;
+        return this;
+    }
+
+    Json beginArray(String name) {
+        key(name);
+        out.append('[');
+        needComma = false;
+        return this;
+    }
+
+    Json endArray() {
+        out.append(']');
+        needComma = true;
+        return this;
+    }
+
+    Json field(String name, String value) {
+        key(name);
+        if (value == null) out.append("null");
+        else quote(value);
+        needComma = true;
+        return this;
+    }
+
+    Json field(String name, long value) {
+        key(name);
+        out.append(value);
+        needComma = true;
+        return this;
+    }
+
+    Json field(String name, double value) {
+        key(name);
+        out.append(Double.isFinite(value) ? Double.toString(value) : "null");
+        needComma = true;
+        return this;
+    }
+
+    Json field(String name, boolean value) {
+        key(name);
+        out.append(value);
+        needComma = true;
+        return this;
+    }
+
+    /** An array element that is a plain number. */
+    Json value(long value) {
+        separator();
+        out.append(value);
+        needComma = true;
+        return this;
+    }
+
+    /** An array element that is a string. */
+    Json value(String value) {
+        separator();
+        if (value == null) out.append("null");
+        else quote(value);
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void key(String name) {
+        separator();
+        quote(name);
+        out.append(':');
+    }
+
+    private void separator() {
+        if (needComma) out.append(',');
+        needComma = false;
+    }
+
+    private void quote(String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    // ========== READER ==========
+    /** Parses a flat JSON object; every value comes back as its string form (null stays null). */
+    static Map<String, String> parseObject(String text) {
+        Reader r = new Reader(text);
+        Map<String, String> result = new HashMap<>();
+        r.skipSpace();
+        r.expect('{');
+        r.skipSpace();
+        if (r.peek() == '}') {
+            r.pos++;
+        } else {
+            while (true) {
+                r.skipSpace();
+                String name = r.string();
+                r.skipSpace();
+                r.expect(':');
+                r.skipSpace();
+                result.put(name, r.scalar());
+                r.skipSpace();
+                if (r.peek() == ',') {
+                    r.pos++;
+                    continue;
+                }
+                r.expect('}');
+                break;
+            }
+        }
+        r.skipSpace();
+        if (r.pos != text.length()) throw new IllegalArgumentException("Trailing data after JSON object");
+        return result;
+    }
+
+    private static class Reader {
+        private final String s;
+        private int pos;
+
+        Reader(String s) {
+            this.s = s;
+        }
+
+        char peek() {
+            if (pos >= s.length()) throw new IllegalArgumentException("Unexpected end of JSON");
+            return s.charAt(pos);
+        }
+
+        void expect(char c) {
+            if (peek() != c) throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+            pos++;
+        }
+
+        void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        String scalar() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw new IllegalArgumentException("Nested values are not supported");
+            int start = pos;
+            while (pos < s.length() && ",} \t\r\n".indexOf(s.charAt(pos)) < 0) pos++;
+            String literal = s.substring(start, pos);
+            if (literal.isEmpty()) throw new IllegalArgumentException("Missing value at " + start);
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = peek();
+                pos++;
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw new IllegalArgumentException("Bad unicode escape");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e); // \" \\ \/
+                }
+            }
+        }
+    }
+}
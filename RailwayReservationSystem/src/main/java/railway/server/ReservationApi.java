@@ -0,0 +1,405 @@
+package railway.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import railway.entities.ClassSeatInfo;
+import railway.entities.PNRRecord;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.exception.InvalidInputException;
+import railway.model.Ticket;
+import railway.service.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP handlers for the reservation API. Each handler is a thin adapter over the existing
+ * services: it parses parameters, calls the service and writes a JSON reply.
+ *
+ * <pre>
+ *   GET    /api/trains?source=..&amp;destination=..    route search, with each class's fare (optionally &amp;quota=..)
+ *   GET    /api/trains/{number}/seats?class=AC1      seat map of one class (optionally &amp;from=..&amp;to=.. for one leg)
+ *   POST   /api/bookings                             book one passenger or a group (JSON or form body)
+ *   DELETE /api/bookings/{pnr}                       cancel a passenger, or every passenger of a group PNR
+ *   GET    /api/pnr/{pnr}                            PNR status
+ * </pre>
+ * Booking fields: trainNumber, class, userId, name, age, idProof, and optional journeyDate
+ * (default today), from/to stops (default the whole run), seat (0 = any) and quota (default GENERAL). Search and seat map take an
+ * optional journeyDate too and report the seats of that day's journey.
+ * A group gives name1, age1, idProof1, name2, ... (up to {@value GroupBookingRequest#MAX_PASSENGERS}
+ * passengers, no seat) instead of name/age/idProof and is booked under one PNR.
+ *
+ * Refused requests answer 400 when the request itself is bad, 404 for an unknown train, class
+ * or PNR, and 409 only when a valid booking finds no room (seat taken, class full).
+ */
+class ReservationApi {
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final ReservationSystem reservations;
+    private final TrainManagementService trains;
+    private final PNRService pnrs;
+
+    ReservationApi(ReservationSystem reservations, TrainManagementService trains, PNRService pnrs) {
+        this.reservations = reservations;
+        this.trains = trains;
+        this.pnrs = pnrs;
+    }
+
+    /** Thrown by handlers to answer with an error status and message. */
+    private static class ApiException extends Exception {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Endpoint {
+        String handle(HttpExchange exchange, String[] path) throws ApiException, IOException;
+    }
+
+    HttpHandler trains() {
+        return wrap((exchange, path) -> {
+            // path: api, trains[, number, seats]
+            if (path.length == 2) {
+                requireMethod(exchange, "GET");
+                return searchTrains(queryParams(exchange));
+            }
+            if (path.length == 4 && path[3].equals("seats")) {
+                requireMethod(exchange, "GET");
+                Map<String, String> params = queryParams(exchange);
+                return seatMap(path[2], params.get("class"), journeyDate(params), params.get("from"), params.get("to"));
+            }
+            throw new ApiException(404, "No such resource");
+        });
+    }
+
+    HttpHandler bookings() {
+        return wrap((exchange, path) -> {
+            // path: api, bookings[, pnr]
+            if (path.length == 2) {
+                requireMethod(exchange, "POST");
+                Map<String, String> params = bodyParams(exchange);
+                return params.containsKey("name1") ? bookGroup(exchange, params) : book(exchange, params);
+            }
+            if (path.length == 3) {
+                requireMethod(exchange, "DELETE");
+                return cancel(path[2]);
+            }
+            throw new ApiException(404, "No such resource");
+        });
+    }
+
+    HttpHandler pnr() {
+        return wrap((exchange, path) -> {
+            // path: api, pnr, number
+            if (path.length != 3) throw new ApiException(404, "No such resource");
+            requireMethod(exchange, "GET");
+            return pnrStatus(path[2]);
+        });
+    }
+
+    // ========== ENDPOINTS ==========
+    private String searchTrains(Map<String, String> params) throws ApiException, IOException {
+        LocalDate journeyDate = journeyDate(params);
+        Quota quota = quota(params);
+        ArrayList<Train> found = trains.searchTrains(params.getOrDefault("source", ""),
+                params.getOrDefault("destination", ""));
+        Json json = new Json().beginObject().field("journeyDate", journeyDate.toString()).beginArray("trains");
+        for (Train t : found) {
+            json.beginObject()
+                    .field("trainNumber", t.getTrainNumber())
+                    .field("trainName", t.getTrainName())
+                    .field("source", t.getSource())
+                    .field("destination", t.getDestination())
+                    .beginArray("stops");
+            for (String stop : t.getStops()) json.value(stop);
+            json.endArray().beginArray("classes");
+            for (String classType : t.getAvailableClasses()) {
+                ClassSeatInfo info = reservations.viewClass(t, classType, journeyDate);
+                json.beginObject()
+                        .field("class", classType)
+                        .field("availableSeats", info.getAvailableSeats())
+                        .field("totalSeats", info.totalSeats)
+                        .field("baseFare", info.baseFare)
+                        .field("fare", reservations.quoteFare(t, classType, quota))
+                        .endObject();
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String seatMap(String trainNumber, String classType, LocalDate journeyDate, String from, String to)
+            throws ApiException, IOException {
+        Train train = trains.searchTrainByNumber(trainNumber);
+        if (train == null) throw new ApiException(404, "Train not found.");
+        if (classType == null) throw new ApiException(400, "Missing parameter: class");
+        ClassSeatInfo info = reservations.viewClass(train, classType, journeyDate);
+        if (info == null) throw new ApiException(404, "Class not found for this train.");
+        int[] leg;
+        try {
+            leg = train.segmentRange(from, to);
+        } catch (InvalidInputException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        // Booked = not free for the whole of the requested leg (the whole run by default)
+        Json json = new Json().beginObject()
+                .field("trainNumber", trainNumber)
+                .field("class", classType)
+                .field("journeyDate", journeyDate.toString())
+                .field("from", train.getStops().get(leg[0]))
+                .field("to", train.getStops().get(leg[1]))
+                .field("totalSeats", info.totalSeats)
+                .field("availableSeats", info.segments.countFree(leg[0], leg[1]))
+                .beginArray("bookedSeats");
+        for (int seat = 1; seat <= info.totalSeats; seat++) {
+            if (!info.segments.isFree(seat, leg[0], leg[1])) json.value(seat);
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String book(HttpExchange exchange, Map<String, String> params) throws ApiException, IOException {
+        String name = required(params, "name");
+        int age = intParam(params, "age", -1);
+        Passenger passenger = new Passenger(name, age, params.getOrDefault("idProof", ""));
+        Quota quota = quota(params);
+        BookingRequest request = new BookingRequest(required(params, "trainNumber"), required(params, "class"),
+                required(params, "userId"), passenger, journeyDate(params).toString(), params.get("from"), params.get("to"),
+                intParam(params, "seat", BookingRequest.ANY_SEAT), quota);
+        BookingResult result = reservations.book(request);
+        if (!result.isSuccess()) throw new ApiException(statusFor(result.getReason()), result.getMessage());
+        exchange.getResponseHeaders().set("Location", "/api/pnr/" + result.getPnrNumber());
+        return writeTicket(new Json().beginObject(), result.getTicket()).endObject().toString();
+    }
+
+    /** Books name1, name2, ... under one group PNR: {"pnrNumber": .., "status": .., "passengers": [tickets]}. */
+    private String bookGroup(HttpExchange exchange, Map<String, String> params) throws ApiException, IOException {
+        if (params.containsKey("name" + (GroupBookingRequest.MAX_PASSENGERS + 1))) {
+            throw new ApiException(400, "At most " + GroupBookingRequest.MAX_PASSENGERS + " passengers per PNR.");
+        }
+        ArrayList<Passenger> passengers = new ArrayList<>();
+        for (int i = 1; params.containsKey("name" + i); i++) {
+            passengers.add(new Passenger(required(params, "name" + i), intParam(params, "age" + i, -1),
+                    params.getOrDefault("idProof" + i, "")));
+        }
+        GroupBookingRequest request = new GroupBookingRequest(required(params, "trainNumber"),
+                required(params, "class"), required(params, "userId"), passengers, journeyDate(params).toString(),
+                params.get("from"), params.get("to"), quota(params));
+        GroupBookingResult result = reservations.bookGroup(request);
+        if (!result.isSuccess()) throw new ApiException(statusFor(result.getReason()), result.getMessage());
+        exchange.getResponseHeaders().set("Location", "/api/pnr/" + result.getPnrNumber());
+        Json json = new Json().beginObject()
+                .field("pnrNumber", result.getPnrNumber())
+                .field("status", result.getStatus())
+                .beginArray("passengers");
+        for (Ticket t : result.getTickets()) writeTicket(json.beginObject(), t).endObject();
+        return json.endArray().endObject().toString();
+    }
+
+    /** Cancels one passenger's PNR, or every still-active passenger when given a group PNR. */
+    private String cancel(String pnrNumber) throws ApiException, IOException {
+        try {
+            if (reservations.findBooking(pnrNumber) == null) {
+                ArrayList<Ticket> cancelled = reservations.cancelGroup(pnrNumber);
+                Json json = new Json().beginObject()
+                        .field("pnrNumber", pnrNumber)
+                        .field("cancelled", true)
+                        .beginArray("passengers");
+                for (Ticket t : cancelled) writeTicket(json.beginObject(), t).endObject();
+                return json.endArray().endObject().toString();
+            }
+            Ticket cancelled = reservations.cancelTicket(pnrNumber);
+            return writeTicket(new Json().beginObject(), cancelled).field("cancelled", true).endObject().toString();
+        } catch (InvalidInputException e) {
+            throw new ApiException(404, e.getMessage());
+        }
+    }
+
+    private static int statusFor(BookingResult.Reason reason) {
+        switch (reason) {
+            case NOT_FOUND: return 404;
+            case CONFLICT: return 409;
+            default: return 400;
+        }
+    }
+
+    /** One passenger's record, or for a group PNR {"pnrNumber": .., "passengers": [records]}. */
+    private String pnrStatus(String pnrNumber) throws ApiException, IOException {
+        ArrayList<PNRRecord> records = pnrs.checkGroupStatus(pnrNumber);
+        if (records.isEmpty()) throw new ApiException(404, "PNR Not Found.");
+        if (records.size() == 1 && records.get(0).getPnrNumber().equals(pnrNumber)) {
+            return writePNR(new Json(), records.get(0)).toString();
+        }
+        Json json = new Json().beginObject().field("pnrNumber", pnrNumber).beginArray("passengers");
+        for (PNRRecord record : records) writePNR(json, record);
+        return json.endArray().endObject().toString();
+    }
+
+    private static Json writePNR(Json json, PNRRecord record) {
+        return json.beginObject()
+                .field("pnrNumber", record.getPnrNumber())
+                .field("trainNumber", record.getTrainNumber())
+                .field("passengerName", record.getPassengerName())
+                .field("class", record.getTicketClass())
+                .field("journeyDate", record.getJourneyDate())
+                .field("bookingStatus", record.getBookingStatus())
+                .field("currentStatus", record.getCurrentStatus())
+                .field("coach", record.getCoach())
+                .field("seatNumber", record.getSeatNumber())
+                .field("racNumber", record.getRacNumber())
+                .field("wlNumber", record.getWlNumber())
+                .field("chartPrepared", record.isChartPrepared())
+                .field("displayStatus", record.getDisplayStatus())
+                .endObject();
+    }
+
+    private static Json writeTicket(Json json, Ticket t) {
+        return json.field("pnrNumber", t.getPnrNumber())
+                .field("trainNumber", t.getTrainNumber())
+                .field("userId", t.getUserId())
+                .field("passengerName", t.getPassengerName())
+                .field("class", t.getTicketClass())
+                .field("journeyDate", t.getJourneyDate())
+                .field("from", t.getBoardingStation())
+                .field("to", t.getAlightingStation())
+                .field("status", t.getStatus())
+                .field("seatNumber", t.getSeatNum())
+                .field("racNumber", t.getRacNumber())
+                .field("wlNumber", t.getWlNumber())
+                .field("fare", t.getFare())
+                .field("displayStatus", t.getDisplayStatus());
+    }
+
+    // ========== PLUMBING ==========
+    private static HttpHandler wrap(Endpoint endpoint) {
+        return exchange -> {
+            int status = 200;
+            String body;
+            try {
+                String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+                body = endpoint.handle(exchange, path);
+                if (exchange.getRequestMethod().equals("POST")) status = 201;
+            } catch (ApiException e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (IOException e) {
+                status = 500;
+                body = error("Storage error: " + e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                body = error("Internal error: " + e);
+            }
+            send(exchange, status, body);
+        };
+    }
+
+    private static String error(String message) {
+        return new Json().beginObject().field("error", message).endObject().toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) throws ApiException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new ApiException(405, "Use " + method);
+        }
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        return formDecode(exchange.getRequestURI().getRawQuery());
+    }
+
+    /** Reads a JSON object or a form-encoded body, chosen by Content-Type. */
+    private static Map<String, String> bodyParams(HttpExchange exchange) throws ApiException, IOException {
+        String body = readBody(exchange);
+        String type = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (type != null && type.toLowerCase().startsWith("application/json")) {
+            try {
+                return Json.parseObject(body);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed JSON: " + e.getMessage());
+            }
+        }
+        return formDecode(body);
+    }
+
+    private static String readBody(HttpExchange exchange) throws ApiException, IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                bytes.write(buf, 0, n);
+                if (bytes.size() > MAX_BODY_BYTES) throw new ApiException(413, "Request body too large");
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> formDecode(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) throws ApiException {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) throw new ApiException(400, "Missing parameter: " + name);
+        return value.trim();
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) throws ApiException {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Not a number: " + name);
+        }
+    }
+
+    /** The optional journeyDate parameter (yyyy-MM-dd), today if absent. */
+    private static LocalDate journeyDate(Map<String, String> params) throws ApiException {
+        String value = params.get("journeyDate");
+        if (value == null || value.isBlank()) return LocalDate.now();
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Invalid journeyDate (use YYYY-MM-DD): " + value);
+        }
+    }
+
+    private static Quota quota(Map<String, String> params) throws ApiException {
+        try {
+            return Quota.parse(params.get("quota"));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Unknown quota: " + params.get("quota"));
+        }
+    }
+}
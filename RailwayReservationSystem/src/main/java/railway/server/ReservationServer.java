@@ -0,0 +1,126 @@
+package railway.server;
+
+import com.sun.net.httpserver.HttpServer;
+import railway.model.FareConfig;
+import railway.repository.DataStore;
+import railway.service.PNRService;
+import railway.service.ReservationSystem;
+import railway.service.TrainManagementService;
+import railway.storage.FareRulesWatcher;
+import railway.storage.FileManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP/JSON front end so many counters and kiosks can share one reservation state.
+ *
+ * Built on the JDK HttpServer: one selector thread accepts and parses connections, and every
+ * request runs on its own virtual thread, so a client blocked on a booking lock or a disk
+ * write costs a small heap object rather than a platform thread. Booking correctness under
+ * concurrency comes from the services (striped booking locks, lock-free seat bitmap), not
+ * from the server. Endpoints are listed on {@link ReservationApi}.
+ *
+ * There is no authentication: the server is meant for a trusted local network, and the
+ * caller passes the user ID with each booking.
+ *
+ * Usage: ReservationServer [port] [dataDir]   (defaults: 8080, data)
+ */
+public class ReservationServer {
+    public static final int DEFAULT_PORT = 8080;
+    /** Pending-connection queue; large so connection bursts are not refused by the kernel. */
+    public static final int DEFAULT_BACKLOG = 4096;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ReservationServer(ReservationSystem reservations, TrainManagementService trains, PNRService pnrs,
+                             int port, int backlog) throws IOException {
+        ReservationApi api = new ReservationApi(reservations, trains, pnrs);
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.createContext("/api/trains", api.trains());
+        server.createContext("/api/bookings", api.bookings());
+        server.createContext("/api/pnr", api.pnr());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Port actually bound (useful when started on port 0). */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting, gives in-flight exchanges up to {@code graceSeconds} to finish. */
+    public void stop(int graceSeconds) {
+        server.stop(graceSeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(graceSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        FileManager fileManager = new FileManager(args.length > 1 ? args[1] : "data");
+
+        DataStore store;
+        try {
+            long flushInterval = Long.getLong("railway.flushIntervalMs", DataStore.DEFAULT_FLUSH_INTERVAL_MILLIS);
+            store = DataStore.load(fileManager, flushInterval);
+        } catch (IOException e) {
+            System.out.println("Fatal: could not load data files: " + e.getMessage());
+            return;
+        }
+        try {
+            Map<String, Double> loadedRules = fileManager.loadFareRules();
+            FareConfig.setAllRules(loadedRules);
+        } catch (IOException e) {
+            System.out.println("Warning: Could not load custom fare rules. Using defaults.");
+        }
+        FareRulesWatcher watcher = watchFareRules(fileManager);
+
+        PNRService pnrService = new PNRService(store.pnrs(), store.pnrIndex(), store.tickets());
+        ReservationSystem reservations = new ReservationSystem(store, pnrService);
+        TrainManagementService trains = new TrainManagementService(store.trains(), store.inventory());
+
+        ReservationServer server;
+        try {
+            server = new ReservationServer(reservations, trains, pnrService, port,
+                    Integer.getInteger("railway.server.backlog", DEFAULT_BACKLOG));
+        } catch (IOException e) {
+            System.out.println("Fatal: could not listen on port " + port + ": " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(5);
+            try {
+                if (watcher != null) watcher.close();
+                store.shutdown();
+            } catch (IOException e) {
+                System.out.println("Warning: could not save all changes: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.println("Reservation server listening on port " + server.getPort());
+    }
+
+    /** Starts reloading fare_rules.txt on change; null if the data directory cannot be watched. */
+    private static FareRulesWatcher watchFareRules(FileManager fileManager) {
+        try {
+            return FareRulesWatcher.start(fileManager);
+        } catch (IOException e) {
+            System.out.println("Warning: fare rules will not reload on change: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package railway.service;
+
+import railway.entities.ClassSeatInfo;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.exception.BookingConflictException;
+import railway.exception.InvalidInputException;
+import railway.model.ACClassTicket;
+import railway.model.FareConfig;
+import railway.model.PNRGenerator;
+import railway.model.Ticket;
+import railway.repository.DataStore;
+import railway.repository.JourneyInventory;
+import railway.storage.ReservationJournal;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe core of booking and cancellation.
+ *
+ * Seats and queues belong to one journey: the (train, journey date, class) shard of the
+ * {@link JourneyInventory}. Every read-modify-write of a shard class runs under the inventory's
+ * lock stripe for its (train, date, class), the class itself being looked up under that lock
+ * (a train update may replace it), and the change is queued on the journal before the lock is
+ * released. Bookings on different trains or dates proceed in parallel; bookings on one journey
+ * class are serialised, so a seat can never be handed out twice. A passenger holds a seat only
+ * over the segments between their boarding and alighting stops, so the same seat can be sold
+ * again for the rest of the run.
+ *
+ * Callers return only once their journal record is durable, but they wait for that after
+ * releasing the class lock: the next bookers of the same class then queue their records
+ * behind it and share one group commit instead of each holding the lock through an fsync.
+ */
+public class BookingEngine {
+    private final DataStore store;
+
+    public BookingEngine(DataStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Books one passenger: a confirmed seat if any is free for their leg, else RAC, else waitlist.
+     * The request's seat preference picks a specific seat (1-based); 0 or less takes the best-fitting
+     * free one (see {@link railway.entities.SegmentSeatMap}).
+     */
+    public Ticket book(Train train, BookingRequest request, double fare) throws IOException, InvalidInputException {
+        return bookAtFare(train, request, ACClassTicket.classFare(fare, request.getTicketClass(), FareConfig.current()));
+    }
+
+    /** As {@link #book(Train, BookingRequest, double)}, charging {@code ticketFare} as quoted (see {@link FareTable}). */
+    public Ticket bookAtFare(Train train, BookingRequest request, double ticketFare)
+            throws IOException, InvalidInputException {
+        String ticketClass = request.getTicketClass();
+        int seatNum = request.getSeatPreference();
+        LocalDate journeyDate = JourneyInventory.parseDate(request.getJourneyDate());
+        int[] leg = train.segmentRange(request.getBoardingStation(), request.getAlightingStation());
+
+        Ticket ticket;
+        CompletableFuture<Void> durable;
+        ReentrantLock lock = store.inventory().lockFor(train.getTrainNumber(), journeyDate, ticketClass);
+        lock.lock();
+        try {
+            ClassSeatInfo selectedClass = store.inventory().forBooking(train, journeyDate, ticketClass);
+            int wlNumber = 0, racNumber = 0;
+            String status;
+            if (selectedClass.seatsAvailable(leg[0], leg[1])) {
+                if (seatNum <= 0) {
+                    seatNum = selectedClass.bookAnySeat(leg[0], leg[1]);
+                    if (seatNum < 0) throw new BookingConflictException("No free seat in this class.");
+                } else {
+                    selectedClass.bookSeat(seatNum, leg[0], leg[1]); // throws if taken
+                }
+                status = "CONFIRMED";
+            } else if (selectedClass.racAvailable()) {
+                seatNum = -1;
+                racNumber = selectedClass.racQueue.size() + 1;
+                status = "RAC";
+            } else if (selectedClass.waitlistAvailable()) {
+                seatNum = -1;
+                wlNumber = selectedClass.waitlistQueue.size() + 1;
+                status = "WAITLIST";
+            } else {
+                throw new BookingConflictException("No booking options available in this class.");
+            }
+
+            ticket = new ACClassTicket(store.pnrGenerator().next(), request.getUserId(), train.getTrainNumber(),
+                    request.getPassenger().getName(), request.getPassenger().getAge(), ticketClass,
+                    LocalDate.now().toString(), status, ticketFare, seatNum, wlNumber, racNumber, journeyDate.toString());
+            ticket.setFare(ticketFare); // as quoted, not repriced by whatever rules are current now
+            setLeg(ticket, train, leg);
+            selectedClass.assignTicket(ticket);
+
+            // Queue the journal record before releasing the class, so records follow booking order
+            durable = store.tickets().book(ticket);
+        } finally {
+            lock.unlock();
+        }
+        ReservationJournal.awaitDurable(durable);
+        return ticket;
+    }
+
+    /**
+     * Books a group under one PNR, all or nothing, as one block: confirmed if the class has a
+     * seat for everyone (adjacent seats if such a run is free, otherwise the lowest free ones),
+     * else RAC if the RAC queue has room for everyone, else waitlist on the same terms.
+     * Passenger tickets are numbered {@code <pnr>-1, <pnr>-2, ...} in request order and are
+     * journalled together in one record.
+     */
+    public ArrayList<Ticket> bookGroup(Train train, GroupBookingRequest request, double fare)
+            throws IOException, InvalidInputException {
+        return bookGroupAtFare(train, request,
+                ACClassTicket.classFare(fare, request.getTicketClass(), FareConfig.current()));
+    }
+
+    /** As {@link #bookGroup(Train, GroupBookingRequest, double)}, charging each passenger {@code ticketFare} as quoted. */
+    public ArrayList<Ticket> bookGroupAtFare(Train train, GroupBookingRequest request, double ticketFare)
+            throws IOException, InvalidInputException {
+        String ticketClass = request.getTicketClass();
+        LocalDate journeyDate = JourneyInventory.parseDate(request.getJourneyDate());
+        int[] leg = train.segmentRange(request.getBoardingStation(), request.getAlightingStation());
+        ArrayList<Passenger> passengers = request.getPassengers();
+        int n = passengers.size();
+
+        ArrayList<Ticket> group;
+        CompletableFuture<Void> durable;
+        ReentrantLock lock = store.inventory().lockFor(train.getTrainNumber(), journeyDate, ticketClass);
+        lock.lock();
+        try {
+            ClassSeatInfo selectedClass = store.inventory().forBooking(train, journeyDate, ticketClass);
+            int[] seatNums = new int[n];
+            String status;
+            if (selectedClass.segments.countFree(leg[0], leg[1]) >= n) {
+                int first = selectedClass.bookContiguousSeats(n, leg[0], leg[1]);
+                for (int i = 0; i < n; i++) {
+                    // No adjacent run left: spread the group over the best-fitting free seats
+                    seatNums[i] = first > 0 ? first + i : selectedClass.bookAnySeat(leg[0], leg[1]);
+                }
+                status = "CONFIRMED";
+            } else if (selectedClass.maxRacSeats - selectedClass.racQueue.size() >= n) {
+                Arrays.fill(seatNums, -1);
+                status = "RAC";
+            } else if (selectedClass.maxWaitlist - selectedClass.waitlistQueue.size() >= n) {
+                Arrays.fill(seatNums, -1);
+                status = "WAITLIST";
+            } else {
+                throw new BookingConflictException("Not enough seats, RAC or waitlist places for " + n + " passengers.");
+            }
+
+            String groupPnr = store.pnrGenerator().next();
+            String bookingDate = LocalDate.now().toString();
+            group = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Passenger p = passengers.get(i);
+                Ticket ticket = new ACClassTicket(PNRGenerator.passengerPnr(groupPnr, i + 1), request.getUserId(),
+                        train.getTrainNumber(), p.getName(), p.getAge(), ticketClass, bookingDate, status, ticketFare,
+                        seatNums[i], 0, 0, journeyDate.toString());
+                ticket.setFare(ticketFare);
+                setLeg(ticket, train, leg);
+                selectedClass.assignTicket(ticket);
+                group.add(ticket);
+            }
+
+            // One journal record for the whole group, queued before the class is released
+            durable = store.tickets().bookAll(group);
+        } finally {
+            lock.unlock();
+        }
+        ReservationJournal.awaitDurable(durable);
+        return group;
+    }
+
+    /**
+     * Prepares the chart of one journey class under its lock: RAC moves up to free seats and the
+     * waitlist into RAC (see {@link ClassSeatInfo#chartPreparation()}). Returns the number of
+     * promotions and their journal future without waiting for it, so a fleet-wide run can wait
+     * once for all classes.
+     */
+    ChartPreparationService.ClassChart prepareChart(Train train, LocalDate journeyDate, String classType)
+            throws IOException {
+        ReentrantLock lock = store.inventory().lockFor(train.getTrainNumber(), journeyDate, classType);
+        lock.lock();
+        try {
+            ClassSeatInfo selectedClass = store.inventory().classFor(train, journeyDate, classType);
+            if (selectedClass == null) {
+                return new ChartPreparationService.ClassChart(0, CompletableFuture.completedFuture(null));
+            }
+            ArrayList<Ticket> promoted = selectedClass.chartPreparation();
+            CompletableFuture<?>[] durable = new CompletableFuture<?>[promoted.size()];
+            for (int i = 0; i < durable.length; i++) durable[i] = store.tickets().promoted(promoted.get(i));
+            return new ChartPreparationService.ClassChart(promoted.size(), CompletableFuture.allOf(durable));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels a ticket, frees its seat or queue place and promotes RAC/WL as needed.
+     * A ticket of a journey that has already run holds no inventory and is only cancelled.
+     * Returns the cancelled ticket; throws if it does not exist (or was cancelled concurrently).
+     */
+    public Ticket cancel(String pnrNumber) throws IOException, InvalidInputException {
+        return cancel(pnrNumber, new ArrayList<>());
+    }
+
+    /** As {@link #cancel(String)}, adding the tickets promoted into the freed place to {@code promoted}. */
+    public Ticket cancel(String pnrNumber, List<Ticket> promoted) throws IOException, InvalidInputException {
+        Ticket ticket = store.tickets().findByPnr(pnrNumber);
+        if (ticket == null) throw new InvalidInputException("Ticket not found.");
+
+        Train train = store.trains().findById(ticket.getTrainNumber());
+        LocalDate journeyDate = JourneyInventory.journeyDateOf(ticket);
+        ArrayList<CompletableFuture<Void>> durable = new ArrayList<>();
+        ReentrantLock lock = store.inventory().lockFor(ticket.getTrainNumber(), journeyDate, ticket.getTicketClass());
+        lock.lock();
+        try {
+            // Read it again under the lock: another thread may have cancelled or promoted it meanwhile
+            ticket = store.tickets().findByPnr(pnrNumber);
+            if (ticket == null) throw new InvalidInputException("Ticket not found.");
+            ClassSeatInfo selectedClass = train == null ? null
+                    : store.inventory().classFor(train, journeyDate, ticket.getTicketClass());
+            if (selectedClass != null) {
+                ArrayList<Ticket> moved = new ArrayList<>();
+                if ("CONFIRMED".equalsIgnoreCase(ticket.getStatus()) && ticket.getSeatNum() > 0) {
+                    selectedClass.cancelConfirmed(ticket);
+                    moved = selectedClass.promoteTickets();
+                } else if ("RAC".equalsIgnoreCase(ticket.getStatus())) {
+                    selectedClass.racQueue.removeByPnr(pnrNumber);
+                    moved = selectedClass.promoteTickets();
+                } else if ("WAITLIST".equalsIgnoreCase(ticket.getStatus())) {
+                    selectedClass.waitlistQueue.removeByPnr(pnrNumber);
+                }
+                for (Ticket p : moved) {
+                    durable.add(store.tickets().promoted(p));
+                }
+                promoted.addAll(moved);
+            }
+            durable.add(store.tickets().cancel(pnrNumber));
+        } finally {
+            lock.unlock();
+        }
+        ReservationJournal.awaitDurable(CompletableFuture.allOf(durable.toArray(CompletableFuture<?>[]::new)));
+        return ticket;
+    }
+
+    private static void setLeg(Ticket ticket, Train train, int[] leg) {
+        ticket.setBoardingStation(train.getStops().get(leg[0]));
+        ticket.setAlightingStation(train.getStops().get(leg[1]));
+    }
+}
@@ -0,0 +1,56 @@
+package railway.service;
+
+import railway.entities.Passenger;
+
+/**
+ * Everything needed to book one passenger, with no console interaction.
+ * A seat preference of 0 (or less) means "any free seat".
+ */
+public class BookingRequest {
+    public static final int ANY_SEAT = 0;
+
+    private final String trainNumber;
+    private final String ticketClass;
+    private final String userId;
+    private final Passenger passenger;
+    private final String journeyDate;
+    private final String boardingStation;
+    private final String alightingStation;
+    private final int seatPreference;
+    private final Quota quota;
+
+    public BookingRequest(String trainNumber, String ticketClass, String userId, Passenger passenger,
+                          String journeyDate) {
+        this(trainNumber, ticketClass, userId, passenger, journeyDate, ANY_SEAT, Quota.GENERAL);
+    }
+
+    public BookingRequest(String trainNumber, String ticketClass, String userId, Passenger passenger,
+                          String journeyDate, int seatPreference, Quota quota) {
+        this(trainNumber, ticketClass, userId, passenger, journeyDate, null, null, seatPreference, quota);
+    }
+
+    /** Blank boarding/alighting stations mean the train's source/destination. */
+    public BookingRequest(String trainNumber, String ticketClass, String userId, Passenger passenger,
+                          String journeyDate, String boardingStation, String alightingStation,
+                          int seatPreference, Quota quota) {
+        this.trainNumber = trainNumber;
+        this.ticketClass = ticketClass;
+        this.userId = userId;
+        this.passenger = passenger;
+        this.journeyDate = journeyDate;
+        this.boardingStation = boardingStation;
+        this.alightingStation = alightingStation;
+        this.seatPreference = seatPreference;
+        this.quota = quota == null ? Quota.GENERAL : quota;
+    }
+
+    public String getTrainNumber() { return trainNumber; }
+    public String getTicketClass() { return ticketClass; }
+    public String getUserId() { return userId; }
+    public Passenger getPassenger() { return passenger; }
+    public String getJourneyDate() { return journeyDate; }
+    public String getBoardingStation() { return boardingStation; }
+    public String getAlightingStation() { return alightingStation; }
+    public int getSeatPreference() { return seatPreference; }
+    public Quota getQuota() { return quota; }
+}
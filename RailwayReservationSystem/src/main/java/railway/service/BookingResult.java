@@ -0,0 +1,51 @@
+package railway.service;
+
+import railway.entities.PNRRecord;
+import railway.model.Ticket;
+
+/**
+ * Outcome of a {@link BookingRequest}: the booked ticket and its PNR record,
+ * or the reason the booking was refused.
+ */
+public class BookingResult {
+    /** Why a booking was refused: a bad request, an unknown train or class, or no room for it. */
+    public enum Reason { INVALID, NOT_FOUND, CONFLICT }
+
+    private final boolean success;
+    private final Ticket ticket;
+    private final PNRRecord pnrRecord;
+    private final String message;
+    private final Reason reason;
+
+    private BookingResult(boolean success, Ticket ticket, PNRRecord pnrRecord, String message, Reason reason) {
+        this.success = success;
+        this.ticket = ticket;
+        this.pnrRecord = pnrRecord;
+        this.message = message;
+        this.reason = reason;
+    }
+
+    public static BookingResult success(Ticket ticket, PNRRecord pnrRecord) {
+        return new BookingResult(true, ticket, pnrRecord, "Booking successful", null);
+    }
+
+    public static BookingResult failure(String message) {
+        return failure(Reason.INVALID, message);
+    }
+
+    public static BookingResult failure(Reason reason, String message) {
+        return new BookingResult(false, null, null, message, reason);
+    }
+
+    public boolean isSuccess() { return success; }
+    public Ticket getTicket() { return ticket; }
+    public PNRRecord getPnrRecord() { return pnrRecord; }
+    public String getMessage() { return message; }
+    /** Why the booking was refused; null on success. */
+    public Reason getReason() { return reason; }
+
+    public String getPnrNumber() { return ticket == null ? null : ticket.getPnrNumber(); }
+
+    /** CONFIRMED, RAC or WAITLIST on success; null on failure. */
+    public String getStatus() { return ticket == null ? null : ticket.getStatus(); }
+}
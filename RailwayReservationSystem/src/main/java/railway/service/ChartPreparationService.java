@@ -0,0 +1,177 @@
+package railway.service;
+
+import railway.entities.Train;
+import railway.model.Ticket;
+import railway.repository.DataStore;
+import railway.repository.JourneyInventory;
+import railway.storage.ReservationJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fleet-wide chart preparation for one journey date: for every train and class running that day,
+ * RAC passengers move up to free seats (and get a concrete seat) and the waitlist moves up into
+ * RAC, then every PNR of the charted classes is updated with its final status and marked
+ * chart-prepared. Only journeys with bookings have an inventory shard, so only those are charted.
+ *
+ * Classes are charted in parallel on a ForkJoinPool, each under its own booking lock, so
+ * bookings on other classes carry on meanwhile. Nothing waits for disk per class: promotions
+ * are queued on the journal and awaited once at the end. The charted tickets are then read in
+ * one scan of the ticket store's journey-date column, the PNR records and index are updated in
+ * one bulk call, and a single checkpoint persists the result.
+ */
+public class ChartPreparationService {
+    /** (train, class) pairs charted by one fork/join leaf. */
+    static final int LEAF_SIZE = 32;
+
+    private final DataStore store;
+    private final BookingEngine engine;
+    private final PNRService pnrService;
+
+    public ChartPreparationService(DataStore store, BookingEngine engine, PNRService pnrService) {
+        this.store = store;
+        this.engine = engine;
+        this.pnrService = pnrService;
+    }
+
+    /** Outcome of one class's chart, as returned by {@link BookingEngine#prepareChart}. */
+    static class ClassChart {
+        final int promoted;
+        final CompletableFuture<Void> durable;
+
+        ClassChart(int promoted, CompletableFuture<Void> durable) {
+            this.promoted = promoted;
+            this.durable = durable;
+        }
+    }
+
+    /** Totals of a chart run. */
+    public static class ChartSummary {
+        private final int classes;
+        private final int tickets;
+        private final int promoted;
+        private final int pnrsUpdated;
+        private final long millis;
+
+        ChartSummary(int classes, int tickets, int promoted, int pnrsUpdated, long millis) {
+            this.classes = classes;
+            this.tickets = tickets;
+            this.promoted = promoted;
+            this.pnrsUpdated = pnrsUpdated;
+            this.millis = millis;
+        }
+
+        public int getClasses() { return classes; }
+        public int getTickets() { return tickets; }
+        public int getPromoted() { return promoted; }
+        public int getPnrsUpdated() { return pnrsUpdated; }
+        public long getMillis() { return millis; }
+
+        @Override
+        public String toString() {
+            return "Charted " + classes + " classes (" + tickets + " tickets, " + promoted + " promoted, "
+                    + pnrsUpdated + " PNRs updated) in " + millis + " ms";
+        }
+    }
+
+    // ========== CHART RUN ==========
+    /** Prepares today's chart of every class of every train, using all available processors. */
+    public ChartSummary prepareAllCharts() throws IOException {
+        return prepareAllCharts(LocalDate.now(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public ChartSummary prepareAllCharts(LocalDate journeyDate, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<Train> classTrains = new ArrayList<>();
+        ArrayList<String> classTypes = new ArrayList<>();
+        HashSet<String> chartedClasses = new HashSet<>();
+        for (JourneyInventory.Shard shard : store.inventory().shardsOn(journeyDate)) {
+            Train train = store.trains().findById(shard.getTrainNumber());
+            if (train == null) continue;
+            for (String classType : shard.getClasses().keySet()) {
+                classTrains.add(train);
+                classTypes.add(classType);
+                chartedClasses.add(train.getTrainNumber() + "|" + classType);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        Part result;
+        try {
+            result = pool.invoke(new ChartTask(journeyDate, classTrains, classTypes, 0, classTrains.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        // One batch: wait for all promotions to be journalled, update every PNR, checkpoint once
+        ReservationJournal.awaitDurable(CompletableFuture.allOf(result.durable.toArray(CompletableFuture<?>[]::new)));
+        ArrayList<Ticket> charted = new ArrayList<>();
+        for (Ticket t : store.tickets().findByJourneyDate(journeyDate)) {
+            if (chartedClasses.contains(t.getTrainNumber() + "|" + t.getTicketClass())) charted.add(t);
+        }
+        int pnrsUpdated = pnrService.recordChart(charted);
+        store.checkpoint();
+        return new ChartSummary(classTrains.size(), charted.size(), result.promoted, pnrsUpdated,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Merged results of a range of classes. */
+    private static class Part {
+        final ArrayList<CompletableFuture<Void>> durable = new ArrayList<>();
+        int promoted;
+
+        Part merge(Part other) {
+            durable.addAll(other.durable);
+            promoted += other.promoted;
+            return this;
+        }
+    }
+
+    /** Charts classes [from, to), splitting in halves down to {@link #LEAF_SIZE}. */
+    private class ChartTask extends RecursiveTask<Part> {
+        private final LocalDate journeyDate;
+        private final List<Train> trains;
+        private final List<String> classTypes;
+        private final int from, to;
+
+        ChartTask(LocalDate journeyDate, List<Train> trains, List<String> classTypes, int from, int to) {
+            this.journeyDate = journeyDate;
+            this.trains = trains;
+            this.classTypes = classTypes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Part compute() {
+            if (to - from <= LEAF_SIZE) {
+                Part part = new Part();
+                for (int i = from; i < to; i++) {
+                    try {
+                        ClassChart chart = engine.prepareChart(trains.get(i), journeyDate, classTypes.get(i));
+                        part.durable.add(chart.durable);
+                        part.promoted += chart.promoted;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return part;
+            }
+            int mid = (from + to) >>> 1;
+            ChartTask left = new ChartTask(journeyDate, trains, classTypes, from, mid);
+            left.fork();
+            Part right = new ChartTask(journeyDate, trains, classTypes, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
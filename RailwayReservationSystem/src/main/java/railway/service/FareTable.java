@@ -0,0 +1,103 @@
+package railway.service;
+
+import railway.entities.ClassSeatInfo;
+import railway.entities.Train;
+import railway.model.ACClassTicket;
+import railway.model.FareConfig;
+import railway.repository.TrainRepository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed fares: for each train, the per-passenger fare of every class under every quota,
+ * worked out once per fare-rules version so that a quote (a search listing, a booking) is an
+ * array read.
+ *
+ * A train's row remembers the Train object, the train's version in the {@link TrainRepository}
+ * and the rules version it was built from. The repository drops a train's row when the train is
+ * saved or deleted; a quote that still finds one of the three changed (a save racing the quote,
+ * rules saved or reloaded) rebuilds that row only. Rows are immutable and replaced whole, so
+ * quoting takes no lock and all fares of a row come from one rules snapshot.
+ */
+public class FareTable {
+    private static final Quota[] QUOTAS = Quota.values();
+
+    private final TrainRepository trains;
+    private final ConcurrentHashMap<String, Row> rows = new ConcurrentHashMap<>();
+
+    /** The fares of one train under one rules snapshot. */
+    private static final class Row {
+        final Train train;
+        final long trainVersion;
+        final long rulesVersion;
+        final String[] classes;
+        final double[] fares; // class index * QUOTAS.length + quota ordinal
+
+        Row(Train train, long trainVersion, FareConfig.Rules rules) {
+            this.train = train;
+            this.trainVersion = trainVersion;
+            this.rulesVersion = rules.getVersion();
+            Map<String, ClassSeatInfo> seatClasses = train.getSeatClasses();
+            this.classes = seatClasses.keySet().toArray(new String[0]);
+            this.fares = new double[classes.length * QUOTAS.length];
+            for (int c = 0; c < classes.length; c++) {
+                double baseFare = seatClasses.get(classes[c]).baseFare;
+                for (Quota quota : QUOTAS) {
+                    fares[c * QUOTAS.length + quota.ordinal()] = fareOf(baseFare, classes[c], quota, rules);
+                }
+            }
+        }
+
+        double fare(String ticketClass, Quota quota) {
+            for (int c = 0; c < classes.length; c++) {
+                if (classes[c].equals(ticketClass)) return fares[c * QUOTAS.length + quota.ordinal()];
+            }
+            return -1;
+        }
+    }
+
+    public FareTable(TrainRepository trains) {
+        this.trains = trains;
+        trains.addChangeListener(rows::remove);
+    }
+
+    /** Per-passenger fare of a class under a quota, by the rules in force; -1 if the train has no such class. */
+    public double quote(Train train, String ticketClass, Quota quota) {
+        return rowFor(train).fare(ticketClass, quota);
+    }
+
+    /** Brings the rows of these trains up to date with the rules in force, so the next quotes find them built. */
+    public void refresh(Collection<Train> trains) {
+        for (Train train : trains) rowFor(train);
+    }
+
+    private Row rowFor(Train train) {
+        FareConfig.Rules rules = FareConfig.current();
+        long trainVersion = trains.versionOf(train.getTrainNumber()); // read before building, so a save meanwhile shows
+        Row row = rows.get(train.getTrainNumber());
+        if (row != null && row.train == train && row.trainVersion == trainVersion
+                && row.rulesVersion == rules.getVersion()) {
+            return row;
+        }
+        row = new Row(train, trainVersion, rules);
+        rows.put(train.getTrainNumber(), row);
+        return row;
+    }
+
+    /** Trains with a row built; for tests. */
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * The fare of one passenger: the TATKAL rule on top of the base fare for tatkal bookings, then
+     * the class multiplier as {@link ACClassTicket} applies it (the booking engine issues that class).
+     */
+    static double fareOf(double baseFare, String ticketClass, Quota quota, FareConfig.Rules rules) {
+        double fare = baseFare;
+        if (quota == Quota.TATKAL) fare *= rules.multiplier(Quota.TATKAL.name());
+        return ACClassTicket.classFare(fare, ticketClass, rules);
+    }
+}
@@ -0,0 +1,53 @@
+package railway.service;
+
+import railway.entities.Passenger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several passengers travelling together on one train, class, date and leg, booked under one PNR.
+ * The group is allocated as a unit: all confirmed (adjacent seats where possible), all RAC or
+ * all waitlisted, never split across statuses.
+ */
+public class GroupBookingRequest {
+    /** Largest party one PNR can hold. */
+    public static final int MAX_PASSENGERS = 6;
+
+    private final String trainNumber;
+    private final String ticketClass;
+    private final String userId;
+    private final ArrayList<Passenger> passengers;
+    private final String journeyDate;
+    private final String boardingStation;
+    private final String alightingStation;
+    private final Quota quota;
+
+    public GroupBookingRequest(String trainNumber, String ticketClass, String userId, List<Passenger> passengers,
+                               String journeyDate, Quota quota) {
+        this(trainNumber, ticketClass, userId, passengers, journeyDate, null, null, quota);
+    }
+
+    /** Blank boarding/alighting stations mean the train's source/destination. */
+    public GroupBookingRequest(String trainNumber, String ticketClass, String userId, List<Passenger> passengers,
+                               String journeyDate, String boardingStation, String alightingStation, Quota quota) {
+        this.trainNumber = trainNumber;
+        this.ticketClass = ticketClass;
+        this.userId = userId;
+        this.passengers = new ArrayList<>(passengers);
+        this.journeyDate = journeyDate;
+        this.boardingStation = boardingStation;
+        this.alightingStation = alightingStation;
+        this.quota = quota == null ? Quota.GENERAL : quota;
+    }
+
+    public String getTrainNumber() { return trainNumber; }
+    public String getTicketClass() { return ticketClass; }
+    public String getUserId() { return userId; }
+    public ArrayList<Passenger> getPassengers() { return new ArrayList<>(passengers); }
+    public int size() { return passengers.size(); }
+    public String getJourneyDate() { return journeyDate; }
+    public String getBoardingStation() { return boardingStation; }
+    public String getAlightingStation() { return alightingStation; }
+    public Quota getQuota() { return quota; }
+}
@@ -0,0 +1,54 @@
+package railway.service;
+
+import railway.entities.PNRRecord;
+import railway.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a {@link GroupBookingRequest}: the group PNR with one ticket and PNR record per
+ * passenger (in request order), or the reason the whole group was refused.
+ */
+public class GroupBookingResult {
+    private final boolean success;
+    private final String pnrNumber;
+    private final ArrayList<Ticket> tickets;
+    private final ArrayList<PNRRecord> pnrRecords;
+    private final String message;
+    private final BookingResult.Reason reason;
+
+    private GroupBookingResult(boolean success, String pnrNumber, List<Ticket> tickets,
+                               List<PNRRecord> pnrRecords, String message, BookingResult.Reason reason) {
+        this.success = success;
+        this.pnrNumber = pnrNumber;
+        this.tickets = new ArrayList<>(tickets);
+        this.pnrRecords = new ArrayList<>(pnrRecords);
+        this.message = message;
+        this.reason = reason;
+    }
+
+    public static GroupBookingResult success(String pnrNumber, List<Ticket> tickets, List<PNRRecord> pnrRecords) {
+        return new GroupBookingResult(true, pnrNumber, tickets, pnrRecords, "Booking successful", null);
+    }
+
+    public static GroupBookingResult failure(String message) {
+        return failure(BookingResult.Reason.INVALID, message);
+    }
+
+    public static GroupBookingResult failure(BookingResult.Reason reason, String message) {
+        return new GroupBookingResult(false, null, new ArrayList<>(), new ArrayList<>(), message, reason);
+    }
+
+    public boolean isSuccess() { return success; }
+    /** The group PNR; each passenger's own PNR is this plus "-1", "-2", ... */
+    public String getPnrNumber() { return pnrNumber; }
+    public ArrayList<Ticket> getTickets() { return new ArrayList<>(tickets); }
+    public ArrayList<PNRRecord> getPnrRecords() { return new ArrayList<>(pnrRecords); }
+    public String getMessage() { return message; }
+    /** Why the group was refused; null on success. */
+    public BookingResult.Reason getReason() { return reason; }
+
+    /** CONFIRMED, RAC or WAITLIST (the same for every passenger); null on failure. */
+    public String getStatus() { return tickets.isEmpty() ? null : tickets.get(0).getStatus(); }
+}
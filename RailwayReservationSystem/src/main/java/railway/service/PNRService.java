@@ -1,73 +1,147 @@
 package railway.service;
 
 import railway.entities.PNRRecord;
-import railway.storage.FileManager;
+import railway.model.PNRGenerator;
+import railway.model.Ticket;
+import railway.repository.PNRRepository;
+import railway.repository.TicketRepository;
+import railway.storage.PNRIndexFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Handles all PNR-related operations: status check, updates, and generation.
  * Fully supports multi-class, RAC/WL, and chart preparation status.
+ * Promotions are written to the PNR index as they happen; RAC/WL positions move with every
+ * cancellation ahead in the queue, so a queued PNR is served with its live position instead.
  */
 public class PNRService {
-    private FileManager fileManager;
+    private PNRRepository pnrs;
+    private PNRIndexFile index;
+    private final TicketRepository tickets; // live RAC/WL positions; null serves the index as written
 
-    public PNRService(FileManager fileManager) {
-        this.fileManager = fileManager;
+    public PNRService(PNRRepository pnrs, PNRIndexFile index) {
+        this(pnrs, index, null);
+    }
+
+    public PNRService(PNRRepository pnrs, PNRIndexFile index, TicketRepository tickets) {
+        this.pnrs = pnrs;
+        this.index = index;
+        this.tickets = tickets;
     }
 
     // Check PNR status by PNR number (returns the full record, UI displays with .getDisplayStatus())
+    // Served from the on-disk PNR index: one hash probe and one record read
     public PNRRecord checkPNRStatus(String pnrNumber) throws IOException {
-        ArrayList<PNRRecord> records = fileManager.loadPNRRecords();
-        for (PNRRecord pnr : records) {
-            if (pnr.getPnrNumber().equals(pnrNumber)) {
-                return pnr;
-            }
-        }
-        return null; // Not found
+        if (!PNRGenerator.isWellFormed(pnrNumber)) return null; // typo caught by the check digit, no lookup
+        return withLivePosition(index.find(pnrNumber)); // null if not found
+    }
+
+    // A RAC/WL record gets the queue position its ticket holds now; the index keeps the one at booking or last promotion
+    private PNRRecord withLivePosition(PNRRecord record) {
+        if (record == null || tickets == null || record.isChartPrepared()) return record;
+        String status = record.getCurrentStatus();
+        if (!"RAC".equalsIgnoreCase(status) && !"WAITLIST".equalsIgnoreCase(status)) return record;
+        Ticket live = tickets.findByPnr(record.getPnrNumber());
+        if (live != null) copyStatus(live, record);
+        return record;
     }
 
     // Update PNR status and chart status (for admin use, e.g., during chart preparation or operator panel)
     public boolean updatePNRStatus(String pnrNumber, String newStatus, boolean chartPrepared,
                                    String coach, String seatNumber, int racNumber, int wlNumber) throws IOException {
-        ArrayList<PNRRecord> records = fileManager.loadPNRRecords();
-        boolean found = false;
-        for (PNRRecord pnr : records) {
-            if (pnr.getPnrNumber().equals(pnrNumber)) {
-                // Use updated setters for expanded fields
-                pnr.setCurrentStatus(newStatus);
-                pnr.setChartPrepared(chartPrepared);
-                if (coach != null) pnr.setCoach(coach);
-                if (seatNumber != null) pnr.setSeatNumber(seatNumber);
-                pnr.setRacNumber(racNumber);
-                pnr.setWlNumber(wlNumber);
-                found = true;
-                break;
-            }
+        PNRRecord pnr = pnrs.findById(pnrNumber);
+        if (pnr == null) return false;
+        // Use updated setters for expanded fields
+        pnr.setCurrentStatus(newStatus);
+        pnr.setChartPrepared(chartPrepared);
+        if (coach != null) pnr.setCoach(coach);
+        if (seatNumber != null) pnr.setSeatNumber(seatNumber);
+        pnr.setRacNumber(racNumber);
+        pnr.setWlNumber(wlNumber);
+        pnrs.markDirty();
+        index.put(pnr);
+        return true;
+    }
+
+    // Chart preparation: copy each ticket's final status, seat and queue place into its PNR and mark it charted.
+    // One bulk index write and one dirty mark for the whole run; returns how many PNRs were updated.
+    public int recordChart(List<Ticket> charted) throws IOException {
+        ArrayList<PNRRecord> updated = new ArrayList<>(charted.size());
+        for (Ticket t : charted) {
+            PNRRecord pnr = pnrs.findById(t.getPnrNumber());
+            if (pnr == null) continue;
+            copyStatus(t, pnr);
+            pnr.setChartPrepared(true);
+            updated.add(pnr);
         }
-        if (found) {
-            fileManager.savePNRRecords(records);
+        if (updated.isEmpty()) return 0;
+        pnrs.markDirty();
+        index.putAll(updated);
+        return updated.size();
+    }
+
+    // Promotions on a cancellation (RAC to confirmed, waitlist to RAC): copy each ticket's new status, seat and
+    // queue place into its PNR, with one bulk index write, so a status check sees the promotion straight away
+    public int recordPromotions(List<Ticket> promoted) throws IOException {
+        ArrayList<PNRRecord> updated = new ArrayList<>(promoted.size());
+        for (Ticket t : promoted) {
+            PNRRecord pnr = pnrs.findById(t.getPnrNumber());
+            if (pnr == null) continue;
+            copyStatus(t, pnr);
+            updated.add(pnr);
         }
-        return found;
+        if (updated.isEmpty()) return 0;
+        pnrs.markDirty();
+        index.putAll(updated);
+        return updated.size();
+    }
+
+    private static void copyStatus(Ticket t, PNRRecord pnr) {
+        pnr.setCurrentStatus(t.getStatus());
+        pnr.setSeatNumber(String.valueOf(t.getSeatNum()));
+        pnr.setRacNumber(t.getRacNumber());
+        pnr.setWlNumber(t.getWlNumber());
     }
 
     // Generate and save new PNR record (called after booking)
     public void generatePNR(PNRRecord record) throws IOException {
-        ArrayList<PNRRecord> records = fileManager.loadPNRRecords();
-        records.add(record);
-        fileManager.savePNRRecords(records);
+        pnrs.save(record);
+        index.put(record);
     }
 
-    // Optional: List all PNRs for a user (for dashboard/history)
-    public ArrayList<PNRRecord> getPNRsForUser(String userId) throws IOException {
-        ArrayList<PNRRecord> records = fileManager.loadPNRRecords();
-        ArrayList<PNRRecord> userPNRs = new ArrayList<>();
-        for (PNRRecord pnr : records) {
-            if (pnr.getUserId().equals(userId)) {
-                userPNRs.add(pnr);
-            }
+    // Save all passenger records of a group booking (one index write for the whole group)
+    public void generateGroupPNR(List<PNRRecord> records) throws IOException {
+        pnrs.saveAll(records);
+        index.putAll(records);
+    }
+
+    // Status of every passenger under a PNR: a single booking gives one record, a group one per passenger
+    public ArrayList<PNRRecord> checkGroupStatus(String pnrNumber) throws IOException {
+        ArrayList<PNRRecord> records = new ArrayList<>();
+        PNRRecord single = checkPNRStatus(pnrNumber);
+        if (single != null) {
+            records.add(single);
+            return records;
+        }
+        if (!PNRGenerator.isWellFormed(pnrNumber) || !PNRGenerator.groupOf(pnrNumber).equals(pnrNumber)) return records;
+        for (int i = 1; i <= GroupBookingRequest.MAX_PASSENGERS; i++) {
+            PNRRecord member = index.find(PNRGenerator.passengerPnr(pnrNumber, i));
+            if (member == null) break;
+            records.add(withLivePosition(member));
         }
-        return userPNRs;
+        return records;
+    }
+
+    // List all PNRs for a user (for dashboard/history), served from the user index
+    public ArrayList<PNRRecord> getPNRsForUser(String userId) throws IOException {
+        return pnrs.findByUser(userId);
+    }
+
+    // One page of a user's PNRs, most recent first
+    public ArrayList<PNRRecord> getRecentPNRsForUser(String userId, int offset, int limit) throws IOException {
+        return pnrs.findRecentByUser(userId, offset, limit);
     }
 }
@@ -0,0 +1,18 @@
+package railway.service;
+
+/**
+ * Reservation quota a booking is made under.
+ * TATKAL bookings are charged the "TATKAL" fare rule on top of the class fare (1.0 unless set).
+ */
+public enum Quota {
+    GENERAL,
+    TATKAL,
+    LADIES,
+    SENIOR_CITIZEN;
+
+    /** Parses a quota name case-insensitively; blank means GENERAL. */
+    public static Quota parse(String text) {
+        if (text == null || text.trim().isEmpty()) return GENERAL;
+        return valueOf(text.trim().toUpperCase().replace(' ', '_'));
+    }
+}
@@ -2,182 +2,161 @@ package railway.service;
 
 import railway.entities.*;
 import railway.model.*;
-import railway.storage.FileManager;
+import railway.repository.DataStore;
+import railway.exception.BookingConflictException;
 import railway.exception.InvalidInputException;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Scanner;
 
 /**
  * Handles customer and admin reservations, booking, cancellation, and viewing bookings.
+ * Pure API: no console I/O, so it can be driven by the console app, tests, load generators or a server.
  */
 public class ReservationSystem {
-    private FileManager fileManager;
-
-    public ReservationSystem(FileManager fileManager) {
-        this.fileManager = fileManager;
+    private DataStore store;
+    private BookingEngine engine;
+    private PNRService pnrService;
+    private final FareTable fares;
+
+    public ReservationSystem(DataStore store, PNRService pnrService) {
+        this.store = store;
+        this.engine = new BookingEngine(store);
+        this.pnrService = pnrService;
+        this.fares = new FareTable(store.trains());
     }
 
-    // Book ticket with multi-class, queue-aware logic
-    public Ticket bookTicket(Train train, Passenger passenger, String userId, String journeyDate)
-            throws IOException, InvalidInputException {
+    public BookingEngine getEngine() {
+        return engine;
+    }
 
-        HashMap<String, ClassSeatInfo> classes = train.getSeatClasses();
-        Scanner sc = new Scanner(System.in);
+    // Book one passenger from a request (class, seat preference and quota given up front, no console I/O)
+    public BookingResult book(BookingRequest request) throws IOException {
+        Train train = store.trains().findById(request.getTrainNumber());
+        if (train == null) return BookingResult.failure(BookingResult.Reason.NOT_FOUND, "Train not found.");
+        ClassSeatInfo selectedClass = train.getSeatClasses().get(request.getTicketClass());
+        if (selectedClass == null) {
+            return BookingResult.failure(BookingResult.Reason.NOT_FOUND, "Class not found for this train.");
+        }
+        Passenger passenger = request.getPassenger();
+        if (passenger == null || passenger.getName() == null || passenger.getName().trim().isEmpty()) {
+            return BookingResult.failure("Passenger name is required.");
+        }
+        if (passenger.getAge() <= 0) return BookingResult.failure("Passenger age must be positive.");
+
+        // Priced from one fare-rules snapshot, even if the rules are reloaded meanwhile
+        double fare = fares.quote(train, request.getTicketClass(), request.getQuota());
+
+        Ticket ticket;
+        try {
+            // Booking logic: confirmed → RAC → waitlist
+            ticket = engine.bookAtFare(train, request, fare);
+        } catch (BookingConflictException e) {
+            return BookingResult.failure(BookingResult.Reason.CONFLICT, e.getMessage());
+        } catch (InvalidInputException e) {
+            return BookingResult.failure(e.getMessage());
+        }
 
-        // List all available classes to the user
-        ArrayList<String> availableClasses = train.getAvailableClasses();
-        System.out.println("Available Classes: " + String.join(", ", availableClasses));
-        System.out.print("Select class for booking: ");
-        String ticketClass = sc.nextLine().trim();
+        PNRRecord pnrRecord = PNRRecord.forTicket(ticket);
+        pnrService.generatePNR(pnrRecord);
+        return BookingResult.success(ticket, pnrRecord);
+    }
 
-        if (!classes.containsKey(ticketClass)) {
-            throw new InvalidInputException("Class not found for this train.");
+    // Book a party of passengers under one PNR, allocated as a block (see BookingEngine.bookGroup)
+    public GroupBookingResult bookGroup(GroupBookingRequest request) throws IOException {
+        Train train = store.trains().findById(request.getTrainNumber());
+        if (train == null) return GroupBookingResult.failure(BookingResult.Reason.NOT_FOUND, "Train not found.");
+        ClassSeatInfo selectedClass = train.getSeatClasses().get(request.getTicketClass());
+        if (selectedClass == null) {
+            return GroupBookingResult.failure(BookingResult.Reason.NOT_FOUND, "Class not found for this train.");
         }
-
-        ClassSeatInfo selectedClass = classes.get(ticketClass);
-
-        // Print seat map before selection
-        train.printSeatMap(ticketClass);
-
-        // Booking logic: confirmed → RAC → waitlist
-        String bookingStatus;
-        int seatNum = -1, wlNumber = 0, racNumber = 0;
-        double fare = selectedClass.baseFare;
-        String status;
-
-        if (selectedClass.seatsAvailable()) {
-            // Confirmed booking
-            System.out.print("Enter seat number to book (1-" + selectedClass.totalSeats + "): ");
-            seatNum = sc.nextInt();
-            sc.nextLine(); // consume
-            selectedClass.bookSeat(seatNum); // throws if error
-            selectedClass.availableSeats--;
-            status = "CONFIRMED";
-        } else if (selectedClass.racAvailable()) {
-            racNumber = selectedClass.racQueue.size() + 1;
-            status = "RAC";
-        } else if (selectedClass.waitlistAvailable()) {
-            wlNumber = selectedClass.waitlistQueue.size() + 1;
-            status = "WAITLIST";
-        } else {
-            throw new InvalidInputException("No booking options available in this class.");
+        if (request.size() == 0) return GroupBookingResult.failure("At least one passenger is required.");
+        if (request.size() > GroupBookingRequest.MAX_PASSENGERS) {
+            return GroupBookingResult.failure("At most " + GroupBookingRequest.MAX_PASSENGERS + " passengers per PNR.");
         }
-
-        // Generate PNR
-        String pnr = "PNR" + System.currentTimeMillis();
-
-        // Create the ticket (use your relevant concrete ticket class OR Ticket directly)
-        Ticket ticket = new ACClassTicket(
-                pnr,
-                userId,
-                train.getTrainNumber(),
-                passenger.getName(),
-                passenger.getAge(),
-                ticketClass,
-                journeyDate,
-                status,
-                fare,
-                seatNum,
-                wlNumber,
-                racNumber,
-                journeyDate
-        );
-
-        // Assign to appropriate queue
-        String queueStatus = selectedClass.assignTicket(ticket); // internally handles status for RAC/WL too
-
-        // Save to persistent storage (add to main ticket list and update train list)
-        ArrayList<Ticket> tickets = fileManager.loadReservations();
-        tickets.add(ticket);
-        fileManager.saveReservations(tickets);
-
-        ArrayList<Train> trains = fileManager.loadTrains();
-        for (Train t : trains) {
-            if (t.getTrainNumber().equals(train.getTrainNumber())) {
-                t.setSeatClasses(classes); // store updated queue/seat info
-                break;
+        for (Passenger passenger : request.getPassengers()) {
+            if (passenger == null || passenger.getName() == null || passenger.getName().trim().isEmpty()) {
+                return GroupBookingResult.failure("Passenger name is required.");
             }
+            if (passenger.getAge() <= 0) return GroupBookingResult.failure("Passenger age must be positive.");
         }
-        fileManager.saveTrains(trains);
 
-        // Show seat map after booking
-        train.printSeatMap(ticketClass);
+        double fare = fares.quote(train, request.getTicketClass(), request.getQuota());
 
-        System.out.println("Booking successful! Your status: " + ticket.getDisplayStatus());
+        ArrayList<Ticket> group;
+        try {
+            group = engine.bookGroupAtFare(train, request, fare);
+        } catch (BookingConflictException e) {
+            return GroupBookingResult.failure(BookingResult.Reason.CONFLICT, e.getMessage());
+        } catch (InvalidInputException e) {
+            return GroupBookingResult.failure(e.getMessage());
+        }
 
-        return ticket;
+        ArrayList<PNRRecord> records = new ArrayList<>(group.size());
+        for (Ticket ticket : group) records.add(PNRRecord.forTicket(ticket));
+        pnrService.generateGroupPNR(records);
+        return GroupBookingResult.success(PNRGenerator.groupOf(group.get(0).getPnrNumber()), group, records);
     }
 
-    // Cancel ticket by PNR (promote RAC/WL if needed)
-    public boolean cancelTicket(String pnrNumber) throws IOException, InvalidInputException {
-        ArrayList<Ticket> tickets = fileManager.loadReservations();
-        Ticket ticketToCancel = null;
-        for (Ticket t : tickets) {
-            if (t.getPnrNumber().equals(pnrNumber)) {
-                ticketToCancel = t;
-                break;
-            }
-        }
-        if (ticketToCancel == null) throw new InvalidInputException("Ticket not found.");
-
-        // Find train and class to cancel from
-        ArrayList<Train> trains = fileManager.loadTrains();
-        for (Train train : trains) {
-            if (train.getTrainNumber().equals(ticketToCancel.getTrainNumber())) {
-                HashMap<String, ClassSeatInfo> classes = train.getSeatClasses();
-                if (!classes.containsKey(ticketToCancel.getTicketClass())) {
-                    throw new InvalidInputException("Class not found for this train.");
-                }
-                ClassSeatInfo selectedClass = classes.get(ticketToCancel.getTicketClass());
-
-                // Remove from relevant queue and free seat if applicable
-                if ("CONFIRMED".equalsIgnoreCase(ticketToCancel.getStatus()) && ticketToCancel.getSeatNum() > 0) {
-                    selectedClass.confirmedTickets.remove(ticketToCancel);
-                    selectedClass.cancelSeat(ticketToCancel.getSeatNum());
-                    selectedClass.availableSeats++;
-                    selectedClass.promoteTickets();
-                } else if ("RAC".equalsIgnoreCase(ticketToCancel.getStatus())) {
-                    selectedClass.racQueue.remove(ticketToCancel);
-                    selectedClass.promoteTickets();
-                } else if ("WAITLIST".equalsIgnoreCase(ticketToCancel.getStatus())) {
-                    selectedClass.waitlistQueue.remove(ticketToCancel);
-                }
-                fileManager.saveTrains(trains);
-                train.printSeatMap(ticketToCancel.getTicketClass());
-                break;
-            }
+    // Cancel ticket by PNR (promote RAC/WL if needed) and mark its PNR record cancelled; returns the cancelled ticket.
+    // The PNRs of the promoted tickets are updated too, so their holders see the promotion at once.
+    public Ticket cancelTicket(String pnrNumber) throws IOException, InvalidInputException {
+        ArrayList<Ticket> promoted = new ArrayList<>();
+        Ticket cancelled = engine.cancel(pnrNumber, promoted);
+        // Pass null for coach/seat to keep history, and 0 for queues
+        pnrService.updatePNRStatus(pnrNumber, "CANCELLED", false, null, null, 0, 0);
+        pnrService.recordPromotions(promoted);
+        return cancelled;
+    }
+
+    // Cancel every still-active passenger of a group PNR; returns the cancelled tickets
+    public ArrayList<Ticket> cancelGroup(String groupPnr) throws IOException, InvalidInputException {
+        ArrayList<Ticket> cancelled = new ArrayList<>();
+        for (int i = 1; i <= GroupBookingRequest.MAX_PASSENGERS; i++) {
+            String pnr = PNRGenerator.passengerPnr(groupPnr, i);
+            if (store.tickets().findByPnr(pnr) != null) cancelled.add(cancelTicket(pnr));
         }
-        boolean found = tickets.remove(ticketToCancel);
-        fileManager.saveReservations(tickets);
-        System.out.println("Booking cancelled. Status released: " + ticketToCancel.getDisplayStatus());
-        return found;
+        if (cancelled.isEmpty()) throw new InvalidInputException("Ticket not found.");
+        return cancelled;
+    }
+
+    // Look up an active booking by PNR
+    public Ticket findBooking(String pnrNumber) {
+        return store.tickets().findByPnr(pnrNumber);
     }
 
     // View all bookings for a user
     public ArrayList<Ticket> viewBookings(String userId) throws IOException {
-        ArrayList<Ticket> tickets = fileManager.loadReservations();
-        ArrayList<Ticket> myTickets = new ArrayList<>();
-        for (Ticket t : tickets) {
-            if (t.getUserId().equals(userId)) {
-                myTickets.add(t);
-            }
-        }
-        return myTickets;
+        return store.tickets().findByUser(userId);
     }
 
-    // Check seat availability for a train class
-    public int checkSeatAvailability(String trainNumber, String classType) throws IOException {
-        ArrayList<Train> trains = fileManager.loadTrains();
-        for (Train t : trains) {
-            if (t.getTrainNumber().equals(trainNumber)) {
-                HashMap<String, ClassSeatInfo> classes = t.getSeatClasses();
-                if (classes.containsKey(classType)) {
-                    return classes.get(classType).availableSeats;
-                }
-            }
+    // One page of a user's bookings, most recent first
+    public ArrayList<Ticket> viewRecentBookings(String userId, int offset, int limit) {
+        return store.tickets().findRecentByUser(userId, offset, limit);
+    }
+
+    // Seats, counters and queues of a train class on one journey date (read-only; null if no such class)
+    public ClassSeatInfo viewClass(Train train, String classType, LocalDate journeyDate) {
+        return store.inventory().view(train, journeyDate, classType);
+    }
+
+    // Per-passenger fare of a train class under a quota, from the precomputed fare table (-1 if no such class)
+    public double quoteFare(Train train, String classType, Quota quota) {
+        return fares.quote(train, classType, quota);
+    }
+
+    // Reprice every train after a fare-rules change, so searches find the fares ready
+    public void refreshFares() {
+        fares.refresh(store.trains().findAll());
+    }
+
+    // Check seat availability for a train class on a journey date
+    public int checkSeatAvailability(String trainNumber, String classType, LocalDate journeyDate) throws IOException {
+        Train t = store.trains().findById(trainNumber);
+        if (t != null) {
+            ClassSeatInfo info = viewClass(t, classType, journeyDate);
+            if (info != null) return info.getAvailableSeats();
         }
         return 0;
     }
@@ -2,103 +2,77 @@ package railway.service;
 
 import railway.entities.Train;
 import railway.entities.ClassSeatInfo;
-import railway.storage.FileManager;
 import railway.exception.InvalidInputException;
+import railway.repository.JourneyInventory;
+import railway.repository.TrainRepository;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 /**
  * Handles admin operations: add/update/delete/search trains, fully compatible with multi-class model.
  */
 public class TrainManagementService {
-    private FileManager fileManager;
+    private TrainRepository trains;
+    private JourneyInventory inventory; // seats per journey; null when only templates are known
 
-    public TrainManagementService(FileManager fileManager) {
-        this.fileManager = fileManager;
+    public TrainManagementService(TrainRepository trains) {
+        this(trains, null);
+    }
+
+    public TrainManagementService(TrainRepository trains, JourneyInventory inventory) {
+        this.trains = trains;
+        this.inventory = inventory;
     }
 
     // Add a train with multiple seat classes
     public void addTrain(Train train) throws IOException {
-        ArrayList<Train> trains = fileManager.loadTrains();
-        for (Train t : trains) {
-            if (t.getTrainNumber().equals(train.getTrainNumber())) {
-                throw new IOException("Train with this number already exists.");
-            }
+        if (trains.findById(train.getTrainNumber()) != null) {
+            throw new IOException("Train with this number already exists.");
         }
-        trains.add(train);
-        fileManager.saveTrains(trains);
+        trains.save(train);
     }
 
-    // Update train details (including seat classes, quotas, fares, and queues)
-    public void updateTrain(String trainNumber, Train updatedTrain) throws IOException {
-        ArrayList<Train> trains = fileManager.loadTrains();
-        boolean found = false;
-        for (int i = 0; i < trains.size(); i++) {
-            if (trains.get(i).getTrainNumber().equals(trainNumber)) {
-                trains.set(i, updatedTrain);
-                found = true;
-                break;
-            }
+    // Update train details (including seat classes, quotas, fares, and queues); booked journeys follow the new classes
+    public void updateTrain(String trainNumber, Train updatedTrain) throws IOException, InvalidInputException {
+        if (trains.findById(trainNumber) == null) throw new IOException("Train not found.");
+        if (trainNumber.equals(updatedTrain.getTrainNumber())) {
+            trains.update(updatedTrain);
+            return;
+        }
+        if (trains.hasBookings(trainNumber)) {
+            throw new InvalidInputException("Train " + trainNumber + " has bookings; its number cannot change.");
         }
-        if (!found) throw new IOException("Train not found.");
-        fileManager.saveTrains(trains);
+        trains.delete(trainNumber);
+        trains.update(updatedTrain);
     }
 
     // Delete train by number
     public void deleteTrain(String trainNumber) throws IOException {
-        ArrayList<Train> trains = fileManager.loadTrains();
-        boolean found = trains.removeIf(t -> t.getTrainNumber().equals(trainNumber));
-        if (!found) throw new IOException("Train not found.");
-        fileManager.saveTrains(trains);
+        if (!trains.delete(trainNumber)) throw new IOException("Train not found.");
     }
 
-    // Search trains by source/destination (case-insensitive, partial match)
+    // Search trains by source/destination (case-insensitive, partial match) via the route index
     public ArrayList<Train> searchTrains(String source, String destination) throws IOException {
-        ArrayList<Train> result = new ArrayList<>();
-        ArrayList<Train> allTrains = fileManager.loadTrains();
-
-        String srcLower = source.trim().toLowerCase();
-        String destLower = destination.trim().toLowerCase();
-
-        for (Train t : allTrains) {
-            String trainSource = t.getSource().toLowerCase();
-            String trainDest = t.getDestination().toLowerCase();
-            if (trainSource.contains(srcLower) && trainDest.contains(destLower)) {
-                result.add(t);
-            }
-        }
-        return result;
+        return trains.searchByRoute(source, destination);
     }
 
-    // Optional: search by class availability (show only trains with seats in given class)
-    public ArrayList<Train> searchTrainsByClass(String source, String destination, String classType) throws IOException {
+    // Search by class availability: trains with a free seat in the given class on that journey date
+    public ArrayList<Train> searchTrainsByClass(String source, String destination, String classType,
+                                                LocalDate journeyDate) throws IOException {
         ArrayList<Train> result = new ArrayList<>();
-        ArrayList<Train> allTrains = fileManager.loadTrains();
-
-        String srcLower = source.trim().toLowerCase();
-        String destLower = destination.trim().toLowerCase();
-
-        for (Train t : allTrains) {
-            String trainSource = t.getSource().toLowerCase();
-            String trainDest = t.getDestination().toLowerCase();
-            if (trainSource.contains(srcLower) && trainDest.contains(destLower)) {
-                HashMap<String, ClassSeatInfo> classes = t.getSeatClasses();
-                if (classes.containsKey(classType) && classes.get(classType).availableSeats > 0) {
-                    result.add(t);
-                }
-            }
+        for (Train t : trains.searchByRoute(source, destination)) {
+            // The templates are never booked; the journey's shard (if any) holds that day's seats
+            ClassSeatInfo info = inventory != null ? inventory.view(t, journeyDate, classType)
+                    : t.getSeatClasses().get(classType);
+            if (info != null && info.seatsAvailable()) result.add(t);
         }
         return result;
     }
 
     // Optional: get train by train number
     public Train searchTrainByNumber(String trainNumber) throws IOException {
-        ArrayList<Train> allTrains = fileManager.loadTrains();
-        for (Train t : allTrains) {
-            if (t.getTrainNumber().equals(trainNumber)) return t;
-        }
-        return null;
+        return trains.findById(trainNumber);
     }
 }
@@ -0,0 +1,91 @@
+package railway.storage;
+
+import railway.entities.PNRRecord;
+import railway.model.ACClassTicket;
+import railway.model.SleeperClassTicket;
+import railway.model.Ticket;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Shared binary encoding of entities for the journal and checkpoint files.
+ */
+final class BinaryCodec {
+
+    private BinaryCodec() {}
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        out.writeUTF(s == null ? "" : s);
+    }
+
+    static void writeTicket(DataOutput out, Ticket t) throws IOException {
+        writeString(out, t.getPnrNumber());
+        writeString(out, t.getUserId());
+        writeString(out, t.getTrainNumber());
+        writeString(out, t.getPassengerName());
+        out.writeInt(t.getAge());
+        writeString(out, t.getTicketClass());
+        writeString(out, t.getBookingDate());
+        writeString(out, t.getStatus());
+        out.writeDouble(t.getFare());
+        out.writeInt(t.getSeatNum());
+        out.writeInt(t.getWlNumber());
+        out.writeInt(t.getRacNumber());
+        writeString(out, t.getJourneyDate());
+        writeString(out, t.getBoardingStation());
+        writeString(out, t.getAlightingStation());
+    }
+
+    /** Reads a ticket; {@code withStations} is false for files written before boarding/alighting stations were stored. */
+    static Ticket readTicket(DataInput in, boolean withStations) throws IOException {
+        String pnrNumber = in.readUTF();
+        String userId = in.readUTF();
+        String trainNumber = in.readUTF();
+        String passengerName = in.readUTF();
+        int age = in.readInt();
+        String ticketClass = in.readUTF();
+        Ticket ticket = ticketClass.toUpperCase().startsWith("AC") ? new ACClassTicket() : new SleeperClassTicket();
+        ticket.setPnrNumber(pnrNumber);
+        ticket.setUserId(userId);
+        ticket.setTrainNumber(trainNumber);
+        ticket.setPassengerName(passengerName);
+        ticket.setAge(age);
+        ticket.setTicketClass(ticketClass);
+        ticket.setBookingDate(in.readUTF());
+        ticket.setStatus(in.readUTF());
+        ticket.setFare(in.readDouble());
+        ticket.setSeatNum(in.readInt());
+        ticket.setWlNumber(in.readInt());
+        ticket.setRacNumber(in.readInt());
+        ticket.setJourneyDate(in.readUTF());
+        if (withStations) {
+            ticket.setBoardingStation(in.readUTF());
+            ticket.setAlightingStation(in.readUTF());
+        }
+        return ticket;
+    }
+
+    static void writePNR(DataOutput out, PNRRecord p) throws IOException {
+        writeString(out, p.getPnrNumber());
+        writeString(out, p.getTrainNumber());
+        writeString(out, p.getUserId());
+        writeString(out, p.getPassengerName());
+        writeString(out, p.getCoach());
+        writeString(out, p.getSeatNumber());
+        writeString(out, p.getJourneyDate());
+        writeString(out, p.getTicketClass());
+        writeString(out, p.getBookingStatus());
+        writeString(out, p.getCurrentStatus());
+        out.writeInt(p.getRacNumber());
+        out.writeInt(p.getWlNumber());
+        out.writeBoolean(p.isChartPrepared());
+    }
+
+    static PNRRecord readPNR(DataInput in) throws IOException {
+        return new PNRRecord(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                in.readInt(), in.readInt(), in.readBoolean());
+    }
+}
@@ -0,0 +1,279 @@
+package railway.storage;
+
+import railway.auth.Admin;
+import railway.auth.Customer;
+import railway.entities.ClassSeatInfo;
+import railway.entities.PNRRecord;
+import railway.entities.Train;
+import railway.model.Ticket;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary checkpoint of the full in-memory state (trains, users, admins, tickets, PNRs).
+ *
+ * A checkpoint is written to a temp file, fsynced, and atomically renamed over the previous one,
+ * so a crash mid-write never replaces good data. The checkpoint it replaces is kept as
+ * checkpoint.bin.prev, so one that later turns out unreadable still has an older generation to
+ * fall back to. It records the journal generation that was started when the snapshot was taken;
+ * startup loads the checkpoint and replays only the journal segments from that generation on.
+ *
+ * Layout: int magic | int version | long journalGeneration | long pnrIndexId | long pnrIndexLength |
+ * sections... | long crc32
+ * Version 4 writes train classes as templates only (capacity, fare, RAC/WL limits); older files
+ * also held a free-seat count and seat bitmap per class, which are skipped: seats are booked in
+ * the journey inventory, never on a template.
+ * Version 3 added the PNR index position; older files load as if it were unknown.
+ * Version 2 added train stop lists and ticket boarding/alighting stations; version 1 files
+ * still load, as trains without intermediate stops and tickets for the whole run.
+ */
+public class CheckpointFile {
+    private static final int MAGIC = 0x52434B50; // "RCKP"
+    private static final int VERSION = 4;
+
+    /** Everything a checkpoint holds. */
+    public static class Snapshot {
+        public long journalGeneration;
+        /** The PNR index's record file (id and length) when the PNRs below were copied. */
+        public long pnrIndexId;
+        public long pnrIndexLength;
+        public ArrayList<Train> trains = new ArrayList<>();
+        public ArrayList<Customer> customers = new ArrayList<>();
+        public ArrayList<Admin> admins = new ArrayList<>();
+        public Collection<Ticket> tickets = new ArrayList<>();
+        public ArrayList<PNRRecord> pnrs = new ArrayList<>();
+    }
+
+    private final Path path;
+    private final Path previous;
+
+    public CheckpointFile(Path path) {
+        this.path = path;
+        this.previous = path.resolveSibling(path.getFileName() + ".prev");
+    }
+
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    // ========== WRITE ==========
+    /** Writes a checkpoint, keeping the one it replaces as the previous generation. */
+    public void write(Snapshot s) throws IOException {
+        write(s, true);
+    }
+
+    /**
+     * Writes a checkpoint. With {@code keepPrevious} the current checkpoint, if any, becomes
+     * checkpoint.bin.prev first; without it the current one is overwritten and the previous
+     * generation stays as it is (used when the current file is known to be unreadable).
+     */
+    public void write(Snapshot s, boolean keepPrevious) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(fos, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(s.journalGeneration);
+            out.writeLong(s.pnrIndexId);
+            out.writeLong(s.pnrIndexLength);
+
+            out.writeInt(s.trains.size());
+            for (Train t : s.trains) writeTrain(out, t);
+
+            out.writeInt(s.customers.size());
+            for (Customer c : s.customers) {
+                BinaryCodec.writeString(out, c.getUserId());
+                BinaryCodec.writeString(out, c.getUsername());
+                BinaryCodec.writeString(out, c.getPassword());
+                BinaryCodec.writeString(out, c.getContactNumber());
+                BinaryCodec.writeString(out, c.getRegistrationDate());
+            }
+
+            out.writeInt(s.admins.size());
+            for (Admin a : s.admins) {
+                BinaryCodec.writeString(out, a.getUserId());
+                BinaryCodec.writeString(out, a.getUsername());
+                BinaryCodec.writeString(out, a.getPassword());
+                BinaryCodec.writeString(out, a.getPrivilegeLevel());
+                BinaryCodec.writeString(out, a.getEmail());
+            }
+
+            out.writeInt(s.tickets.size());
+            for (Ticket t : s.tickets) BinaryCodec.writeTicket(out, t);
+
+            out.writeInt(s.pnrs.size());
+            for (PNRRecord p : s.pnrs) BinaryCodec.writePNR(out, p);
+
+            out.flush();
+            // CRC of everything above; the trailer itself is not checksummed
+            new DataOutputStream(fos).writeLong(crc.getValue());
+            fos.getFD().sync();
+        }
+        // Crashing between the two renames leaves only .prev, which startup falls back to
+        if (keepPrevious && Files.exists(path)) {
+            Files.move(path, previous, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    private void syncDirectory() {
+        // Make the rename itself durable where the platform allows opening a directory
+        try (FileChannel dir = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // not supported on this platform
+        }
+    }
+
+    private static void writeTrain(DataOutputStream out, Train t) throws IOException {
+        BinaryCodec.writeString(out, t.getTrainNumber());
+        BinaryCodec.writeString(out, t.getTrainName());
+        BinaryCodec.writeString(out, t.getSource());
+        BinaryCodec.writeString(out, t.getDestination());
+        out.writeInt(t.getStops().size());
+        for (String stop : t.getStops()) BinaryCodec.writeString(out, stop);
+        HashMap<String, ClassSeatInfo> classes = t.getSeatClasses();
+        out.writeInt(classes.size());
+        for (Map.Entry<String, ClassSeatInfo> e : classes.entrySet()) {
+            ClassSeatInfo info = e.getValue();
+            BinaryCodec.writeString(out, e.getKey());
+            out.writeInt(info.totalSeats);
+            out.writeDouble(info.baseFare);
+            out.writeInt(info.maxRacSeats);
+            out.writeInt(info.maxWaitlist);
+        }
+    }
+
+    // ========== READ ==========
+    /** Returns the last durable checkpoint, or null if there is none. Throws if it is corrupt. */
+    public Snapshot read() throws IOException {
+        return read(path);
+    }
+
+    /** Reads the previous generation kept by the last write; null if there is none. */
+    public Snapshot readPrevious() throws IOException {
+        return read(previous);
+    }
+
+    private static Snapshot read(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+        long length = Files.size(path);
+        if (length < 8) throw new IOException("Checkpoint truncated: " + path);
+
+        CRC32 crc = new CRC32();
+        Snapshot s = new Snapshot();
+        try (FileInputStream fis = new FileInputStream(path.toFile())) {
+            // Only the body goes through the checksum; the 8-byte trailer is read separately
+            InputStream body = new BoundedInputStream(fis, length - 8);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new CheckedInputStream(body, crc), 1 << 16));
+            if (in.readInt() != MAGIC) throw new IOException("Not a checkpoint: " + path);
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported checkpoint version " + version + ": " + path);
+            s.journalGeneration = in.readLong();
+            if (version >= 3) {
+                s.pnrIndexId = in.readLong();
+                s.pnrIndexLength = in.readLong();
+            }
+
+            int trainCount = in.readInt();
+            for (int i = 0; i < trainCount; i++) s.trains.add(readTrain(in, version));
+
+            int customerCount = in.readInt();
+            for (int i = 0; i < customerCount; i++) {
+                s.customers.add(new Customer(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+
+            int adminCount = in.readInt();
+            for (int i = 0; i < adminCount; i++) {
+                s.admins.add(new Admin(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+
+            int ticketCount = in.readInt();
+            ArrayList<Ticket> tickets = new ArrayList<>(ticketCount);
+            for (int i = 0; i < ticketCount; i++) tickets.add(BinaryCodec.readTicket(in, version >= 2));
+            s.tickets = tickets;
+
+            int pnrCount = in.readInt();
+            s.pnrs.ensureCapacity(pnrCount);
+            for (int i = 0; i < pnrCount; i++) s.pnrs.add(BinaryCodec.readPNR(in));
+
+            if (in.read() != -1) throw new IOException("Checkpoint has trailing data: " + path);
+            long expected = new DataInputStream(fis).readLong();
+            if (expected != crc.getValue()) throw new IOException("Checkpoint checksum mismatch: " + path);
+        } catch (EOFException e) {
+            throw new IOException("Checkpoint truncated: " + path, e);
+        }
+        return s;
+    }
+
+    private static Train readTrain(DataInputStream in, int version) throws IOException {
+        String number = in.readUTF();
+        String name = in.readUTF();
+        String source = in.readUTF();
+        String destination = in.readUTF();
+        ArrayList<String> stops = new ArrayList<>();
+        if (version >= 2) {
+            int stopCount = in.readInt();
+            for (int i = 0; i < stopCount; i++) stops.add(in.readUTF());
+        }
+        int classCount = in.readInt();
+        HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+        for (int c = 0; c < classCount; c++) {
+            String classType = in.readUTF();
+            int totalSeats = in.readInt();
+            if (version < 4) in.readInt(); // free-seat count of the template
+            double baseFare = in.readDouble();
+            int maxRac = in.readInt();
+            int maxWL = in.readInt();
+            if (version < 4) in.skipNBytes(8L * ((totalSeats + 63) / 64)); // template seat bitmap
+            classes.put(classType, new ClassSeatInfo(totalSeats, baseFare, maxRac, maxWL));
+        }
+        return new Train(number, name, source, destination, classes, stops);
+    }
+
+    /** Stops after a fixed number of bytes so the trailer stays outside the checksum. */
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(buf, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // the underlying stream is closed by the caller
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package railway.storage;
+
+import railway.model.FareConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads fare_rules.txt whenever it changes on disk, so edits apply without a restart.
+ *
+ * A daemon thread waits on a WatchService for the data directory. After a change to the rules
+ * file it waits until {@link #QUIET_MILLIS} pass without another event (editors often write a
+ * file in several steps), reads the whole file and publishes it as one new snapshot with
+ * {@link FareConfig#replaceRules}. Bookings already holding a snapshot finish with it. A file
+ * that cannot be read or parsed leaves the rules in force untouched; a deleted file means the
+ * defaults, as at startup.
+ */
+public class FareRulesWatcher implements Closeable {
+    static final long QUIET_MILLIS = 200;
+
+    private final FileManager fileManager;
+    private final Path fileName;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private FareRulesWatcher(FileManager fileManager) throws IOException {
+        this.fileManager = fileManager;
+        Path file = fileManager.getFareRulesFile().toPath().toAbsolutePath();
+        this.fileName = file.getFileName();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.thread = new Thread(this::run, "fare-rules-watcher");
+        thread.setDaemon(true);
+    }
+
+    /** Starts watching the rules file of the data directory. */
+    public static FareRulesWatcher start(FileManager fileManager) throws IOException {
+        FareRulesWatcher watcher = new FareRulesWatcher(fileManager);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = drain(watchService.take());
+                if (!changed) continue;
+                // Let a burst of writes settle before reading
+                WatchKey more;
+                while ((more = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) drain(more);
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /** Consumes a key's events; true if any of them may concern the rules file. */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+
+    /** Reads the file and publishes its rules; returns whether the rules in force changed. */
+    public boolean reload() {
+        try {
+            HashMap<String, Double> rules = fileManager.loadFareRules();
+            if (!FareConfig.replaceRules(rules)) return false;
+            System.out.println("Fare rules reloaded (version " + FareConfig.current().getVersion() + ").");
+            return true;
+        } catch (IOException e) {
+            System.out.println("Warning: fare rules not reloaded, keeping the current ones: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,56 +8,64 @@ import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.*;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 
 public class FileManager {
+    private final String dataDir;
+    private ReservationJournal journal;
+    private PNRIndexFile pnrIndex;
+    private NodeIdLease nodeLease;
+    private SheetWriter.Mode exportMode = SheetWriter.Mode.STREAMING;
+
+    public FileManager() {
+        this("data");
+    }
 
-    // ========== TRAINS with MULTI-CLASS ==========
-    public void saveTrains(ArrayList<Train> trains) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("Trains");
+    public FileManager(String dataDir) {
+        this.dataDir = dataDir;
+    }
 
-        String[] trainHeaders = {"Train Number", "Train Name", "Source", "Destination", "ClassData"};
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < trainHeaders.length; i++) {
-            headerRow.createCell(i).setCellValue(trainHeaders[i]);
-        }
+    public String getDataDir() { return dataDir; }
+
+    /** STREAMING (SXSSF, default) or IN_MEMORY (XSSF + autoSizeColumn) for every save method. */
+    public void setExportMode(SheetWriter.Mode exportMode) { this.exportMode = exportMode; }
 
-        int rowNum = 1;
-        for (Train t : trains) {
-            Row row = sheet.createRow(rowNum++);
+    private String path(String fileName) {
+        return dataDir + File.separator + fileName;
+    }
+
+    // ========== TRAINS with MULTI-CLASS ==========
+    public void saveTrains(ArrayList<Train> trains) throws IOException {
+        String[] trainHeaders = {"Train Number", "Train Name", "Source", "Destination", "ClassData", "Stops"};
+        SheetWriter.write(new File(path("trains.xlsx")), "Trains", trainHeaders, trains, (t, row) -> {
             row.createCell(0).setCellValue(t.getTrainNumber());
             row.createCell(1).setCellValue(t.getTrainName());
             row.createCell(2).setCellValue(t.getSource());
             row.createCell(3).setCellValue(t.getDestination());
-            // Serialize each class as: classType:totalSeats|availSeats|baseFare|seatMap|maxRac|maxWL|confirmed:rac:wl;
+            // Serialize each class template as: classType:totalSeats|baseFare|maxRac|maxWL;
+            // (bookings live in the journey inventory and reservations.xlsx, not on the train)
             HashMap<String, ClassSeatInfo> classes = t.getSeatClasses();
             StringBuilder classData = new StringBuilder();
             for (String classType : classes.keySet()) {
                 ClassSeatInfo info = classes.get(classType);
                 classData.append(classType).append(":")
-                        .append(info.totalSeats).append("|").append(info.availableSeats).append("|")
-                        .append(info.baseFare).append("|");
-                for (boolean b : info.seats) classData.append(b ? "X" : "O");
-                classData.append("|").append(info.maxRacSeats).append("|").append(info.maxWaitlist).append("|");
-                classData.append(info.confirmedTickets.size()).append(":")
-                        .append(info.racQueue.size()).append(":").append(info.waitlistQueue.size());
-                classData.append(";");
+                        .append(info.totalSeats).append("|").append(info.baseFare).append("|")
+                        .append(info.maxRacSeats).append("|").append(info.maxWaitlist).append(";");
             }
             row.createCell(4).setCellValue(classData.toString());
-        }
-        for (int i = 0; i < trainHeaders.length; i++) sheet.autoSizeColumn(i);
-
-        FileOutputStream fos = new FileOutputStream("data/trains.xlsx");
-        workbook.write(fos);
-        workbook.close();
-        fos.close();
+            row.createCell(5).setCellValue(String.join(";", t.getStops()));
+        }, exportMode);
     }
 
     public ArrayList<Train> loadTrains() throws IOException {
         ArrayList<Train> trains = new ArrayList<>();
-        File file = new File("data/trains.xlsx");
+        File file = new File(path("trains.xlsx"));
         if (!file.exists()) return trains;
 
         FileInputStream fis = new FileInputStream(file);
@@ -78,21 +86,24 @@ public class FileManager {
                     String[] mainParts = block.split(":");
                     String classType = mainParts[0];
                     String[] details = mainParts[1].split("\\|");
+                    // Older workbooks also hold a free-seat count, an X/O seat map and queue sizes
+                    // (totalSeats|availSeats|baseFare|seatMap|maxRac|maxWL|confirmed:rac:wl); only the template is kept
+                    boolean withSeatMap = details.length > 4;
                     int totalSeats = Integer.parseInt(details[0]);
-                    int availableSeats = Integer.parseInt(details[1]);
-                    double baseFare = Double.parseDouble(details[2]);
-                    String seatMapStr = details[3];
-                    int maxRac = Integer.parseInt(details[4]);
-                    int maxWL = Integer.parseInt(details[5]);
-                    String[] queueSizes = details[6].split(":");
-                    ClassSeatInfo info = new ClassSeatInfo(totalSeats, baseFare, maxRac, maxWL);
-                    info.availableSeats = availableSeats;
-                    for (int j = 0; j < seatMapStr.length(); j++)
-                        info.seats[j] = (seatMapStr.charAt(j) == 'X');
-                    // Note: For demo, just keep queue size meta (tickets reloaded from reservations)
-                    seatClasses.put(classType, info);
+                    double baseFare = Double.parseDouble(details[withSeatMap ? 2 : 1]);
+                    int maxRac = Integer.parseInt(details[withSeatMap ? 4 : 2]);
+                    int maxWL = Integer.parseInt(details[withSeatMap ? 5 : 3]);
+                    seatClasses.put(classType, new ClassSeatInfo(totalSeats, baseFare, maxRac, maxWL));
                 }
-                trains.add(new Train(trainNumber, trainName, source, destination, seatClasses));
+                // Stops column is missing in workbooks written before stop lists existed
+                Cell stopsCell = row.getCell(5);
+                ArrayList<String> stops = new ArrayList<>();
+                if (stopsCell != null) {
+                    for (String stop : stopsCell.getStringCellValue().split(";")) {
+                        if (!stop.isBlank()) stops.add(stop.trim());
+                    }
+                }
+                trains.add(new Train(trainNumber, trainName, source, destination, seatClasses, stops));
             }
         }
         workbook.close();
@@ -102,35 +113,19 @@ public class FileManager {
 
     // ========== CUSTOMERS ==========
     public void saveUsers(ArrayList<Customer> users) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("Users");
-
         String[] headers = {"User ID", "Username", "Password", "Contact Number", "Registration Date"};
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            headerRow.createCell(i).setCellValue(headers[i]);
-        }
-
-        int rowNum = 1;
-        for (Customer c : users) {
-            Row row = sheet.createRow(rowNum++);
+        SheetWriter.write(new File(path("users.xlsx")), "Users", headers, users, (c, row) -> {
             row.createCell(0).setCellValue(c.getUserId());
             row.createCell(1).setCellValue(c.getUsername());
             row.createCell(2).setCellValue(c.getPassword());
             row.createCell(3).setCellValue(c.getContactNumber());
             row.createCell(4).setCellValue(c.getRegistrationDate());
-        }
-        for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-        FileOutputStream fos = new FileOutputStream("data/users.xlsx");
-        workbook.write(fos);
-        workbook.close();
-        fos.close();
+        }, exportMode);
     }
 
     public ArrayList<Customer> loadUsers() throws IOException {
         ArrayList<Customer> users = new ArrayList<>();
-        File file = new File("data/users.xlsx");
+        File file = new File(path("users.xlsx"));
         if (!file.exists()) return users;
 
         FileInputStream fis = new FileInputStream(file);
@@ -157,35 +152,19 @@ public class FileManager {
 
     // ========== ADMINS ==========
     public void saveAdmins(ArrayList<Admin> admins) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("Admins");
-
         String[] headers = {"Admin ID", "Username", "Password", "Privilege Level", "Email"};
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            headerRow.createCell(i).setCellValue(headers[i]);
-        }
-
-        int rowNum = 1;
-        for (Admin a : admins) {
-            Row row = sheet.createRow(rowNum++);
+        SheetWriter.write(new File(path("admin.xlsx")), "Admins", headers, admins, (a, row) -> {
             row.createCell(0).setCellValue(a.getUserId());
             row.createCell(1).setCellValue(a.getUsername());
             row.createCell(2).setCellValue(a.getPassword());
             row.createCell(3).setCellValue(a.getPrivilegeLevel());
             row.createCell(4).setCellValue(a.getEmail());
-        }
-        for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-        FileOutputStream fos = new FileOutputStream("data/admin.xlsx");
-        workbook.write(fos);
-        workbook.close();
-        fos.close();
+        }, exportMode);
     }
 
     public ArrayList<Admin> loadAdmins() throws IOException {
         ArrayList<Admin> admins = new ArrayList<>();
-        File file = new File("data/admin.xlsx");
+        File file = new File(path("admin.xlsx"));
         if (!file.exists()) return admins;
 
         FileInputStream fis = new FileInputStream(file);
@@ -212,20 +191,12 @@ public class FileManager {
 
     // ========== RESERVATIONS/TICKETS (with all new Ticket fields) ==========
     public void saveReservations(ArrayList<Ticket> tickets) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("Reservations");
         String[] headers = {
                 "PNR Number", "User ID", "Train Number", "Passenger Name", "Age", "Ticket Class",
-                "Booking Date", "Status", "Fare", "Seat Num", "WL Num", "RAC Num", "Journey Date"
+                "Booking Date", "Status", "Fare", "Seat Num", "WL Num", "RAC Num", "Journey Date",
+                "Boarding", "Alighting"
         };
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            headerRow.createCell(i).setCellValue(headers[i]);
-        }
-
-        int rowNum = 1;
-        for (Ticket t : tickets) {
-            Row row = sheet.createRow(rowNum++);
+        SheetWriter.write(new File(path("reservations.xlsx")), "Reservations", headers, tickets, (t, row) -> {
             row.createCell(0).setCellValue(t.getPnrNumber());
             row.createCell(1).setCellValue(t.getUserId());
             row.createCell(2).setCellValue(t.getTrainNumber());
@@ -239,71 +210,199 @@ public class FileManager {
             row.createCell(10).setCellValue(t.getWlNumber());
             row.createCell(11).setCellValue(t.getRacNumber());
             row.createCell(12).setCellValue(t.getJourneyDate());
-        }
-        for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-        FileOutputStream fos = new FileOutputStream("data/reservations.xlsx");
-        workbook.write(fos);
-        workbook.close();
-        fos.close();
+            row.createCell(13).setCellValue(t.getBoardingStation());
+            row.createCell(14).setCellValue(t.getAlightingStation());
+        }, exportMode);
     }
 
+    /** Loads the last exported workbook and replays the reservation journal on top of it. */
     public ArrayList<Ticket> loadReservations() throws IOException {
+        JournalOverlay overlay = new JournalOverlay();
+        getJournal().replay(overlay);
+
+        // Workbook rows first, with journalled cancellations and promotions applied, then journalled bookings
         ArrayList<Ticket> tickets = new ArrayList<>();
-        File file = new File("data/reservations.xlsx");
-        if (!file.exists()) return tickets;
+        new StreamingSheetReader(15).read(new File(path("reservations.xlsx")), FileManager::toTicket, t -> {
+            if (overlay.apply(t)) tickets.add(t);
+            return true;
+        });
+        tickets.addAll(overlay.booked.values());
+        return overlay.inQueueOrder(tickets);
+    }
 
-        FileInputStream fis = new FileInputStream(file);
-        XSSFWorkbook workbook = new XSSFWorkbook(fis);
-        XSSFSheet sheet = workbook.getSheetAt(0);
+    /**
+     * Applies the journal segments from {@code fromGeneration} on to tickets restored from a
+     * checkpoint and returns the resulting list, RAC/WL tickets in queue order.
+     */
+    public ArrayList<Ticket> replayJournal(Collection<Ticket> base, long fromGeneration) throws IOException {
+        JournalOverlay overlay = new JournalOverlay();
+        getJournal().replayFrom(fromGeneration, overlay);
+
+        ArrayList<Ticket> tickets = new ArrayList<>(base.size() + overlay.booked.size());
+        for (Ticket t : base) {
+            if (overlay.apply(t)) tickets.add(t);
+        }
+        tickets.addAll(overlay.booked.values());
+        return overlay.inQueueOrder(tickets);
+    }
 
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-            Row row = sheet.getRow(i);
-            if (row != null) {
-                String ticketClass = row.getCell(5).getStringCellValue();
-                Ticket ticket;
-                if (ticketClass.toUpperCase().startsWith("AC")) {
-                    ticket = new ACClassTicket();
-                } else {
-                    ticket = new SleeperClassTicket();
-                }
-                ticket.setPnrNumber(row.getCell(0).getStringCellValue());
-                ticket.setUserId(row.getCell(1).getStringCellValue());
-                ticket.setTrainNumber(row.getCell(2).getStringCellValue());
-                ticket.setPassengerName(row.getCell(3).getStringCellValue());
-                ticket.setAge((int) row.getCell(4).getNumericCellValue());
-                ticket.setTicketClass(ticketClass);
-                ticket.setBookingDate(row.getCell(6).getStringCellValue());
-                ticket.setStatus(row.getCell(7).getStringCellValue());
-                ticket.setFare(row.getCell(8).getNumericCellValue());
-                ticket.setSeatNum((int) row.getCell(9).getNumericCellValue());
-                ticket.setWlNumber((int) row.getCell(10).getNumericCellValue());
-                ticket.setRacNumber((int) row.getCell(11).getNumericCellValue());
-                ticket.setJourneyDate(row.getCell(12).getStringCellValue());
-                tickets.add(ticket);
+    private static Ticket toTicket(String[] c) {
+        String ticketClass = c[5];
+        Ticket ticket;
+        if (ticketClass.toUpperCase().startsWith("AC")) {
+            ticket = new ACClassTicket();
+        } else {
+            ticket = new SleeperClassTicket();
+        }
+        ticket.setPnrNumber(c[0]);
+        ticket.setUserId(c[1]);
+        ticket.setTrainNumber(c[2]);
+        ticket.setPassengerName(c[3]);
+        ticket.setAge(StreamingSheetReader.toInt(c[4]));
+        ticket.setTicketClass(ticketClass);
+        ticket.setBookingDate(c[6]);
+        ticket.setStatus(c[7]);
+        ticket.setFare(StreamingSheetReader.toDouble(c[8]));
+        ticket.setSeatNum(StreamingSheetReader.toInt(c[9]));
+        ticket.setWlNumber(StreamingSheetReader.toInt(c[10]));
+        ticket.setRacNumber(StreamingSheetReader.toInt(c[11]));
+        ticket.setJourneyDate(c[12]);
+        ticket.setBoardingStation(c[13]);
+        ticket.setAlightingStation(c[14]);
+        return ticket;
+    }
+
+    // ========== RESERVATION JOURNAL ==========
+    /** Journal that bookings, cancellations and promotions are appended to (opened on first use). */
+    public synchronized ReservationJournal getJournal() throws IOException {
+        if (journal == null) {
+            new File(dataDir).mkdirs();
+            journal = new ReservationJournal(Paths.get(dataDir));
+        }
+        return journal;
+    }
+
+    /** Binary snapshot of the whole data set, loaded at startup ahead of the workbooks. */
+    public CheckpointFile getCheckpointFile() {
+        new File(dataDir).mkdirs();
+        return new CheckpointFile(Paths.get(path("checkpoint.bin")));
+    }
+
+    /** Journal events folded into lookups so workbook rows can be patched while streaming. */
+    private static class JournalOverlay implements ReservationJournal.Listener {
+        final LinkedHashMap<String, Ticket> booked = new LinkedHashMap<>();
+        final HashSet<String> cancelled = new HashSet<>();
+        final HashMap<String, Ticket> promotions = new HashMap<>();
+        // When each ticket last joined the tail of a RAC/WL queue, in journal order
+        final HashMap<String, Long> queuedAt = new HashMap<>();
+        private long events;
+
+        @Override
+        public void onBook(Ticket ticket) {
+            booked.put(ticket.getPnrNumber(), ticket);
+            queued(ticket.getPnrNumber(), ticket.getStatus());
+        }
+
+        @Override
+        public void onCancel(String pnrNumber) {
+            if (booked.remove(pnrNumber) == null) cancelled.add(pnrNumber);
+            promotions.remove(pnrNumber);
+            queuedAt.remove(pnrNumber);
+        }
+
+        @Override
+        public void onPromote(String pnrNumber, String status, int seatNum, int racNumber, int wlNumber) {
+            Ticket t = booked.get(pnrNumber);
+            if (t == null) {
+                // Promotion of a ticket that lives in the workbook: remember the latest state
+                t = new SleeperClassTicket();
+                promotions.put(pnrNumber, t);
             }
+            t.setStatus(status);
+            t.setSeatNum(seatNum);
+            t.setRacNumber(racNumber);
+            t.setWlNumber(wlNumber);
+            queued(pnrNumber, status);
+        }
+
+        private void queued(String pnrNumber, String status) {
+            if ("RAC".equalsIgnoreCase(status) || "WAITLIST".equalsIgnoreCase(status)) queuedAt.put(pnrNumber, events++);
+            else queuedAt.remove(pnrNumber);
+        }
+
+        /**
+         * Orders tickets so RAC/WL queues rebuild by appending in list order. Journalled RAC/WL
+         * numbers go stale as tickets ahead leave, so they cannot order the queue: tickets the
+         * journal never queued come first, by the numbers saved with the checkpoint or workbook,
+         * then the ones it queued, in journal order.
+         */
+        ArrayList<Ticket> inQueueOrder(ArrayList<Ticket> tickets) {
+            ArrayList<Ticket> saved = new ArrayList<>(tickets.size());
+            ArrayList<Ticket> journalled = new ArrayList<>();
+            for (Ticket t : tickets) (queuedAt.containsKey(t.getPnrNumber()) ? journalled : saved).add(t);
+            saved.sort(Comparator.comparingInt(Ticket::getRacNumber).thenComparingInt(Ticket::getWlNumber));
+            journalled.sort(Comparator.comparingLong(t -> queuedAt.get(t.getPnrNumber())));
+            saved.addAll(journalled);
+            return saved;
+        }
+
+        /** Patches a ticket loaded from elsewhere; false if the journal cancelled or re-booked it. */
+        boolean apply(Ticket t) {
+            if (cancelled.contains(t.getPnrNumber()) || booked.containsKey(t.getPnrNumber())) return false;
+            Ticket p = promotions.get(t.getPnrNumber());
+            if (p == null) return true;
+            t.setStatus(p.getStatus());
+            t.setSeatNum(p.getSeatNum());
+            t.setRacNumber(p.getRacNumber());
+            t.setWlNumber(p.getWlNumber());
+            return true;
+        }
+    }
+
+    // ========== PNR INDEX ==========
+    /** On-disk PNR records with a hash index for single-PNR lookups (opened on first use). */
+    public synchronized PNRIndexFile getPNRIndex() throws IOException {
+        if (pnrIndex == null) {
+            new File(dataDir).mkdirs();
+            pnrIndex = new PNRIndexFile(Paths.get(path("pnr_records.dat")), Paths.get(path("pnr_index.bin")));
+        }
+        return pnrIndex;
+    }
+
+    // ========== NODE ID ==========
+    /** This process's node ID among all processes sharing the data directory (leased on first use). */
+    public synchronized NodeIdLease getNodeLease() throws IOException {
+        if (nodeLease == null) {
+            new File(dataDir).mkdirs();
+            nodeLease = NodeIdLease.acquire(Paths.get(dataDir), PNRGenerator.MAX_NODES);
+        }
+        return nodeLease;
+    }
+
+    /** Flushes and closes the journal and PNR index and gives up the node ID; call before the application exits. */
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (pnrIndex != null) {
+            pnrIndex.close();
+            pnrIndex = null;
+        }
+        if (nodeLease != null) {
+            nodeLease.close();
+            nodeLease = null;
         }
-        workbook.close();
-        fis.close();
-        return tickets;
     }
 
     // ========== PNR RECORDS ==========
     public void savePNRRecords(ArrayList<PNRRecord> records) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("PNR Records");
         String[] headers = {
                 "PNR Number", "Train Number", "User ID", "Passenger Name", "Coach", "Seat Number",
                 "Journey Date", "Ticket Class", "Booking Status", "Current Status",
                 "RAC Number", "WL Number", "Chart Prepared"
         };
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            headerRow.createCell(i).setCellValue(headers[i]);
-        }
-        int rowNum = 1;
-        for (PNRRecord pnr : records) {
-            Row row = sheet.createRow(rowNum++);
+        SheetWriter.write(new File(path("pnr_records.xlsx")), "PNR Records", headers, records, (pnr, row) -> {
             row.createCell(0).setCellValue(pnr.getPnrNumber());
             row.createCell(1).setCellValue(pnr.getTrainNumber());
             row.createCell(2).setCellValue(pnr.getUserId());
@@ -317,61 +416,48 @@ public class FileManager {
             row.createCell(10).setCellValue(pnr.getRacNumber());
             row.createCell(11).setCellValue(pnr.getWlNumber());
             row.createCell(12).setCellValue(pnr.isChartPrepared() ? "Yes" : "No");
-        }
-        for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-        FileOutputStream fos = new FileOutputStream("data/pnr_records.xlsx");
-        workbook.write(fos);
-        workbook.close();
-        fos.close();
+        }, exportMode);
     }
 
     public ArrayList<PNRRecord> loadPNRRecords() throws IOException {
         ArrayList<PNRRecord> records = new ArrayList<>();
-        File file = new File("data/pnr_records.xlsx");
-        if (!file.exists()) return records;
-
-        FileInputStream fis = new FileInputStream(file);
-        XSSFWorkbook workbook = new XSSFWorkbook(fis);
-        XSSFSheet sheet = workbook.getSheetAt(0);
-
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-            Row row = sheet.getRow(i);
-            if (row != null) {
-                PNRRecord pnr = new PNRRecord(
-                        row.getCell(0).getStringCellValue(),
-                        row.getCell(1).getStringCellValue(),
-                        row.getCell(2).getStringCellValue(),
-                        row.getCell(3).getStringCellValue(),
-                        row.getCell(4).getStringCellValue(),
-                        row.getCell(5).getStringCellValue(),
-                        row.getCell(6).getStringCellValue(),
-                        row.getCell(7).getStringCellValue(),
-                        row.getCell(8).getStringCellValue(),
-                        row.getCell(9).getStringCellValue(),
-                        (int) row.getCell(10).getNumericCellValue(),
-                        (int) row.getCell(11).getNumericCellValue(),
-                        "Yes".equalsIgnoreCase(row.getCell(12).getStringCellValue())
-                );
-                records.add(pnr);
-            }
-        }
-        workbook.close();
-        fis.close();
+        forEachPNRRecord(pnr -> records.add(pnr));
         return records;
     }
+
+    /** Streams PNR records one row at a time; return false from the callback to stop early. */
+    public void forEachPNRRecord(StreamingSheetReader.RowCallback<PNRRecord> callback) throws IOException {
+        new StreamingSheetReader(15).read(new File(path("pnr_records.xlsx")), c -> new PNRRecord(
+                c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], c[8], c[9],
+                StreamingSheetReader.toInt(c[10]),
+                StreamingSheetReader.toInt(c[11]),
+                "Yes".equalsIgnoreCase(c[12])
+        ), callback);
+    }
+
     // ========== FARE RULES ==========
+    public static final String FARE_RULES_FILE = "fare_rules.txt";
+
+    /** The fare rules file, watched for edits by {@link FareRulesWatcher}. */
+    public File getFareRulesFile() { return new File(path(FARE_RULES_FILE)); }
+
     public void saveFareRules(java.util.Map<String, Double> rules) throws IOException {
-        try (java.io.PrintWriter out = new java.io.PrintWriter(new java.io.FileWriter("data/fare_rules.txt"))) {
+        // Write next to the file and rename over it, so a reload never sees half a file
+        File file = getFareRulesFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (java.io.PrintWriter out = new java.io.PrintWriter(new java.io.FileWriter(tmp))) {
             for (String key : rules.keySet()) {
                 out.println(key + "=" + rules.get(key));
             }
         }
+        java.nio.file.Files.move(tmp.toPath(), file.toPath(),
+                java.nio.file.StandardCopyOption.ATOMIC_MOVE, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
     }
 
+    /** Reads the rules file; throws if a multiplier is not a number, so a bad edit never half-applies. */
     public java.util.HashMap<String, Double> loadFareRules() throws IOException {
         java.util.HashMap<String, Double> rules = new java.util.HashMap<>();
-        File file = new File("data/fare_rules.txt");
+        File file = getFareRulesFile();
         if (!file.exists()) return rules; // Return empty, FareConfig will use defaults
 
         try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(file))) {
@@ -379,7 +465,11 @@ public class FileManager {
             while ((line = br.readLine()) != null) {
                 String[] parts = line.split("=");
                 if (parts.length == 2) {
-                    rules.put(parts[0], Double.parseDouble(parts[1]));
+                    try {
+                        rules.put(parts[0], Double.parseDouble(parts[1]));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad multiplier in " + FARE_RULES_FILE + ": " + line);
+                    }
                 }
             }
         }
@@ -0,0 +1,54 @@
+package railway.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exclusive claim on a node ID among all processes sharing a data directory.
+ * Each ID has a lock file (node-00.lock ... node-63.lock); the first one this process can
+ * lock with FileChannel.tryLock is its ID. The OS drops the lock if the process dies,
+ * so a crashed instance never strands its ID.
+ */
+public class NodeIdLease implements Closeable {
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final int nodeId;
+
+    private NodeIdLease(FileChannel channel, FileLock lock, int nodeId) {
+        this.channel = channel;
+        this.lock = lock;
+        this.nodeId = nodeId;
+    }
+
+    /** Leases the lowest free ID in [0, maxNodes); throws if every ID is taken. */
+    public static NodeIdLease acquire(Path dir, int maxNodes) throws IOException {
+        for (int id = 0; id < maxNodes; id++) {
+            Path path = dir.resolve(String.format("node-%02d.lock", id));
+            FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                FileLock lock = ch.tryLock();
+                if (lock != null) return new NodeIdLease(ch, lock, id);
+            } catch (OverlappingFileLockException e) {
+                // held by another generator in this JVM
+            }
+            ch.close();
+        }
+        throw new IOException("All " + maxNodes + " node IDs in " + dir + " are in use");
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        lock.release();
+        channel.close();
+    }
+}
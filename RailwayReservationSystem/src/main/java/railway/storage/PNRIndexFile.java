@@ -0,0 +1,340 @@
+package railway.storage;
+
+import railway.entities.PNRRecord;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent PNR lookup: an append-only record file plus a memory-mapped hash index.
+ * A status check hashes the PNR number, probes one or two index buckets and reads one
+ * record, so it touches a couple of pages no matter how many PNRs exist.
+ *
+ * Record file (pnr_records.dat): [int length][PNRRecord bytes][int crc32] per record.
+ * Updating a PNR appends its new version and repoints the bucket; old versions are dropped
+ * by {@link #rebuild}. Every PNR change reaches this file as it happens, so it is never behind
+ * the last checkpoint: a checkpoint records {@link #dataId()} and {@link #length()}, and startup
+ * folds the records appended after that point back into the PNR repository ({@link #readFrom}).
+ *
+ * Index file (pnr_index.bin), open addressing with linear probing:
+ * <pre>
+ *   header (32 bytes): int magic | int version | int capacity | int count | long indexedLength | long dataId
+ *   bucket*:           long keyHash (0 = empty) | long recordOffset
+ * </pre>
+ * {@code indexedLength} is how much of the record file the index covers; {@code dataId} changes
+ * whenever the record file is rewritten from scratch, so old offsets into it are recognised. Records past it
+ * (a crash between the two writes) are indexed again on open; an index that claims more
+ * than the file holds, or has a bad header, is reported by {@link #isValid()} and must be rebuilt.
+ */
+public class PNRIndexFile implements Closeable {
+    private static final int MAGIC = 0x504E5249; // "PNRI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int BUCKET_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private MappedByteBuffer buckets;
+    private int capacity;
+    private int count;
+    private long indexedLength;
+    private long dataId;
+    private boolean valid = true;
+
+    public PNRIndexFile(Path dataPath, Path indexPath) throws IOException {
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (index.size() < HEADER_SIZE) {
+            if (data.size() > 0) valid = false; // records exist but the index is gone
+            dataId = newDataId();
+            initIndex(INITIAL_CAPACITY);
+            return;
+        }
+        buckets = index.map(FileChannel.MapMode.READ_WRITE, 0, index.size());
+        capacity = buckets.getInt(8);
+        count = buckets.getInt(12);
+        indexedLength = buckets.getLong(16);
+        dataId = buckets.getLong(24);
+        if (buckets.getInt(0) != MAGIC || buckets.getInt(4) != VERSION
+                || Integer.bitCount(capacity) != 1 || index.size() < HEADER_SIZE + (long) capacity * BUCKET_SIZE
+                || indexedLength > data.size()) {
+            valid = false;
+            dataId = newDataId();
+            initIndex(INITIAL_CAPACITY);
+            return;
+        }
+        catchUp();
+    }
+
+    /** False if the index was missing or corrupt on open and has not been rebuilt yet. */
+    public synchronized boolean isValid() {
+        return valid;
+    }
+
+    /** Number of distinct PNRs in the index. */
+    public synchronized int count() {
+        return count;
+    }
+
+    /** Identifies the current contents of the record file; a rebuild changes it. */
+    public synchronized long dataId() {
+        return dataId;
+    }
+
+    /** Length of the record file covered by the index; the next record is appended here. */
+    public synchronized long length() {
+        return indexedLength;
+    }
+
+    // ========== LOOKUP ==========
+    /** Returns the latest stored version of a PNR, or null if it is not indexed. */
+    public synchronized PNRRecord find(String pnrNumber) throws IOException {
+        long hash = hash(pnrNumber);
+        int mask = capacity - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            long h = buckets.getLong(bucketPos(i));
+            if (h == 0) return null;
+            if (h == hash) {
+                PNRRecord record = readRecord(buckets.getLong(bucketPos(i) + 8));
+                if (record != null && record.getPnrNumber().equals(pnrNumber)) return record;
+            }
+        }
+    }
+
+    /**
+     * Every record appended at or after {@code offset} (a record boundary from {@link #length()}),
+     * in append order; a PNR updated several times appears once per version, latest last.
+     */
+    public synchronized ArrayList<PNRRecord> readFrom(long offset) throws IOException {
+        ArrayList<PNRRecord> records = new ArrayList<>();
+        long pos = offset;
+        while (pos < indexedLength) {
+            long next = recordEnd(pos, indexedLength);
+            if (next < 0) break;
+            PNRRecord r = readRecord(pos);
+            if (r == null) break;
+            records.add(r);
+            pos = next;
+        }
+        return records;
+    }
+
+    // ========== UPDATE ==========
+    /** Appends the record's current state and points its key at it (insert or update). */
+    public synchronized void put(PNRRecord record) throws IOException {
+        long offset = data.size();
+        long end = appendRecord(record, offset);
+        indexKey(record.getPnrNumber(), offset);
+        setIndexedLength(end);
+    }
+
+    /** Appends several records with one write and indexes each of them (a group booking). */
+    public synchronized void putAll(List<PNRRecord> records) throws IOException {
+        long start = data.size();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(160 * records.size());
+        long[] offsets = new long[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            offsets[i] = start + batch.size();
+            batch.write(encodeRecord(records.get(i)));
+        }
+        ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+        long pos = start;
+        while (buf.hasRemaining()) pos += data.write(buf, pos);
+        for (int i = 0; i < records.size(); i++) indexKey(records.get(i).getPnrNumber(), offsets[i]);
+        setIndexedLength(pos);
+    }
+
+    /**
+     * Rebuilds both files from the source of truth (the PNR repository), dropping superseded
+     * record versions. Used when the index is missing or corrupt, and by the rebuild tool.
+     */
+    public synchronized void rebuild(Iterable<PNRRecord> records) throws IOException {
+        data.truncate(0);
+        dataId = newDataId();
+        initIndex(INITIAL_CAPACITY);
+        long offset = 0;
+        for (PNRRecord r : records) {
+            long end = appendRecord(r, offset);
+            indexKey(r.getPnrNumber(), offset);
+            offset = end;
+        }
+        setIndexedLength(offset);
+        force();
+        valid = true;
+    }
+
+    public synchronized void force() throws IOException {
+        data.force(false);
+        buckets.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!data.isOpen()) return;
+        force();
+        data.close();
+        index.close();
+    }
+
+    // ========== INTERNALS ==========
+    private void initIndex(int newCapacity) throws IOException {
+        index.truncate(0);
+        capacity = newCapacity;
+        count = 0;
+        indexedLength = 0;
+        buckets = index.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * BUCKET_SIZE);
+        buckets.putInt(0, MAGIC);
+        buckets.putInt(4, VERSION);
+        buckets.putInt(8, capacity);
+        buckets.putInt(12, 0);
+        buckets.putLong(16, 0);
+        buckets.putLong(24, dataId);
+    }
+
+    /** Indexes intact records appended after the index was last updated; cuts off a torn tail. */
+    private void catchUp() throws IOException {
+        long pos = indexedLength;
+        long size = data.size();
+        while (pos < size) {
+            long next = recordEnd(pos, size);
+            if (next < 0) break;
+            PNRRecord r = readRecord(pos);
+            if (r == null) break;
+            indexKey(r.getPnrNumber(), pos);
+            pos = next;
+        }
+        if (pos < size) data.truncate(pos);
+        setIndexedLength(pos);
+    }
+
+    private void indexKey(String pnrNumber, long offset) throws IOException {
+        if ((count + 1) * 2L > capacity) grow();
+        long hash = hash(pnrNumber);
+        int mask = capacity - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            int pos = bucketPos(i);
+            long h = buckets.getLong(pos);
+            if (h == 0) {
+                buckets.putLong(pos, hash);
+                buckets.putLong(pos + 8, offset);
+                count++;
+                buckets.putInt(12, count);
+                return;
+            }
+            if (h == hash) {
+                PNRRecord existing = readRecord(buckets.getLong(pos + 8));
+                if (existing == null || existing.getPnrNumber().equals(pnrNumber)) {
+                    buckets.putLong(pos + 8, offset);
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Doubles the table; only hashes and offsets are moved, records are not read. */
+    private void grow() throws IOException {
+        long[] hashes = new long[count];
+        long[] offsets = new long[count];
+        int n = 0;
+        for (int i = 0; i < capacity; i++) {
+            long h = buckets.getLong(bucketPos(i));
+            if (h != 0) {
+                hashes[n] = h;
+                offsets[n] = buckets.getLong(bucketPos(i) + 8);
+                n++;
+            }
+        }
+        long covered = indexedLength;
+        initIndex(capacity * 2);
+        int mask = capacity - 1;
+        for (int k = 0; k < n; k++) {
+            int i = (int) hashes[k] & mask;
+            while (buckets.getLong(bucketPos(i)) != 0) i = (i + 1) & mask;
+            buckets.putLong(bucketPos(i), hashes[k]);
+            buckets.putLong(bucketPos(i) + 8, offsets[k]);
+        }
+        count = n;
+        buckets.putInt(12, count);
+        setIndexedLength(covered);
+    }
+
+    private void setIndexedLength(long length) {
+        indexedLength = length;
+        buckets.putLong(16, length);
+    }
+
+    private long appendRecord(PNRRecord record, long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(encodeRecord(record));
+        long pos = offset;
+        while (buf.hasRemaining()) pos += data.write(buf, pos);
+        return pos;
+    }
+
+    /** One framed record: length, payload, CRC of the payload. */
+    private static byte[] encodeRecord(PNRRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        BinaryCodec.writePNR(new DataOutputStream(bytes), record);
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buf = ByteBuffer.allocate(4 + payload.length + 4);
+        buf.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        return buf.array();
+    }
+
+    /** Offset just past the record at {@code pos}, or -1 if it is incomplete. */
+    private long recordEnd(long pos, long size) throws IOException {
+        if (pos + 4 > size) return -1;
+        ByteBuffer len = ByteBuffer.allocate(4);
+        data.read(len, pos);
+        long end = pos + 4 + len.getInt(0) + 4;
+        return len.getInt(0) <= 0 || end > size ? -1 : end;
+    }
+
+    /** Reads and verifies one record; null if it is torn or fails its checksum. */
+    private PNRRecord readRecord(long pos) throws IOException {
+        long end = recordEnd(pos, data.size());
+        if (end < 0) return null;
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - pos - 4));
+        while (buf.hasRemaining() && data.read(buf, pos + 4 + buf.position()) > 0) {
+            // keep reading until the record is complete
+        }
+        byte[] bytes = buf.array();
+        int length = bytes.length - 4;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        if ((int) crc.getValue() != buf.getInt(length)) return null;
+        return BinaryCodec.readPNR(new DataInputStream(new ByteArrayInputStream(bytes, 0, length)));
+    }
+
+    private static long newDataId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    private static int bucketPos(int i) {
+        return HEADER_SIZE + i * BUCKET_SIZE;
+    }
+
+    /** 64-bit FNV-1a of the PNR number; 0 is reserved for empty buckets. */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,482 @@
+package railway.storage;
+
+import railway.model.Ticket;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of reservation events (book, cancel, promote).
+ * Each booking appends one small record instead of rewriting reservations.xlsx.
+ *
+ * The journal is a sequence of numbered segment files (reservations-000001.journal, ...).
+ * A checkpoint rotates to a new segment and records its number; segments older than the
+ * previous durable checkpoint are then deleted, so startup only replays the tail and can
+ * still fall back one checkpoint generation.
+ *
+ * Segment layout: [int magic][long generation] followed by records
+ * [int length][byte type][payload][int crc32(type + payload)].
+ * "RJN3" segments carry boarding/alighting stations in ticket payloads; "RJN2" segments from
+ * before that are still replayed but never appended to.
+ * A group booking is one GROUP_BOOK record holding all of its tickets.
+ * A torn record at the tail (crash mid-write) is detected by length/CRC and cut off on open.
+ *
+ * Appends use group commit: a caller encodes its record, queues it and gets a future back.
+ * One committer thread writes everything queued with a single gathering write and one fsync,
+ * then completes the futures of that batch. A batch is committed once it holds
+ * {@code maxBatch} records or its oldest record has waited {@code maxDelayMicros}; records
+ * that queued up during the previous fsync go out at once. Many concurrent writers thus
+ * share each fsync instead of paying one apiece. Records are committed in queue order.
+ *
+ * A batch whose write or fsync fails (disk full, I/O error) is cut back off the segment and
+ * the channel repositioned at the batch's start, so the failed callers' records never reach
+ * replay and later batches do not land behind a torn record. If even that repair fails the
+ * journal refuses further appends until the next rotation starts a fresh segment.
+ */
+public class ReservationJournal implements Closeable {
+    public static final byte BOOK = 1;
+    public static final byte CANCEL = 2;
+    public static final byte PROMOTE = 3;
+    public static final byte GROUP_BOOK = 4;
+
+    public static final int DEFAULT_MAX_BATCH = 256;
+    public static final long DEFAULT_MAX_DELAY_MICROS = 200;
+
+    private static final int MAGIC = 0x524A4E33; // "RJN3"
+    private static final int LEGACY_MAGIC = 0x524A4E32; // "RJN2": tickets without stations
+    private static final int HEADER_SIZE = 12;
+    private static final String PREFIX = "reservations-";
+    private static final String SUFFIX = ".journal";
+
+    /** Callback used when replaying the journal, one method per event type. */
+    public interface Listener {
+        void onBook(Ticket ticket);
+        void onCancel(String pnrNumber);
+        void onPromote(String pnrNumber, String status, int seatNum, int racNumber, int wlNumber);
+    }
+
+    /** An encoded record waiting for the committer. */
+    private static class Pending {
+        final ByteBuffer record;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+
+        Pending(ByteBuffer record) {
+            this.record = record;
+        }
+    }
+
+    private final Path dir;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final UnaryOperator<FileChannel> channels;
+    private FileChannel channel;
+    private long generation;
+
+    // Commit queue, guarded by queueLock (never held while writing)
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition hasWork = queueLock.newCondition();
+    private ArrayList<Pending> pending = new ArrayList<>();
+    private long pendingBytes;
+    private boolean closed;
+    private IOException broken; // set when a failed batch could not be cut back off
+    private final Thread committer;
+
+    public ReservationJournal(Path dir) throws IOException {
+        this(dir, DEFAULT_MAX_BATCH, DEFAULT_MAX_DELAY_MICROS);
+    }
+
+    public ReservationJournal(Path dir, int maxBatch, long maxDelayMicros) throws IOException {
+        this(dir, maxBatch, maxDelayMicros, UnaryOperator.identity());
+    }
+
+    /** As above, with every segment channel passed through {@code channels} (tests wrap it to inject faults). */
+    ReservationJournal(Path dir, int maxBatch, long maxDelayMicros, UnaryOperator<FileChannel> channels)
+            throws IOException {
+        this.dir = dir;
+        this.channels = channels;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxDelayNanos = Math.max(0, maxDelayMicros) * 1_000L;
+        ArrayList<Long> generations = listGenerations();
+        if (generations.isEmpty()) {
+            openSegment(1);
+        } else {
+            openSegment(generations.get(generations.size() - 1));
+        }
+        committer = new Thread(this::runCommitter, "journal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    private Path segmentPath(long gen) {
+        return dir.resolve(String.format("%s%06d%s", PREFIX, gen, SUFFIX));
+    }
+
+    private ArrayList<Long> listGenerations() throws IOException {
+        ArrayList<Long> gens = new ArrayList<>();
+        File[] files = dir.toFile().listFiles();
+        if (files == null) return gens;
+        for (File f : files) {
+            String name = f.getName();
+            if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                try {
+                    gens.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(gens);
+        return gens;
+    }
+
+    private void openSegment(long gen) throws IOException {
+        Path path = segmentPath(gen);
+        channel = channels.apply(
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(gen);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(false);
+        } else if (!checkHeader(channel, path)) {
+            // Older record format: keep it for replay and append to a fresh segment instead
+            channel.close();
+            openSegment(gen + 1);
+            return;
+        }
+        // Cut off any torn record left by a crash, then append after the last good one
+        long end = scan(channel, null, true);
+        if (end < channel.size()) channel.truncate(end);
+        channel.position(end);
+        generation = gen;
+    }
+
+    /** True for a current-format segment, false for a legacy one; throws if it is not a journal. */
+    private static boolean checkHeader(FileChannel ch, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ch.read(header, 0);
+        int magic = header.getInt(0);
+        if (magic != MAGIC && magic != LEGACY_MAGIC) {
+            ch.close();
+            throw new IOException("Not a reservation journal: " + path);
+        }
+        return magic == MAGIC;
+    }
+
+    // ========== APPEND ==========
+    /** Queues a booking; the future completes once the record is on disk. */
+    public CompletableFuture<Void> appendBooking(Ticket t) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        BinaryCodec.writeTicket(new DataOutputStream(bytes), t);
+        return append(BOOK, bytes.toByteArray());
+    }
+
+    /**
+     * Journals all tickets of a group booking as one record, so after a crash either the
+     * whole group is replayed or none of it is.
+     */
+    public CompletableFuture<Void> appendGroupBooking(List<Ticket> tickets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 * tickets.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(tickets.size());
+        for (Ticket t : tickets) BinaryCodec.writeTicket(out, t);
+        return append(GROUP_BOOK, bytes.toByteArray());
+    }
+
+    public CompletableFuture<Void> appendCancel(String pnrNumber) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        BinaryCodec.writeString(out, pnrNumber);
+        return append(CANCEL, bytes.toByteArray());
+    }
+
+    /** Records the current status/seat/queue position of a ticket that moved up from RAC or waitlist. */
+    public CompletableFuture<Void> appendPromote(Ticket t) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        BinaryCodec.writeString(out, t.getPnrNumber());
+        BinaryCodec.writeString(out, t.getStatus());
+        out.writeInt(t.getSeatNum());
+        out.writeInt(t.getRacNumber());
+        out.writeInt(t.getWlNumber());
+        return append(PROMOTE, bytes.toByteArray());
+    }
+
+    private CompletableFuture<Void> append(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(4 + 1 + payload.length + 4);
+        record.putInt(1 + payload.length).put(type).put(payload).putInt((int) crc.getValue());
+        record.flip();
+
+        Pending p = new Pending(record);
+        queueLock.lock();
+        try {
+            if (closed) return CompletableFuture.failedFuture(new IOException("Reservation journal is closed"));
+            if (broken != null) {
+                return CompletableFuture.failedFuture(
+                        new IOException("Reservation journal refuses appends after a failed write", broken));
+            }
+            pending.add(p);
+            pendingBytes += record.remaining();
+            // Wake an idle committer on the first record, a waiting one when the batch is full
+            if (pending.size() == 1 || pending.size() >= maxBatch) hasWork.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        return p.durable;
+    }
+
+    /**
+     * Blocks until an append future completes; a failed commit is rethrown as the IOException
+     * that caused it. Call it after releasing any lock other writers need, so they can join the batch.
+     */
+    public static void awaitDurable(CompletableFuture<?> durable) throws IOException {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Journal commit failed", e.getCause());
+        }
+    }
+
+    /** Writes and forces all queued records, then completes their futures. */
+    public synchronized void sync() throws IOException {
+        commitPending();
+    }
+
+    // ========== COMMITTER ==========
+    private void runCommitter() {
+        while (true) {
+            queueLock.lock();
+            try {
+                while (pending.isEmpty() && !closed) hasWork.await();
+                if (pending.isEmpty()) return; // closed and drained
+                long deadline = pending.get(0).enqueuedNanos + maxDelayNanos;
+                long wait;
+                while (pending.size() < maxBatch && !closed && (wait = deadline - System.nanoTime()) > 0) {
+                    hasWork.awaitNanos(wait);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                queueLock.unlock();
+            }
+            try {
+                sync();
+            } catch (IOException e) {
+                // the batch's futures already carry the failure to their callers
+            }
+        }
+    }
+
+    /**
+     * Takes everything queued and commits it with one write and one fsync. Runs under the
+     * journal monitor, so a rotation never splits queued records across segments. On failure
+     * the batch is cut back off the segment (see {@link #rollBack}) before its futures fail.
+     */
+    private void commitPending() throws IOException {
+        ArrayList<Pending> batch;
+        queueLock.lock();
+        try {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new ArrayList<>();
+            pendingBytes = 0;
+        } finally {
+            queueLock.unlock();
+        }
+
+        ByteBuffer[] records = new ByteBuffer[batch.size()];
+        for (int i = 0; i < records.length; i++) records[i] = batch.get(i).record;
+        long start = -1;
+        try {
+            start = channel.position();
+            long remaining = 0;
+            for (ByteBuffer r : records) remaining += r.remaining();
+            while (remaining > 0) {
+                long written = channel.write(records);
+                if (written <= 0) throw new IOException("Short write to reservation journal: " + remaining + " bytes left");
+                remaining -= written;
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            rollBack(start, e);
+            for (Pending p : batch) p.durable.completeExceptionally(e);
+            throw e;
+        }
+        for (Pending p : batch) p.durable.complete(null);
+    }
+
+    /**
+     * Cuts a failed batch back off the segment: truncates to where it started and moves the
+     * channel there, so the next batch follows the last good record. If the segment cannot be
+     * repaired, later appends are refused rather than written behind a torn record.
+     */
+    private void rollBack(long start, IOException cause) {
+        try {
+            if (start < 0) throw cause;
+            channel.truncate(start);
+            channel.position(start);
+            channel.force(false);
+        } catch (IOException e) {
+            queueLock.lock();
+            try {
+                broken = e;
+            } finally {
+                queueLock.unlock();
+            }
+            System.out.println("Warning: reservation journal could not be repaired, refusing appends: " + e.getMessage());
+        }
+    }
+
+    private void clearBroken() {
+        queueLock.lock();
+        try {
+            broken = null;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // ========== SEGMENTS ==========
+    public synchronized long currentGeneration() {
+        return generation;
+    }
+
+    /** Bytes of records in the current segment (excluding its header), counting those still queued for it. */
+    public synchronized long currentSegmentSize() throws IOException {
+        queueLock.lock();
+        try {
+            return channel.size() - HEADER_SIZE + pendingBytes;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Seals the current segment and starts a new one. Everything appended from now on
+     * lands in the returned generation; a checkpoint taken at this moment replays from it.
+     */
+    public synchronized long rotate() throws IOException {
+        commitPending();
+        channel.force(false);
+        channel.close();
+        openSegment(generation + 1);
+        clearBroken(); // a fresh segment has no torn tail to append behind
+        return generation;
+    }
+
+    /** Deletes segments older than {@code gen}, once the checkpoints covering them are durable. */
+    public synchronized void discardBefore(long gen) throws IOException {
+        for (long g : listGenerations()) {
+            if (g < gen && g != generation) Files.deleteIfExists(segmentPath(g));
+        }
+    }
+
+    // ========== REPLAY ==========
+    /** Replays every intact record of every segment in append order. */
+    public void replay(Listener listener) throws IOException {
+        replayFrom(0, listener);
+    }
+
+    /** Replays the records of segments numbered {@code fromGeneration} and later. */
+    public synchronized void replayFrom(long fromGeneration, Listener listener) throws IOException {
+        commitPending();
+        for (long g : listGenerations()) {
+            if (g < fromGeneration) continue;
+            if (g == generation) {
+                scan(channel, listener, true);
+            } else {
+                Path path = segmentPath(g);
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                    scan(ch, listener, checkHeader(ch, path));
+                }
+            }
+        }
+    }
+
+    /** Walks the records after the header; returns the offset just past the last intact record. */
+    private static long scan(FileChannel ch, Listener listener, boolean withStations) throws IOException {
+        long size = ch.size();
+        long pos = HEADER_SIZE;
+        ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+        while (pos + 4 <= size) {
+            lengthBuf.clear();
+            ch.read(lengthBuf, pos);
+            int length = lengthBuf.getInt(0);
+            if (length < 1 || pos + 4 + length + 4 > size) break;
+
+            ByteBuffer body = ByteBuffer.allocate(length + 4);
+            while (body.hasRemaining() && ch.read(body, pos + 4 + body.position()) > 0) {
+                // keep reading until the record is complete
+            }
+            byte[] data = body.array();
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            if ((int) crc.getValue() != body.getInt(length)) break;
+
+            if (listener != null) dispatch(data[0], new DataInputStream(new ByteArrayInputStream(data, 1, length - 1)), listener, withStations);
+            pos += 4 + length + 4;
+        }
+        return pos;
+    }
+
+    private static void dispatch(byte type, DataInputStream in, Listener listener, boolean withStations) throws IOException {
+        switch (type) {
+            case BOOK:
+                listener.onBook(BinaryCodec.readTicket(in, withStations));
+                break;
+            case GROUP_BOOK:
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) listener.onBook(BinaryCodec.readTicket(in, withStations));
+                break;
+            case CANCEL:
+                listener.onCancel(in.readUTF());
+                break;
+            case PROMOTE:
+                listener.onPromote(in.readUTF(), in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /** Stops taking appends, lets the committer drain the queue, then closes the segment. */
+    @Override
+    public void close() throws IOException {
+        queueLock.lock();
+        try {
+            closed = true;
+            hasWork.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (channel == null || !channel.isOpen()) return;
+            commitPending();
+            channel.close();
+        }
+    }
+}
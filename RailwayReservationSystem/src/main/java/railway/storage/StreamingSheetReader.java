@@ -0,0 +1,115 @@
+package railway.storage;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Reads the first sheet of an xlsx file with POI's SAX event model, one row at a time.
+ * Unlike XSSFWorkbook, nothing but the shared strings table and the current row is kept on heap,
+ * so half-a-million-row workbooks can be scanned (and filtered) without building a DOM.
+ */
+public class StreamingSheetReader {
+
+    /** Turns the raw cell texts of one data row into an entity. */
+    public interface RowMapper<T> {
+        T map(String[] cells);
+    }
+
+    /** Receives each mapped row; return false to stop reading early. */
+    public interface RowCallback<T> {
+        boolean accept(T row);
+    }
+
+    /** Thrown from inside the SAX handler to abort parsing once the callback is done. */
+    private static class StopReading extends RuntimeException {
+        StopReading() { super(null, null, false, false); }
+    }
+
+    /** Leaves numbers unformatted so that fares and ages round-trip exactly. */
+    private static class RawNumberFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return NumberToTextConverter.toText(value);
+        }
+    }
+
+    private final int columnCount;
+
+    public StreamingSheetReader(int columnCount) {
+        this.columnCount = columnCount;
+    }
+
+    /** Streams every data row (header row skipped) of the first sheet through mapper and callback. */
+    public <T> void read(File file, RowMapper<T> mapper, RowCallback<T> callback) throws IOException {
+        if (!file.exists()) return;
+
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) return;
+
+            XSSFSheetXMLHandler.SheetContentsHandler rows = new XSSFSheetXMLHandler.SheetContentsHandler() {
+                private String[] cells = new String[columnCount];
+                private boolean header;
+
+                @Override
+                public void startRow(int rowNum) {
+                    header = rowNum == 0;
+                    Arrays.fill(cells, "");
+                }
+
+                @Override
+                public void endRow(int rowNum) {
+                    if (header) return;
+                    if (!callback.accept(mapper.map(cells))) throw new StopReading();
+                    cells = new String[columnCount];
+                }
+
+                @Override
+                public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+                    int col = new CellReference(cellReference).getCol();
+                    if (col < columnCount) cells[col] = formattedValue == null ? "" : formattedValue;
+                }
+            };
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        reader.getStylesTable(), strings, rows, new RawNumberFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            } catch (StopReading done) {
+                // callback asked to stop
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Could not stream " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // ========== Cell helpers for mappers ==========
+    public static int toInt(String cell) {
+        return cell.isEmpty() ? 0 : (int) Double.parseDouble(cell);
+    }
+
+    public static double toDouble(String cell) {
+        return cell.isEmpty() ? 0.0 : Double.parseDouble(cell);
+    }
+}
@@ -0,0 +1,108 @@
+package railway.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seat bitmap: contiguous claims that lose part of their range must leave no seat behind.
+ */
+public class SeatBitmapTest {
+
+    @Test
+    public void claimAcrossWordBoundaryRollsBackWhenLastSeatIsTaken() {
+        SeatBitmap bitmap = new SeatBitmap(128);
+        assertTrue(bitmap.claimSpecific(66)); // a competitor holds the last seat of 63-66
+
+        assertFalse(bitmap.claimRange(62, 4)); // seats 63-66: word 0 is set, then word 1 fails
+        assertFalse(bitmap.isBooked(63));
+        assertFalse(bitmap.isBooked(64));
+        assertFalse(bitmap.isBooked(65));
+        assertEquals(1, Long.bitCount(bitmap.word(0)) + Long.bitCount(bitmap.word(1)));
+        assertEquals(127, bitmap.available());
+
+        // The rolled-back seats can be claimed again, across the same boundary
+        assertTrue(bitmap.claimRange(61, 4)); // seats 62-65
+        for (int seat = 62; seat <= 65; seat++) assertTrue(bitmap.isBooked(seat));
+    }
+
+    @Test
+    public void claimAcrossWordBoundarySucceedsWhenAllSeatsAreFree() {
+        SeatBitmap bitmap = new SeatBitmap(128);
+        assertTrue(bitmap.claimRange(62, 4));
+        for (int seat = 63; seat <= 66; seat++) assertTrue(bitmap.isBooked(seat));
+        assertFalse(bitmap.isBooked(62));
+        assertFalse(bitmap.isBooked(67));
+    }
+
+    @Test
+    public void competingClaimersNeverLeakOrShareSeats() throws Exception {
+        final int seats = 256;
+        final int threads = 8;
+        for (int round = 0; round < 50; round++) {
+            SeatBitmap bitmap = new SeatBitmap(seats);
+            ArrayList<ArrayList<Integer>> owned = new ArrayList<>();
+            for (int t = 0; t < threads; t++) owned.add(new ArrayList<>());
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                ArrayList<Integer> mine = owned.get(t);
+                boolean single = t % 2 == 0;
+                workers[t] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (bitmap.available() > 0) {
+                        if (single) {
+                            // Single-seat claims around the word boundaries break up runs in flight
+                            int seat = 60 + random.nextInt(10) + 64 * random.nextInt(3);
+                            if (bitmap.claimSpecific(seat)) mine.add(seat);
+                            else if (random.nextInt(8) == 0) {
+                                int any = bitmap.claimAny();
+                                if (any < 0) break; // every bit is set
+                                mine.add(any);
+                            }
+                        } else {
+                            int count = 2 + random.nextInt(6);
+                            int first = bitmap.claimContiguous(count);
+                            if (first < 0) {
+                                int any = bitmap.claimAny();
+                                if (any < 0) break;
+                                mine.add(any);
+                                continue;
+                            }
+                            for (int s = first; s < first + count; s++) mine.add(s);
+                        }
+                    }
+                }, "claimer-" + t);
+                workers[t].start();
+            }
+            start.countDown();
+            for (Thread w : workers) w.join();
+
+            boolean[] seen = new boolean[seats + 1];
+            int claimed = 0;
+            for (ArrayList<Integer> mine : owned) {
+                for (int seat : mine) {
+                    assertFalse("seat " + seat + " claimed twice", seen[seat]);
+                    seen[seat] = true;
+                    claimed++;
+                }
+            }
+            // Every set bit belongs to some claimer: no rolled-back seat stayed booked
+            assertEquals(seats, claimed);
+            assertEquals(0, bitmap.available());
+            for (int seat = 1; seat <= seats; seat++) assertTrue(bitmap.release(seat));
+            assertEquals(seats, bitmap.available());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package railway.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Segment seat map over a five-stop run (segments 0-3): legs that overlap exclude each other,
+ * adjacent legs share a seat, allocation prefers a seat the leg fills exactly, and releasing
+ * one leg leaves the seat's other legs booked.
+ */
+public class SegmentSeatMapTest {
+    private static final int SEGMENTS = 4;
+
+    @Test
+    public void overlappingLegsNeedDifferentSeats() {
+        SegmentSeatMap map = map(1);
+        assertTrue(map.claimSpecific(1, 0, 2));
+
+        assertFalse(map.claimSpecific(1, 1, 3)); // shares segment 1
+        assertFalse(map.claimSpecific(1, 0, SEGMENTS));
+        assertEquals(-1, map.claimAny(1, 3));
+        assertEquals(0, map.countFree(0, SEGMENTS));
+    }
+
+    @Test
+    public void adjacentLegsShareOneSeat() {
+        SegmentSeatMap map = map(1);
+        assertTrue(map.claimSpecific(1, 0, 2));
+
+        assertEquals(1, map.countFree(2, 4));
+        assertEquals(1, map.claimAny(2, 4)); // starts where the first leg ends
+        assertEquals(0, map.countFree(0, 1));
+        assertEquals(0, map.countFree(3, 4));
+    }
+
+    @Test
+    public void allocationPrefersTheSeatTheLegFillsExactly() {
+        SegmentSeatMap map = map(3);
+        assertTrue(map.claimSpecific(1, 0, 1)); // seat 1: taken before the leg only
+        assertTrue(map.claimSpecific(2, 0, 1)); // seat 2: taken on both sides, a gap of [1, 3)
+        assertTrue(map.claimSpecific(2, 3, 4));
+
+        assertEquals(2, map.claimAny(1, 3)); // snug fit
+        assertEquals(1, map.claimAny(1, 2)); // next best: a seat already partly sold
+        assertEquals(3, map.claimAny(0, SEGMENTS)); // whole run gets the untouched seat
+        assertEquals(0, map.countFree(1, 2));
+    }
+
+    @Test
+    public void releasingOneLegKeepsTheOthersBooked() {
+        SeatBitmap union = new SeatBitmap(2);
+        SegmentSeatMap map = new SegmentSeatMap(union, SEGMENTS);
+        assertTrue(map.claimSpecific(1, 0, 1));
+        assertTrue(map.claimSpecific(1, 1, 3));
+        assertTrue(map.claimSpecific(1, 3, 4));
+
+        assertTrue(map.release(1, 1, 3));
+        assertTrue(map.isFree(1, 1, 3));
+        assertFalse(map.isFree(1, 0, 1));
+        assertFalse(map.isFree(1, 3, 4));
+        assertTrue(union.isBooked(1)); // still sold for part of the run
+        assertFalse(map.release(1, 1, 3)); // already released
+
+        assertTrue(map.release(1, 0, 1));
+        assertTrue(map.release(1, 3, 4));
+        assertFalse(union.isBooked(1));
+        assertEquals(2, map.countFree(0, SEGMENTS));
+    }
+
+    @Test
+    public void releaseOfALegNotHeldChangesNothing() {
+        SegmentSeatMap map = map(1);
+        assertTrue(map.claimSpecific(1, 1, 2));
+
+        assertFalse(map.release(1, 0, 2)); // segment 0 was never taken
+        assertFalse(map.isFree(1, 1, 2));
+    }
+
+    private static SegmentSeatMap map(int seats) {
+        return new SegmentSeatMap(new SeatBitmap(seats), SEGMENTS);
+    }
+}
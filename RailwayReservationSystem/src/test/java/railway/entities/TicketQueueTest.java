@@ -0,0 +1,103 @@
+package railway.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import railway.model.ACClassTicket;
+import railway.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Ticket queue: live positions from the Fenwick tree after removals from the middle,
+ * promotions off the head and compaction, checked against a plain list.
+ */
+public class TicketQueueTest {
+
+    @Test
+    public void positionsCloseUpAfterRemoveByPnr() {
+        TicketQueue queue = new TicketQueue();
+        ArrayList<Ticket> tickets = enqueue(queue, "WAITLIST", 5);
+
+        assertSame(tickets.get(2), queue.removeByPnr("P2"));
+        assertNull(queue.removeByPnr("P2"));
+
+        assertEquals(1, queue.positionOf(tickets.get(0)));
+        assertEquals(2, queue.positionOf(tickets.get(1)));
+        assertEquals(0, queue.positionOf(tickets.get(2)));
+        assertEquals(3, queue.positionOf(tickets.get(3)));
+        assertEquals(4, queue.positionOf(tickets.get(4)));
+        assertEquals(4, tickets.get(4).getWlNumber()); // the ticket reads its live position
+        assertEquals(3, tickets.get(2).getWlNumber()); // the removed one keeps its last position
+    }
+
+    @Test
+    public void positionsMoveUpAfterPromotionsFromTheHead() {
+        TicketQueue queue = new TicketQueue();
+        ArrayList<Ticket> tickets = enqueue(queue, "RAC", 4);
+
+        // Promotion takes the head; the rest move up one place each
+        Ticket promoted = queue.poll();
+        assertSame(tickets.get(0), promoted);
+        promoted.setStatus("CONFIRMED");
+        assertEquals(1, queue.positionOf(tickets.get(1)));
+        assertEquals(3, queue.positionOf(tickets.get(3)));
+        assertEquals("RAC/3", tickets.get(3).getDisplayStatus());
+
+        // Chart preparation promotes from the middle too
+        assertTrue(queue.remove(tickets.get(2)));
+        assertEquals(1, queue.positionOf(tickets.get(1)));
+        assertEquals(2, queue.positionOf(tickets.get(3)));
+
+        Ticket late = ticket("P9", "RAC");
+        queue.add(late);
+        assertEquals(3, queue.positionOf(late));
+        assertSame(tickets.get(1), queue.peek());
+    }
+
+    @Test
+    public void positionsMatchAListThroughCompactionAndGrowth() {
+        TicketQueue queue = new TicketQueue();
+        ArrayList<Ticket> expected = new ArrayList<>();
+        Random random = new Random(42);
+        int next = 0;
+        for (int step = 0; step < 5_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                Ticket t = ticket("P" + next++, "WAITLIST");
+                queue.add(t);
+                expected.add(t);
+            } else if (op < 7) {
+                assertSame(expected.remove(0), queue.poll());
+            } else {
+                Ticket t = expected.remove(random.nextInt(expected.size()));
+                assertSame(t, queue.removeByPnr(t.getPnrNumber()));
+            }
+            if (step % 50 == 0) {
+                assertEquals(expected.size(), queue.size());
+                for (int i = 0; i < expected.size(); i++) assertEquals(i + 1, queue.positionOf(expected.get(i)));
+            }
+        }
+        ArrayList<Ticket> inOrder = new ArrayList<>(queue);
+        assertEquals(expected, inOrder);
+    }
+
+    private static ArrayList<Ticket> enqueue(TicketQueue queue, String status, int count) {
+        ArrayList<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Ticket t = ticket("P" + i, status);
+            queue.add(t);
+            tickets.add(t);
+        }
+        return tickets;
+    }
+
+    private static Ticket ticket(String pnr, String status) {
+        return new ACClassTicket(pnr, "U1", "12951", "Passenger " + pnr, 30, "AC3", "2026-01-01", status,
+                1000, -1, 0, 0, "2026-01-10");
+    }
+}
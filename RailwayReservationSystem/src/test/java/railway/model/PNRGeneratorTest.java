@@ -0,0 +1,101 @@
+package railway.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import railway.storage.NodeIdLease;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * PNR generator: uniqueness under concurrency, check-digit validation and node ID leasing.
+ */
+public class PNRGeneratorTest {
+    private static final int TOTAL = 10_000_000;
+    private static final int THREADS = 8;
+
+    @Test
+    public void tenMillionIdsAcrossThreadsAreUniqueAndMonotonicPerThread() throws Exception {
+        PNRGenerator generator = new PNRGenerator(5);
+        int perThread = TOTAL / THREADS;
+        long[][] ids = new long[THREADS][perThread];
+        boolean[] monotonic = new boolean[THREADS];
+
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int slot = t;
+            threads[t] = new Thread(() -> {
+                long[] mine = ids[slot];
+                boolean ok = true;
+                for (int i = 0; i < perThread; i++) {
+                    mine[i] = generator.nextId();
+                    if (i > 0 && mine[i] <= mine[i - 1]) ok = false;
+                }
+                monotonic[slot] = ok;
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        long[] all = new long[TOTAL];
+        for (int t = 0; t < THREADS; t++) {
+            assertTrue("ids went backwards in thread " + t, monotonic[t]);
+            System.arraycopy(ids[t], 0, all, t * perThread, perThread);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) throw new AssertionError("duplicate id " + all[i]);
+        }
+        assertEquals(5, PNRGenerator.nodeOf(all[0]));
+    }
+
+    @Test
+    public void differentNodesNeverCollide() {
+        PNRGenerator a = new PNRGenerator(1);
+        PNRGenerator b = new PNRGenerator(2);
+        for (int i = 0; i < 100_000; i++) assertNotEquals(a.nextId(), b.nextId());
+    }
+
+    @Test
+    public void checkDigitRejectsTyposAndSwaps() {
+        String pnr = new PNRGenerator(3).next();
+        assertTrue(PNRGenerator.isWellFormed(pnr));
+        assertEquals(3 + 18 + 1, pnr.length());
+
+        for (int i = 3; i < pnr.length(); i++) {
+            for (char d = '0'; d <= '9'; d++) {
+                if (d == pnr.charAt(i)) continue;
+                String typo = pnr.substring(0, i) + d + pnr.substring(i + 1);
+                assertFalse(typo, PNRGenerator.isWellFormed(typo));
+            }
+        }
+        for (int i = 3; i + 1 < pnr.length(); i++) {
+            if (pnr.charAt(i) == pnr.charAt(i + 1)) continue;
+            String swapped = pnr.substring(0, i) + pnr.charAt(i + 1) + pnr.charAt(i) + pnr.substring(i + 2);
+            assertFalse(swapped, PNRGenerator.isWellFormed(swapped));
+        }
+
+        assertTrue("older timestamp PNRs stay valid", PNRGenerator.isWellFormed("PNR1763712000123"));
+        assertFalse(PNRGenerator.isWellFormed("PNR12A4"));
+        assertFalse(PNRGenerator.isWellFormed("XYZ123"));
+    }
+
+    @Test
+    public void leasesInOneDirectoryGetDistinctNodeIds() throws Exception {
+        Path dir = Files.createTempDirectory("node-lease");
+        try (NodeIdLease first = NodeIdLease.acquire(dir, PNRGenerator.MAX_NODES);
+             NodeIdLease second = NodeIdLease.acquire(dir, PNRGenerator.MAX_NODES)) {
+            assertNotEquals(first.getNodeId(), second.getNodeId());
+        } finally {
+            File[] files = dir.toFile().listFiles();
+            if (files != null) for (File f : files) f.delete();
+            dir.toFile().delete();
+        }
+    }
+}
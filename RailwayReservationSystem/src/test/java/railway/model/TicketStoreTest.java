@@ -0,0 +1,129 @@
+package railway.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * Ticket store: rows round-trip exactly whether a PNR is nibble-packed or kept as text, and
+ * compaction drops dictionary values that only removed rows used without disturbing the rest.
+ */
+public class TicketStoreTest {
+
+    @Test
+    public void packedAndTextPnrsRoundTrip() {
+        TicketStore store = new TicketStore();
+        String group = PNRGenerator.format(123_456_789L);
+        ArrayList<Ticket> tickets = new ArrayList<>();
+        tickets.add(ticket(group, "U1", "Asha"));                                  // 22 characters, packed
+        tickets.add(ticket(group + PNRGenerator.PASSENGER_SEPARATOR + 1, "U1", "Ravi"));
+        tickets.add(ticket(group + PNRGenerator.PASSENGER_SEPARATOR + 12, "U1", "Meera")); // crosses into the low half
+        tickets.add(ticket("PNR1234567890123456789012345678-", "U2", "Kiran"));    // 32 characters: both halves full
+        tickets.add(ticket("pnr-legacy-7", "U2", "Dev"));                          // outside the alphabet: a label
+        tickets.add(ticket("", "U3", "Nila"));
+        Ticket odd = ticket("PNR42", "U3", null);
+        odd.setJourneyDate("2026/01/10");                                          // not yyyy-MM-dd: kept as text
+        odd.setBookingDate(null);
+        odd.setBoardingStation("Surat");
+        tickets.add(odd);
+
+        for (Ticket t : tickets) store.add(t);
+
+        assertEquals(tickets.size(), store.size());
+        for (Ticket t : tickets) {
+            int row = store.rowOf(t.getPnrNumber());
+            assertTrue(t.getPnrNumber(), row >= 0);
+            assertEquals(t.getPnrNumber(), store.pnr(row));
+            assertSameTicket(t, store.get(row));
+        }
+        assertEquals(-1, store.rowOf(group + PNRGenerator.PASSENGER_SEPARATOR + 2));
+        assertEquals(-1, store.rowOf("pnr-legacy-8"));
+        assertEquals(TicketStore.NO_DAY, store.bookingDay(store.rowOf("PNR42")));
+    }
+
+    @Test
+    public void compactionDropsValuesOfRemovedRowsOnly() {
+        TicketStore store = new TicketStore();
+        for (int i = 0; i < 3000; i++) {
+            Ticket t = ticket("PNR" + i, "U" + i, "Passenger " + i);
+            if (i % 500 == 0) t.setPnrNumber("legacy-" + i);
+            store.add(t);
+        }
+        int before = store.dictionaryCodes();
+
+        // Cancel everything but every 500th ticket; remove() compacts along the way, a checkpoint's trim() does the rest
+        for (int i = 0; i < 3000; i++) {
+            if (i % 500 != 0) store.remove(store.rowOf("PNR" + i));
+        }
+        assertTrue(store.trim());
+        assertEquals(6, store.size());
+        assertTrue(store.dictionaryCodes() < before / 100);
+
+        for (int i = 0; i < 3000; i += 500) {
+            int row = store.rowOf("legacy-" + i); // label-coded PNR, re-encoded by the compaction
+            assertTrue(row >= 0);
+            assertSameTicket(ticket("legacy-" + i, "U" + i, "Passenger " + i), store.get(row));
+            assertEquals(1, store.countOfUser("U" + i));
+            assertEquals(row, store.latestOfUser("U" + i));
+        }
+        assertEquals(0, store.countOfUser("U1"));
+        assertEquals(-1, store.rowOf("PNR1"));
+
+        // A value still in use keeps its code; a dropped one is simply added again
+        int codes = store.dictionaryCodes();
+        store.add(ticket("PNR-9999", "U500", "Passenger 500"));
+        assertEquals(codes, store.dictionaryCodes());
+        store.add(ticket("PNR1", "U1", "Passenger 1"));
+        assertEquals(codes + 2, store.dictionaryCodes());
+        assertEquals(2, store.countOfUser("U500"));
+        assertSameTicket(ticket("PNR1", "U1", "Passenger 1"), store.get(store.rowOf("PNR1")));
+    }
+
+    @Test
+    public void trimCompactsOnceEnoughRowsAreRemoved() {
+        TicketStore store = new TicketStore();
+        for (int i = 0; i < 80; i++) store.add(ticket("PNR" + i, "U" + i, "Passenger " + i));
+        assertFalse(store.trim()); // nothing removed
+
+        for (int i = 0; i < 9; i++) store.remove(store.rowOf("PNR" + i));
+        assertTrue(store.trim()); // 9 removed of 71 live: past one in eight
+        assertFalse(store.trim());
+        assertEquals(71, store.size());
+        assertEquals(0, store.nextRow(0));
+        assertEquals("PNR9", store.pnr(0));
+        assertEquals(0, store.countOfUser("U0"));
+
+        // Statuses keep their fixed codes through the rebuilt dictionary
+        boolean[] confirmed = store.statusesMatching("CONFIRMED");
+        assertTrue(confirmed[store.statusCode(0)]);
+        assertEquals(3, store.statusCode(0));
+    }
+
+    private static void assertSameTicket(Ticket expected, Ticket actual) {
+        assertEquals(expected.getPnrNumber(), actual.getPnrNumber());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getTrainNumber(), actual.getTrainNumber());
+        assertEquals(expected.getPassengerName(), actual.getPassengerName());
+        assertEquals(expected.getAge(), actual.getAge());
+        assertEquals(expected.getTicketClass(), actual.getTicketClass());
+        assertEquals(expected.getBookingDate(), actual.getBookingDate());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getFare(), actual.getFare(), 0);
+        assertEquals(expected.getSeatNum(), actual.getSeatNum());
+        assertEquals(expected.getWlNumber(), actual.getWlNumber());
+        assertEquals(expected.getRacNumber(), actual.getRacNumber());
+        assertEquals(expected.getJourneyDate(), actual.getJourneyDate());
+        assertEquals(expected.getBoardingStation(), actual.getBoardingStation());
+        assertEquals(expected.getAlightingStation(), actual.getAlightingStation());
+        assertEquals(expected.getClass(), actual.getClass());
+    }
+
+    private static Ticket ticket(String pnr, String userId, String name) {
+        return new ACClassTicket(pnr, userId, "12951", name, 30, "AC3", "2026-01-01", "CONFIRMED",
+                1000, 7, 0, 0, "2026-01-10");
+    }
+}
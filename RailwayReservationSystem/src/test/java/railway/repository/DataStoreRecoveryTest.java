@@ -0,0 +1,170 @@
+package railway.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import railway.entities.ClassSeatInfo;
+import railway.entities.PNRRecord;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.service.BookingEngine;
+import railway.service.BookingRequest;
+import railway.service.PNRService;
+import railway.service.Quota;
+import railway.service.ReservationSystem;
+import railway.storage.FileManager;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Restarts a data store after damage or a crash and checks that nothing durable is lost:
+ * a damaged checkpoint falls back to the previous generation and the journal segments kept for
+ * it (not to the export-only workbooks), and PNRs written after the last checkpoint stay found.
+ */
+public class DataStoreRecoveryTest {
+    private static final String JOURNEY_DATE = LocalDate.now().plusDays(3).toString();
+
+    private File dir;
+    private DataStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("datastore-recovery").toFile();
+        store = open();
+        HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+        classes.put("AC3", new ClassSeatInfo(64, 1000, 4, 8));
+        store.trains().save(new Train("12951", "Recovery Express", "Mumbai", "Delhi", classes));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (store != null) store.shutdown();
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void corruptCheckpointFallsBackToPreviousGeneration() throws Exception {
+        ArrayList<String> pnrs = new ArrayList<>();
+        book(3, pnrs);
+        store.checkpoint();
+        book(2, pnrs);
+        store.checkpoint();
+        book(1, pnrs);
+        store.shutdown(); // final checkpoint covers everything
+        store = null;
+
+        corrupt(new File(dir, "checkpoint.bin"));
+        store = open();
+
+        assertEquals(pnrs.size(), store.tickets().count());
+        for (String pnr : pnrs) assertNotNull(pnr, store.tickets().findByPnr(pnr));
+        Train train = store.trains().findById("12951");
+        assertNotNull(train);
+        ClassSeatInfo info = store.inventory().view(train, LocalDate.parse(JOURNEY_DATE), "AC3");
+        assertEquals(64 - pnrs.size(), info.getAvailableSeats());
+    }
+
+    @Test
+    public void missingCheckpointFallsBackToPreviousGeneration() throws Exception {
+        ArrayList<String> pnrs = new ArrayList<>();
+        book(4, pnrs);
+        store.checkpoint();
+        book(2, pnrs);
+        store.shutdown();
+        store = null;
+
+        // As left by a crash between moving the old checkpoint aside and renaming the new one in
+        Files.delete(new File(dir, "checkpoint.bin").toPath());
+        store = open();
+
+        assertEquals(pnrs.size(), store.tickets().count());
+        for (String pnr : pnrs) assertNotNull(pnr, store.tickets().findByPnr(pnr));
+    }
+
+    @Test
+    public void pnrsWrittenAfterTheLastCheckpointSurviveACrash() throws Exception {
+        ArrayList<String> pnrs = new ArrayList<>();
+        bookWithPnr(3, pnrs);
+        store.checkpoint();
+        bookWithPnr(2, pnrs);
+        new ReservationSystem(store, pnrService()).cancelTicket(pnrs.get(0));
+        crash();
+        store = open();
+
+        PNRService service = pnrService();
+        for (String pnr : pnrs) {
+            assertNotNull(pnr, service.checkPNRStatus(pnr));
+            assertNotNull(pnr, store.pnrs().findById(pnr));
+        }
+        assertEquals("CANCELLED", service.checkPNRStatus(pnrs.get(0)).getCurrentStatus());
+        assertEquals("CANCELLED", store.pnrs().findById(pnrs.get(0)).getCurrentStatus());
+    }
+
+    @Test
+    public void durableBookingWithoutPnrRecordGetsOneAtStartup() throws Exception {
+        store.checkpoint();
+        ArrayList<String> pnrs = new ArrayList<>();
+        book(1, pnrs); // journalled, but stopped before its PNR record was written
+        crash();
+        store = open();
+
+        PNRRecord record = pnrService().checkPNRStatus(pnrs.get(0));
+        assertNotNull(record);
+        assertEquals("CONFIRMED", record.getCurrentStatus());
+        assertNotNull(store.pnrs().findById(pnrs.get(0)));
+    }
+
+    /** Drops the store without a final checkpoint, as a killed process would. */
+    private void crash() throws Exception {
+        store.getFileManager().close();
+        store = null;
+    }
+
+    private PNRService pnrService() {
+        return new PNRService(store.pnrs(), store.pnrIndex(), store.tickets());
+    }
+
+    private void bookWithPnr(int count, ArrayList<String> pnrs) throws Exception {
+        ReservationSystem reservations = new ReservationSystem(store, pnrService());
+        for (int i = 0; i < count; i++) {
+            BookingRequest request = new BookingRequest("12951", "AC3", "U1",
+                    new Passenger("Passenger " + pnrs.size(), 30, "ID"), JOURNEY_DATE, 0, Quota.GENERAL);
+            pnrs.add(reservations.book(request).getPnrNumber());
+        }
+    }
+
+    private DataStore open() throws Exception {
+        return DataStore.load(new FileManager(dir.getPath()), 60_000);
+    }
+
+    private void book(int count, ArrayList<String> pnrs) throws Exception {
+        BookingEngine engine = new BookingEngine(store);
+        Train train = store.trains().findById("12951");
+        for (int i = 0; i < count; i++) {
+            BookingRequest request = new BookingRequest("12951", "AC3", "U1",
+                    new Passenger("Passenger " + pnrs.size(), 30, "ID"), JOURNEY_DATE, 0, Quota.GENERAL);
+            pnrs.add(engine.book(train, request, 1000).getPnrNumber());
+        }
+    }
+
+    /** Flips bytes in the middle of the file, as a torn sector would. */
+    private static void corrupt(File file) throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long middle = raf.length() / 2;
+            raf.seek(middle);
+            int b = raf.read();
+            raf.seek(middle);
+            raf.write(b ^ 0xFF);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package railway.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import railway.entities.ClassSeatInfo;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.exception.InvalidInputException;
+import railway.model.Ticket;
+import railway.service.BookingEngine;
+import railway.service.BookingRequest;
+import railway.service.Quota;
+import railway.service.TrainManagementService;
+import railway.storage.FileManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Journey inventory: a train update rebuilds the live shards from the new templates and keeps
+ * their bookings, or is refused when it would strand one.
+ */
+public class JourneyInventoryTest {
+    private static final LocalDate JOURNEY_DATE = LocalDate.now().plusDays(5);
+    private static final List<String> STOPS = List.of("Mumbai", "Surat", "Vadodara", "Delhi");
+
+    private File dir;
+    private DataStore store;
+    private BookingEngine engine;
+    private TrainManagementService trains;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("journey-inventory").toFile();
+        store = DataStore.load(new FileManager(dir.getPath()), 60_000);
+        engine = new BookingEngine(store);
+        trains = new TrainManagementService(store.trains(), store.inventory());
+        trains.addTrain(train(4, STOPS, "AC3", "SL"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.shutdown();
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void growingAClassKeepsItsBookingsAndQueues() throws Exception {
+        for (int i = 0; i < 4; i++) book("AC3", null, null);
+        Ticket rac = book("AC3", null, null);
+        assertEquals("RAC", rac.getStatus());
+
+        trains.updateTrain("12951", train(6, STOPS, "AC3", "SL"));
+
+        ClassSeatInfo info = view("AC3");
+        assertEquals(6, info.totalSeats);
+        assertEquals(2, info.getAvailableSeats());
+        for (int seat = 1; seat <= 4; seat++) assertFalse(info.segments.isFree(seat, 0, 3));
+        assertEquals(1, info.racQueue.size());
+        assertEquals(1, rac.getRacNumber());
+
+        // The new seats are bookable, and a cancellation frees its seat in the rebuilt class
+        assertEquals(5, book("AC3", null, null).getSeatNum());
+        engine.cancel(rac.getPnrNumber());
+        assertEquals(0, view("AC3").racQueue.size());
+    }
+
+    @Test
+    public void shrinkingBelowABookedSeatIsRefused() throws Exception {
+        book("AC3", null, null);
+        book("AC3", null, null); // seats 1 and 2
+
+        try {
+            trains.updateTrain("12951", train(1, STOPS, "AC3", "SL"));
+            fail("seat 2 would be stranded");
+        } catch (InvalidInputException expected) {
+            // refused
+        }
+        assertEquals(4, store.trains().findById("12951").getSeatClasses().get("AC3").totalSeats);
+        assertEquals(4, view("AC3").totalSeats);
+
+        trains.updateTrain("12951", train(2, STOPS, "AC3", "SL"));
+        assertEquals(0, view("AC3").getAvailableSeats());
+    }
+
+    @Test
+    public void removingABookedClassIsRefusedButAnEmptyOneIsDropped() throws Exception {
+        book("AC3", null, null);
+
+        try {
+            trains.updateTrain("12951", train(4, STOPS, "SL"));
+            fail("AC3 has a booking");
+        } catch (InvalidInputException expected) {
+            // refused
+        }
+
+        trains.updateTrain("12951", train(4, STOPS, "AC3"));
+        assertNull(store.inventory().classFor(store.trains().findById("12951"), JOURNEY_DATE, "SL"));
+        assertEquals(3, view("AC3").getAvailableSeats());
+    }
+
+    @Test
+    public void stopsCannotChangeUnderBookedSegments() throws Exception {
+        book("AC3", "Surat", "Vadodara");
+        List<String> rerouted = List.of("Mumbai", "Bharuch", "Vadodara", "Delhi");
+
+        try {
+            trains.updateTrain("12951", train(4, rerouted, "AC3", "SL"));
+            fail("the booked segment would move");
+        } catch (InvalidInputException expected) {
+            // refused
+        }
+        assertEquals(STOPS, store.trains().findById("12951").getStops());
+
+        // Once the journey holds no booking the new stops apply
+        Ticket only = store.tickets().findAll().get(0);
+        engine.cancel(only.getPnrNumber());
+        trains.updateTrain("12951", train(4, rerouted, "AC3", "SL"));
+        assertEquals(rerouted, view("AC3").getStops());
+        assertTrue(book("AC3", "Bharuch", "Vadodara").getSeatNum() > 0);
+    }
+
+    @Test
+    public void searchByClassLooksAtThatDaysSeats() throws Exception {
+        for (int i = 0; i < 4; i++) book("AC3", null, null);
+
+        assertTrue(trains.searchTrainsByClass("Mumbai", "Delhi", "AC3", JOURNEY_DATE).isEmpty());
+        assertEquals(1, trains.searchTrainsByClass("Mumbai", "Delhi", "SL", JOURNEY_DATE).size());
+        assertEquals(1, trains.searchTrainsByClass("Mumbai", "Delhi", "AC3", JOURNEY_DATE.plusDays(1)).size());
+    }
+
+    private Ticket book(String cls, String from, String to) throws Exception {
+        Train train = store.trains().findById("12951");
+        BookingRequest request = new BookingRequest("12951", cls, "U1", new Passenger("P", 30, "ID"),
+                JOURNEY_DATE.toString(), from, to, BookingRequest.ANY_SEAT, Quota.GENERAL);
+        return engine.book(train, request, 1000);
+    }
+
+    private ClassSeatInfo view(String cls) {
+        return store.inventory().view(store.trains().findById("12951"), JOURNEY_DATE, cls);
+    }
+
+    private static Train train(int seats, List<String> stops, String... classTypes) {
+        HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+        for (String cls : classTypes) classes.put(cls, new ClassSeatInfo(seats, 1000, 2, 2));
+        return new Train("12951", "Inventory Express", stops.get(0), stops.get(stops.size() - 1), classes, stops);
+    }
+}
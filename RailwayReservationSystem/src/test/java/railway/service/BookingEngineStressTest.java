@@ -0,0 +1,133 @@
+package railway.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import railway.entities.ClassSeatInfo;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.exception.InvalidInputException;
+import railway.model.Ticket;
+import railway.repository.DataStore;
+import railway.storage.FileManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hammers the booking engine from 64 threads, all fighting over the same few trains and
+ * asking for specific seats, then checks that no seat was handed out twice.
+ */
+public class BookingEngineStressTest {
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 200;
+    private static final String[] CLASSES = {"AC3", "SLEEPER"};
+    private static final LocalDate JOURNEY_DATE = LocalDate.now().plusDays(1);
+
+    private File dir;
+    private DataStore store;
+    private BookingEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("booking-stress").toFile();
+        store = DataStore.load(new FileManager(dir.getPath()), 60_000);
+        engine = new BookingEngine(store);
+        for (int i = 0; i < 4; i++) {
+            HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+            for (String c : CLASSES) classes.put(c, new ClassSeatInfo(72, 1000, 20, 50));
+            store.trains().save(new Train("1200" + i, "Stress " + i, "Pune", "Howrah", classes));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.shutdown();
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void concurrentBookingsNeverShareASeat() throws Exception {
+        List<Train> trains = store.trains().findAll();
+        ConcurrentLinkedQueue<Ticket> booked = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Random rand = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        Train train = trains.get(rand.nextInt(trains.size()));
+                        String cls = CLASSES[rand.nextInt(CLASSES.length)];
+                        // Mostly contested specific seats, sometimes "any seat"
+                        int seat = rand.nextInt(4) == 0 ? 0 : 1 + rand.nextInt(72);
+                        try {
+                            BookingRequest request = new BookingRequest(train.getTrainNumber(), cls, "USR" + seed,
+                                    new Passenger("P" + i, 30, "ID"), JOURNEY_DATE.toString(), seat, Quota.GENERAL);
+                            booked.add(engine.book(train, request, train.getSeatClasses().get(cls).baseFare));
+                        } catch (InvalidInputException e) {
+                            rejected.incrementAndGet(); // seat taken or class full
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertTrue("unexpected errors: " + errors, errors.isEmpty());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, booked.size() + rejected.get());
+        assertEquals("every booking kept its own PNR", booked.size(), store.tickets().count());
+
+        for (Train train : trains) {
+            for (String cls : CLASSES) {
+                ClassSeatInfo info = store.inventory().classFor(train, JOURNEY_DATE, cls);
+                HashSet<Integer> seatsTaken = new HashSet<>();
+                HashSet<Integer> racNumbers = new HashSet<>();
+                int classTickets = 0;
+                for (Ticket t : booked) {
+                    if (!t.getTrainNumber().equals(train.getTrainNumber()) || !t.getTicketClass().equals(cls)) continue;
+                    classTickets++;
+                    if ("RAC".equals(t.getStatus())) {
+                        assertTrue("RAC number " + t.getRacNumber() + " issued twice", racNumbers.add(t.getRacNumber()));
+                    }
+                    if (t.getSeatNum() <= 0) continue;
+                    assertTrue("seat " + t.getSeatNum() + " double-allocated on " + train.getTrainNumber() + "/" + cls,
+                            seatsTaken.add(t.getSeatNum()));
+                    assertTrue(info.seats.isBooked(t.getSeatNum()));
+                }
+                int marked = 0;
+                for (int s = 1; s <= info.totalSeats; s++) if (info.seats.isBooked(s)) marked++;
+                assertEquals(seatsTaken.size(), marked);
+                assertEquals(info.totalSeats - marked, info.getAvailableSeats());
+                // No lost updates: every ticket sits in exactly one of the class's lists
+                assertEquals(classTickets, info.getConfirmedCount() + info.racQueue.size() + info.waitlistQueue.size());
+                assertTrue(info.racQueue.size() <= info.maxRacSeats);
+                assertTrue(info.waitlistQueue.size() <= info.maxWaitlist);
+            }
+        }
+    }
+}
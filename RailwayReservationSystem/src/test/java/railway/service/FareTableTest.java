@@ -0,0 +1,90 @@
+package railway.service;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import railway.entities.ClassSeatInfo;
+import railway.entities.Train;
+import railway.model.FareConfig;
+import railway.repository.TrainRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fare table: a quote follows a fare-rules reload and a train edit, in place or as a new Train
+ * object, and a deleted train's row is dropped.
+ */
+public class FareTableTest {
+    private TrainRepository trains;
+    private FareTable fares;
+
+    @Before
+    public void setUp() {
+        FareConfig.replaceRules(Map.of());
+        trains = new TrainRepository();
+        fares = new FareTable(trains);
+        trains.save(train(1000));
+    }
+
+    @After
+    public void tearDown() {
+        FareConfig.replaceRules(Map.of()); // back to the defaults for other tests
+    }
+
+    @Test
+    public void quoteFollowsARulesReload() {
+        Train train = trains.findById("12951");
+        assertEquals(2200, fares.quote(train, "AC3", Quota.GENERAL), 1e-9);
+
+        FareConfig.replaceRules(Map.of("AC3", 3.0, "TATKAL", 1.5));
+        assertEquals(3000, fares.quote(train, "AC3", Quota.GENERAL), 1e-9);
+        assertEquals(4500, fares.quote(train, "AC3", Quota.TATKAL), 1e-9);
+
+        FareConfig.replaceRules(Map.of()); // the reverted file brings the defaults back
+        assertEquals(2200, fares.quote(train, "AC3", Quota.GENERAL), 1e-9);
+    }
+
+    @Test
+    public void quoteFollowsATrainEdit() {
+        Train train = trains.findById("12951");
+        assertEquals(1200, fares.quote(train, "SLEEPER", Quota.GENERAL), 1e-9);
+
+        // Changed in place and saved again: same object, new version
+        train.getSeatClasses().get("SLEEPER").baseFare = 1500;
+        trains.save(train);
+        assertEquals(1800, fares.quote(train, "SLEEPER", Quota.GENERAL), 1e-9);
+
+        // Replaced by an edited copy with a class removed
+        Train edited = train(2000);
+        edited.getSeatClasses().remove("AC3");
+        trains.save(edited);
+        assertEquals(2400, fares.quote(edited, "SLEEPER", Quota.GENERAL), 1e-9);
+        assertEquals(-1, fares.quote(edited, "AC3", Quota.GENERAL), 1e-9);
+    }
+
+    @Test
+    public void deletingATrainDropsItsRow() {
+        fares.refresh(trains.findAll());
+        assertEquals(1, fares.size());
+
+        trains.delete("12951");
+        assertEquals(0, fares.size());
+
+        // Added again under the same number, it is priced afresh
+        Train again = train(500);
+        trains.save(again);
+        assertEquals(600, fares.quote(again, "SLEEPER", Quota.GENERAL), 1e-9);
+    }
+
+    private static Train train(double baseFare) {
+        List<String> stops = List.of("Mumbai", "Surat", "Delhi");
+        HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+        classes.put("AC3", new ClassSeatInfo(10, baseFare, 2, 2));
+        classes.put("SLEEPER", new ClassSeatInfo(10, baseFare, 2, 2));
+        return new Train("12951", "Fare Express", "Mumbai", "Delhi", classes, stops);
+    }
+}
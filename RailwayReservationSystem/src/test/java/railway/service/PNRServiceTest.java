@@ -0,0 +1,93 @@
+package railway.service;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import railway.entities.ClassSeatInfo;
+import railway.entities.PNRRecord;
+import railway.entities.Passenger;
+import railway.entities.Train;
+import railway.repository.DataStore;
+import railway.storage.FileManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * PNR status after a cancellation: the PNRs of promoted tickets show their new status at once,
+ * and PNRs still queued show their live RAC/WL position.
+ */
+public class PNRServiceTest {
+    private static final String JOURNEY_DATE = LocalDate.now().plusDays(3).toString();
+
+    private File dir;
+    private DataStore store;
+    private PNRService pnrs;
+    private ReservationSystem reservations;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("pnr-service").toFile();
+        store = DataStore.load(new FileManager(dir.getPath()), 60_000);
+        HashMap<String, ClassSeatInfo> classes = new HashMap<>();
+        classes.put("AC3", new ClassSeatInfo(1, 1000, 1, 3));
+        store.trains().save(new Train("12951", "Status Express", "Mumbai", "Delhi", classes));
+        pnrs = new PNRService(store.pnrs(), store.pnrIndex(), store.tickets());
+        reservations = new ReservationSystem(store, pnrs);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.shutdown();
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void cancellationPromotionsReachThePnrStatus() throws Exception {
+        ArrayList<String> booked = book(5); // CONFIRMED, RAC/1, WL/1, WL/2, WL/3
+        assertStatus(booked.get(3), "WAITLIST", 0, 2);
+
+        reservations.cancelTicket(booked.get(0));
+
+        assertStatus(booked.get(0), "CANCELLED", 0, 0);
+        assertStatus(booked.get(1), "CONFIRMED", 0, 0);
+        assertStatus(booked.get(2), "RAC", 1, 0);
+        assertStatus(booked.get(3), "WAITLIST", 0, 1); // moved up without a promotion of its own
+        assertStatus(booked.get(4), "WAITLIST", 0, 2);
+    }
+
+    @Test
+    public void queuePositionsFollowCancellationsAheadInTheQueue() throws Exception {
+        ArrayList<String> booked = book(5);
+
+        reservations.cancelTicket(booked.get(2)); // WL/1 leaves; nobody is promoted
+
+        assertStatus(booked.get(1), "RAC", 1, 0);
+        assertStatus(booked.get(3), "WAITLIST", 0, 1);
+        assertStatus(booked.get(4), "WAITLIST", 0, 2);
+    }
+
+    private void assertStatus(String pnrNumber, String status, int racNumber, int wlNumber) throws Exception {
+        PNRRecord record = pnrs.checkPNRStatus(pnrNumber);
+        assertEquals(pnrNumber, status, record.getCurrentStatus());
+        assertEquals(pnrNumber, racNumber, record.getRacNumber());
+        assertEquals(pnrNumber, wlNumber, record.getWlNumber());
+    }
+
+    private ArrayList<String> book(int count) throws Exception {
+        ArrayList<String> booked = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BookingRequest request = new BookingRequest("12951", "AC3", "U1",
+                    new Passenger("Passenger " + i, 30, "ID"), JOURNEY_DATE, 0, Quota.GENERAL);
+            booked.add(reservations.book(request).getPnrNumber());
+        }
+        return booked;
+    }
+}
@@ -0,0 +1,161 @@
+package railway.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import railway.model.Ticket;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reservation journal: a batch whose write fails part-way must leave no trace, so that the
+ * records committed after it are still replayed.
+ */
+public class ReservationJournalTest {
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void shortWriteIsCutBackAndLaterRecordsReplay() throws Exception {
+        FaultyChannel[] faulty = new FaultyChannel[1];
+        ReservationJournal journal = new ReservationJournal(dir.toPath(), 1, 0,
+                ch -> faulty[0] = new FaultyChannel(ch));
+        ReservationJournal.awaitDurable(journal.appendCancel("PNR-BEFORE"));
+        long goodSize = journal.currentSegmentSize();
+
+        faulty[0].failNextWrite = true; // writes part of the record, then "disk full"
+        try {
+            ReservationJournal.awaitDurable(journal.appendCancel("PNR-LOST"));
+            fail("the failed write should reach the caller");
+        } catch (IOException expected) {
+            // the caller learns its record is not durable
+        }
+        assertEquals(goodSize, journal.currentSegmentSize());
+
+        ReservationJournal.awaitDurable(journal.appendCancel("PNR-AFTER"));
+        journal.close();
+
+        // A restart replays the records on either side of the failed one, and nothing else
+        ReservationJournal reopened = new ReservationJournal(dir.toPath());
+        assertEquals(Arrays.asList("PNR-BEFORE", "PNR-AFTER"), cancelsIn(reopened));
+        reopened.close();
+    }
+
+    @Test
+    public void unrepairableSegmentRefusesAppendsUntilRotated() throws Exception {
+        FaultyChannel[] faulty = new FaultyChannel[1];
+        ReservationJournal journal = new ReservationJournal(dir.toPath(), 1, 0,
+                ch -> faulty[0] = new FaultyChannel(ch));
+        ReservationJournal.awaitDurable(journal.appendCancel("PNR-BEFORE"));
+
+        faulty[0].failNextWrite = true;
+        faulty[0].failTruncate = true;
+        try {
+            ReservationJournal.awaitDurable(journal.appendCancel("PNR-LOST"));
+            fail("the failed write should reach the caller");
+        } catch (IOException expected) {
+            // torn record left in place
+        }
+        try {
+            ReservationJournal.awaitDurable(journal.appendCancel("PNR-REFUSED"));
+            fail("appends behind a torn record must be refused");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("refuses appends"));
+        }
+
+        journal.rotate();
+        ReservationJournal.awaitDurable(journal.appendCancel("PNR-AFTER"));
+        journal.close();
+
+        ReservationJournal reopened = new ReservationJournal(dir.toPath());
+        assertEquals(Arrays.asList("PNR-BEFORE", "PNR-AFTER"), cancelsIn(reopened));
+        reopened.close();
+    }
+
+    private static List<String> cancelsIn(ReservationJournal journal) throws IOException {
+        ArrayList<String> cancels = new ArrayList<>();
+        journal.replay(new ReservationJournal.Listener() {
+            @Override
+            public void onBook(Ticket ticket) { }
+
+            @Override
+            public void onCancel(String pnrNumber) { cancels.add(pnrNumber); }
+
+            @Override
+            public void onPromote(String pnrNumber, String status, int seatNum, int racNumber, int wlNumber) { }
+        });
+        return cancels;
+    }
+
+    /** Delegates to a real channel; when armed, a gathering write stores a few bytes and then fails. */
+    private static class FaultyChannel extends FileChannel {
+        private final FileChannel delegate;
+        volatile boolean failNextWrite;
+        volatile boolean failTruncate;
+
+        FaultyChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (!failNextWrite) return delegate.write(srcs, offset, length);
+            failNextWrite = false;
+            ByteBuffer first = srcs[offset];
+            ByteBuffer part = first.duplicate();
+            part.limit(part.position() + part.remaining() / 2);
+            int written = delegate.write(part);
+            first.position(first.position() + written);
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) throw new IOException("I/O error");
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override public int read(ByteBuffer dst) throws IOException { return delegate.read(dst); }
+        @Override public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return delegate.read(dsts, offset, length); }
+        @Override public int write(ByteBuffer src) throws IOException { return delegate.write(src); }
+        @Override public long position() throws IOException { return delegate.position(); }
+        @Override public FileChannel position(long newPosition) throws IOException { delegate.position(newPosition); return this; }
+        @Override public long size() throws IOException { return delegate.size(); }
+        @Override public void force(boolean metaData) throws IOException { delegate.force(metaData); }
+        @Override public long transferTo(long position, long count, WritableByteChannel target) throws IOException { return delegate.transferTo(position, count, target); }
+        @Override public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException { return delegate.transferFrom(src, position, count); }
+        @Override public int read(ByteBuffer dst, long position) throws IOException { return delegate.read(dst, position); }
+        @Override public int write(ByteBuffer src, long position) throws IOException { return delegate.write(src, position); }
+        @Override public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException { return delegate.map(mode, position, size); }
+        @Override public FileLock lock(long position, long size, boolean shared) throws IOException { return delegate.lock(position, size, shared); }
+        @Override public FileLock tryLock(long position, long size, boolean shared) throws IOException { return delegate.tryLock(position, size, shared); }
+        @Override protected void implCloseChannel() throws IOException { delegate.close(); }
+    }
+}